@@ -0,0 +1,57 @@
+package com.hcmus.awad_email.config;
+
+import com.hcmus.awad_email.model.EmbeddingVector;
+import org.bson.types.Binary;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+/**
+ * Custom MongoDB type mappings.
+ * Embedding vectors are stored as packed float32 binaries; vectors still stored as arrays of
+ * doubles are read as well until the background migration has rewritten them.
+ */
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new EmbeddingVectorWriter(),
+                new EmbeddingVectorReader(),
+                new LegacyEmbeddingVectorReader()));
+    }
+
+    @WritingConverter
+    static class EmbeddingVectorWriter implements Converter<EmbeddingVector, Binary> {
+        @Override
+        public Binary convert(EmbeddingVector source) {
+            return new Binary(EmbeddingVector.BINARY_SUBTYPE, source.toBytes());
+        }
+    }
+
+    @ReadingConverter
+    static class EmbeddingVectorReader implements Converter<Binary, EmbeddingVector> {
+        @Override
+        public EmbeddingVector convert(Binary source) {
+            return EmbeddingVector.fromBytes(source.getData());
+        }
+    }
+
+    @ReadingConverter
+    static class LegacyEmbeddingVectorReader implements Converter<List<?>, EmbeddingVector> {
+        @Override
+        public EmbeddingVector convert(List<?> source) {
+            float[] values = new float[source.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ((Number) source.get(i)).floatValue();
+            }
+            return new EmbeddingVector(null, values);
+        }
+    }
+}
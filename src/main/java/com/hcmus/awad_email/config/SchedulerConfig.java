@@ -1,6 +1,10 @@
 package com.hcmus.awad_email.config;
 
+import com.hcmus.awad_email.service.EmbeddingPipeline;
+import com.hcmus.awad_email.service.EmbeddingService;
+import com.hcmus.awad_email.service.FullTextIndex;
 import com.hcmus.awad_email.service.KanbanService;
+import com.hcmus.awad_email.service.SearchTokenService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -9,7 +13,8 @@ import org.springframework.scheduling.annotation.Scheduled;
 
 /**
  * Configuration for scheduled tasks.
- * Handles automatic processing of expired snoozes.
+ * Handles automatic processing of expired snoozes, Kanban counter reconciliation,
+ * search token backfill, embedding generation, re-embedding and storage migration, and full-text index upkeep.
  */
 @Configuration
 @EnableScheduling
@@ -18,6 +23,18 @@ public class SchedulerConfig {
     
     @Autowired
     private KanbanService kanbanService;
+
+    @Autowired
+    private SearchTokenService searchTokenService;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private EmbeddingPipeline embeddingPipeline;
     
     /**
      * Process expired snoozes every minute.
@@ -31,5 +48,107 @@ public class SchedulerConfig {
             log.error("Error processing expired snoozes: {}", e.getMessage());
         }
     }
-}
 
+    /**
+     * Reconcile per-column card counters every 15 minutes.
+     * Counters are maintained incrementally; this fixes any drift.
+     */
+    @Scheduled(fixedRate = 900000, initialDelay = 30000) // Run every 15 minutes, first run shortly after startup
+    public void reconcileColumnCounts() {
+        try {
+            kanbanService.reconcileColumnCounts();
+        } catch (Exception e) {
+            log.error("Error reconciling column counts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Backfill search tokens every 5 minutes.
+     * Covers cards stored before tokenization or by an older tokenizer version.
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 60000) // Run 5 minutes after the previous pass finished
+    public void backfillSearchTokens() {
+        try {
+            searchTokenService.backfill();
+        } catch (Exception e) {
+            log.error("Error backfilling search tokens: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queue cards without embeddings every 5 minutes.
+     * Covers cards written before the pipeline, dropped from its full queue or whose batch failed.
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 45000) // Run 5 minutes after the previous pass finished
+    public void enqueueMissingEmbeddings() {
+        try {
+            embeddingPipeline.enqueueMissing();
+        } catch (Exception e) {
+            log.error("Error queueing missing embeddings: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-embed a few chunks of cards embedded by a previous model every minute.
+     * Rolls out a model switch gradually; does nothing once all embeddings are current.
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 105000) // Run 1 minute after the previous pass finished
+    public void reembedStaleEmbeddings() {
+        try {
+            embeddingPipeline.reembedStale();
+        } catch (Exception e) {
+            log.error("Error re-embedding stale embeddings: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Migrate embeddings to packed binary storage every 5 minutes.
+     * Covers cards whose embedding was stored as an array of doubles.
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 75000) // Run 5 minutes after the previous pass finished
+    public void migrateLegacyEmbeddings() {
+        try {
+            embeddingService.migrateLegacyEmbeddings();
+        } catch (Exception e) {
+            log.error("Error migrating legacy embeddings: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Commit pending full-text index changes every 30 seconds.
+     * Bounds how much incremental indexing a crash can lose.
+     */
+    @Scheduled(fixedDelay = 30000, initialDelay = 30000)
+    public void commitFullTextIndex() {
+        try {
+            fullTextIndex.commitAll();
+        } catch (Exception e) {
+            log.error("Error committing full-text index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Backfill the full-text index every 5 minutes.
+     * Indexes full bodies of cards stored before full-text indexing or on another instance's disk.
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 90000) // Run 5 minutes after the previous pass finished
+    public void backfillFullTextIndex() {
+        try {
+            fullTextIndex.backfill();
+        } catch (Exception e) {
+            log.error("Error backfilling full-text index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Merge full-text index segments and close idle indexes every 15 minutes.
+     */
+    @Scheduled(fixedDelay = 900000, initialDelay = 900000)
+    public void maintainFullTextIndex() {
+        try {
+            fullTextIndex.maintain();
+        } catch (Exception e) {
+            log.error("Error maintaining full-text index: {}", e.getMessage());
+        }
+    }
+}
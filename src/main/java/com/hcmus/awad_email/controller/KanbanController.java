@@ -6,10 +6,12 @@ import com.hcmus.awad_email.dto.kanban.*;
 import com.hcmus.awad_email.service.FuzzySearchService;
 import com.hcmus.awad_email.service.GmailService;
 import com.hcmus.awad_email.service.KanbanService;
+import com.hcmus.awad_email.util.SparseFields;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -39,20 +41,23 @@ public class KanbanController {
      *
      * @param maxEmails Maximum emails to display (default: 50, max: 100)
      * @param sync If true, sync new emails from Gmail before returning (default: false)
+     * @param fields Comma-separated card fields to return (default: all), e.g. "subject,fromName,receivedAt,isRead"
      */
     @GetMapping("/board")
-    public ResponseEntity<ApiResponse<KanbanBoardResponse>> getBoard(
+    public ResponseEntity<MappingJacksonValue> getBoard(
             Authentication authentication,
             @RequestParam(required = false, defaultValue = "50") Integer maxEmails,
-            @RequestParam(required = false, defaultValue = "false") Boolean sync) {
+            @RequestParam(required = false, defaultValue = "false") Boolean sync,
+            @RequestParam(required = false) String fields) {
         String userId = (String) authentication.getPrincipal();
         log.info("📋 Get Kanban board for user: {} (maxEmails: {}, sync: {})", userId, maxEmails, sync);
 
         // Limit max emails to 100
         int limitedMax = Math.min(maxEmails != null ? maxEmails : 50, 100);
 
-        KanbanBoardResponse board = kanbanService.getBoard(userId, limitedMax, sync != null && sync);
-        return ResponseEntity.ok(ApiResponse.success(board));
+        SparseFields sparseFields = SparseFields.parse(fields);
+        KanbanBoardResponse board = kanbanService.getBoard(userId, limitedMax, sync != null && sync, sparseFields);
+        return ResponseEntity.ok(sparseFields.wrap(ApiResponse.success(board)));
     }
 
     /**
@@ -67,16 +72,18 @@ public class KanbanController {
      * - fromSender: partial match on sender email or name
      * - columnId: filter by specific column
      * - maxEmailsPerColumn: max emails per column (default: 50, max: 100)
+     * - fields: comma-separated card fields to return (default: all)
      */
     @GetMapping("/board/filter")
-    public ResponseEntity<ApiResponse<KanbanBoardResponse>> getBoardWithFilters(
+    public ResponseEntity<MappingJacksonValue> getBoardWithFilters(
             Authentication authentication,
             @RequestParam(required = false, defaultValue = "date_newest") String sortBy,
             @RequestParam(required = false) Boolean unreadOnly,
             @RequestParam(required = false) Boolean hasAttachmentsOnly,
             @RequestParam(required = false) String fromSender,
             @RequestParam(required = false) String columnId,
-            @RequestParam(required = false, defaultValue = "50") Integer maxEmailsPerColumn) {
+            @RequestParam(required = false, defaultValue = "50") Integer maxEmailsPerColumn,
+            @RequestParam(required = false) String fields) {
         String userId = (String) authentication.getPrincipal();
         log.info("📋 Get filtered Kanban board for user: {} (sortBy: {}, unreadOnly: {}, hasAttachmentsOnly: {}, fromSender: {})",
                 userId, sortBy, unreadOnly, hasAttachmentsOnly, fromSender);
@@ -90,8 +97,9 @@ public class KanbanController {
                 .maxEmailsPerColumn(maxEmailsPerColumn)
                 .build();
 
-        KanbanBoardResponse board = kanbanService.getBoardWithFilters(userId, filterRequest);
-        return ResponseEntity.ok(ApiResponse.success(board));
+        SparseFields sparseFields = SparseFields.parse(fields);
+        KanbanBoardResponse board = kanbanService.getBoardWithFilters(userId, filterRequest, sparseFields);
+        return ResponseEntity.ok(sparseFields.wrap(ApiResponse.success(board)));
     }
 
     // ==================== Fuzzy Search Operations ====================
@@ -109,13 +117,19 @@ public class KanbanController {
      * - query: The search query (required)
      * - limit: Maximum results to return (default: 20, max: 100)
      * - includeBody: Also search in preview/summary (default: false)
+     * - fields: comma-separated result fields to return (default: all)
+     * - cursor: nextCursor from a previous response, to fetch the following page
+     * - maxLatencyMs: optional latency budget; returns the best matches found in time (partial: true)
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<FuzzySearchResponse>> fuzzySearch(
+    public ResponseEntity<MappingJacksonValue> fuzzySearch(
             Authentication authentication,
             @RequestParam String query,
             @RequestParam(required = false, defaultValue = "20") Integer limit,
-            @RequestParam(required = false, defaultValue = "false") Boolean includeBody) {
+            @RequestParam(required = false, defaultValue = "false") Boolean includeBody,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer maxLatencyMs) {
         String userId = (String) authentication.getPrincipal();
         log.info("🔍 Fuzzy search for user: {} with query: '{}' (limit: {}, includeBody: {})",
                 userId, query, limit, includeBody);
@@ -124,10 +138,13 @@ public class KanbanController {
                 .query(query)
                 .limit(limit)
                 .includeBody(includeBody)
+                .cursor(cursor)
+                .maxLatencyMs(maxLatencyMs)
                 .build();
 
-        FuzzySearchResponse response = fuzzySearchService.search(userId, request);
-        return ResponseEntity.ok(ApiResponse.success(response));
+        SparseFields sparseFields = SparseFields.parse(fields);
+        FuzzySearchResponse response = fuzzySearchService.search(userId, request, sparseFields);
+        return ResponseEntity.ok(sparseFields.wrap(ApiResponse.success(response)));
     }
 
     /**
@@ -135,15 +152,17 @@ public class KanbanController {
      * Same as GET /search but accepts request body for complex queries.
      */
     @PostMapping("/search")
-    public ResponseEntity<ApiResponse<FuzzySearchResponse>> fuzzySearchPost(
+    public ResponseEntity<MappingJacksonValue> fuzzySearchPost(
             Authentication authentication,
-            @RequestBody FuzzySearchRequest request) {
+            @RequestBody FuzzySearchRequest request,
+            @RequestParam(required = false) String fields) {
         String userId = (String) authentication.getPrincipal();
         log.info("🔍 Fuzzy search (POST) for user: {} with query: '{}' (limit: {}, includeBody: {})",
                 userId, request.getQuery(), request.getLimit(), request.getIncludeBody());
 
-        FuzzySearchResponse response = fuzzySearchService.search(userId, request);
-        return ResponseEntity.ok(ApiResponse.success(response));
+        SparseFields sparseFields = SparseFields.parse(fields);
+        FuzzySearchResponse response = fuzzySearchService.search(userId, request, sparseFields);
+        return ResponseEntity.ok(sparseFields.wrap(ApiResponse.success(response)));
     }
 
     // ==================== Gmail Sync Operations ====================
@@ -278,15 +297,19 @@ public class KanbanController {
     
     /**
      * Get emails in a specific column.
+     *
+     * @param fields Comma-separated card fields to return (default: all)
      */
     @GetMapping("/columns/{columnId}/emails")
-    public ResponseEntity<ApiResponse<List<KanbanEmailResponse>>> getEmailsInColumn(
+    public ResponseEntity<MappingJacksonValue> getEmailsInColumn(
             Authentication authentication,
-            @PathVariable String columnId) {
+            @PathVariable String columnId,
+            @RequestParam(required = false) String fields) {
         String userId = (String) authentication.getPrincipal();
         log.info("📋 Get emails in column {} for user: {}", columnId, userId);
-        List<KanbanEmailResponse> emails = kanbanService.getEmailsInColumn(userId, columnId);
-        return ResponseEntity.ok(ApiResponse.success(emails));
+        SparseFields sparseFields = SparseFields.parse(fields);
+        List<KanbanEmailResponse> emails = kanbanService.getEmailsInColumn(userId, columnId, sparseFields);
+        return ResponseEntity.ok(sparseFields.wrap(ApiResponse.success(emails)));
     }
     
     /**
@@ -315,6 +338,20 @@ public class KanbanController {
         return ResponseEntity.ok(ApiResponse.success(email));
     }
     
+    /**
+     * Get the Kanban status of several emails at once (up to 500).
+     * Use this to hydrate card details for a whole column in one round trip.
+     */
+    @PostMapping("/emails/batch")
+    public ResponseEntity<ApiResponse<List<KanbanEmailResponse>>> getEmailStatuses(
+            Authentication authentication,
+            @Valid @RequestBody BatchEmailStatusRequest request) {
+        String userId = (String) authentication.getPrincipal();
+        log.info("📋 Get status of {} emails for user: {}", request.getEmailIds().size(), userId);
+        List<KanbanEmailResponse> emails = kanbanService.getEmailStatuses(userId, request.getEmailIds());
+        return ResponseEntity.ok(ApiResponse.success(emails));
+    }
+    
     /**
      * Move an email to a different column (drag-and-drop).
      */
@@ -1,23 +1,32 @@
 package com.hcmus.awad_email.controller;
 
 import com.hcmus.awad_email.dto.common.ApiResponse;
+import com.hcmus.awad_email.dto.search.FullTextSearchRequest;
+import com.hcmus.awad_email.dto.search.FullTextSearchResponse;
+import com.hcmus.awad_email.dto.search.HybridSearchRequest;
+import com.hcmus.awad_email.dto.search.HybridSearchResponse;
 import com.hcmus.awad_email.dto.search.SemanticSearchRequest;
 import com.hcmus.awad_email.dto.search.SemanticSearchResponse;
 import com.hcmus.awad_email.dto.search.SearchSuggestionResponse;
 import com.hcmus.awad_email.dto.search.SearchSuggestionResponse.ContactSuggestion;
+import com.hcmus.awad_email.service.EmbeddingPipeline;
+import com.hcmus.awad_email.service.FullTextSearchService;
+import com.hcmus.awad_email.service.HybridSearchService;
 import com.hcmus.awad_email.service.SemanticSearchService;
 import com.hcmus.awad_email.service.SearchSuggestionService;
+import com.hcmus.awad_email.util.SparseFields;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 /**
- * REST Controller for search operations including semantic search and auto-suggestions.
+ * REST Controller for search operations including semantic, hybrid and full-text search and auto-suggestions.
  */
 @RestController
 @RequestMapping("/api/search")
@@ -30,6 +39,15 @@ public class SearchController {
     @Autowired
     private SearchSuggestionService searchSuggestionService;
 
+    @Autowired
+    private HybridSearchService hybridSearchService;
+
+    @Autowired
+    private FullTextSearchService fullTextSearchService;
+
+    @Autowired
+    private EmbeddingPipeline embeddingPipeline;
+
     /**
      * Check if semantic search is available (AI service configured and running).
      */
@@ -43,27 +61,42 @@ public class SearchController {
         return ResponseEntity.ok(ApiResponse.success(status));
     }
 
+    /**
+     * Progress of re-embedding stored emails after an embedding model switch.
+     * Until complete, semantic search only covers emails already embedded by the active model.
+     */
+    @GetMapping("/semantic/embedding-progress")
+    public ResponseEntity<ApiResponse<EmbeddingPipeline.ReembedProgress>> getEmbeddingProgress() {
+        return ResponseEntity.ok(ApiResponse.success(embeddingPipeline.reembedProgress()));
+    }
+
     /**
      * Perform semantic search on emails via AI service.
      * Uses vector embeddings to find conceptually related emails.
      *
      * Example: Searching for "money" will find emails about "invoice", "price", "salary"
      * even if the word "money" doesn't appear in them.
+     *
+     * @param fields Comma-separated result fields to return (default: all)
      */
     @PostMapping("/semantic")
-    public ResponseEntity<ApiResponse<SemanticSearchResponse>> semanticSearch(
+    public ResponseEntity<MappingJacksonValue> semanticSearch(
             Authentication authentication,
-            @Valid @RequestBody SemanticSearchRequest request) {
+            @Valid @RequestBody SemanticSearchRequest request,
+            @RequestParam(required = false) String fields) {
         String userId = (String) authentication.getPrincipal();
         log.info("🔍 Semantic search for user: {} | query: '{}'", userId, request.getQuery());
 
+        SparseFields sparseFields = SparseFields.parse(fields);
+
         if (!semanticSearchService.isAvailable()) {
             return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Semantic search is not available. AI service not configured or not running."));
+                    .body(new MappingJacksonValue(ApiResponse.error(
+                            "Semantic search is not available. AI service not configured or not running.")));
         }
 
-        SemanticSearchResponse response = semanticSearchService.search(userId, request);
-        return ResponseEntity.ok(ApiResponse.success(response));
+        SemanticSearchResponse response = semanticSearchService.search(userId, request, sparseFields);
+        return ResponseEntity.ok(sparseFields.wrap(ApiResponse.success(response)));
     }
 
     /**
@@ -113,6 +146,62 @@ public class SearchController {
         }
     }
 
+    // ==================== Hybrid Search Endpoints ====================
+
+    /**
+     * Perform hybrid search combining fuzzy (lexical) and semantic retrieval.
+     * Both run concurrently under a shared deadline and are merged with reciprocal rank fusion.
+     * If semantic search is slow or unavailable, lexical results are returned alone.
+     */
+    @PostMapping("/hybrid")
+    public ResponseEntity<ApiResponse<HybridSearchResponse>> hybridSearch(
+            Authentication authentication,
+            @Valid @RequestBody HybridSearchRequest request) {
+        String userId = (String) authentication.getPrincipal();
+        log.info("🔍 Hybrid search for user: {} | query: '{}'", userId, request.getQuery());
+
+        HybridSearchResponse response = hybridSearchService.search(userId, request);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    // ==================== Full-Text Search Endpoints ====================
+
+    /**
+     * Search complete email bodies, not just previews and summaries.
+     * Served from a local index, so no Gmail calls are made.
+     *
+     * Query syntax: plain words (all must match), "exact phrases", prefix* terms and
+     * field:term for subject, from, summary or body. Results are ranked by BM25.
+     *
+     * @param cursor nextCursor from a previous response, to fetch the following page
+     * @param fields Comma-separated result fields to return (default: all)
+     */
+    @GetMapping("/fulltext")
+    public ResponseEntity<MappingJacksonValue> fullTextSearch(
+            Authentication authentication,
+            @RequestParam String query,
+            @RequestParam(required = false, defaultValue = "20") Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        String userId = (String) authentication.getPrincipal();
+        log.info("🔍 Full-text search for user: {} | query: '{}'", userId, query);
+
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest()
+                    .body(new MappingJacksonValue(ApiResponse.error("Query is required")));
+        }
+
+        FullTextSearchRequest request = FullTextSearchRequest.builder()
+                .query(query)
+                .limit(limit)
+                .cursor(cursor)
+                .build();
+
+        SparseFields sparseFields = SparseFields.parse(fields);
+        FullTextSearchResponse response = fullTextSearchService.search(userId, request, sparseFields);
+        return ResponseEntity.ok(sparseFields.wrap(ApiResponse.success(response)));
+    }
+
     // ==================== Auto-Suggestion Endpoints ====================
 
     /**
@@ -0,0 +1,21 @@
+package com.hcmus.awad_email.dto.kanban;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchEmailStatusRequest {
+
+    @NotEmpty(message = "Email IDs are required")
+    @Size(max = 500, message = "At most 500 email IDs can be requested at once")
+    private List<String> emailIds; // Gmail message IDs, results keep this order
+}
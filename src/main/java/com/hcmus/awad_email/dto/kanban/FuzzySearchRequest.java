@@ -27,5 +27,17 @@ public class FuzzySearchRequest {
      * When true, also searches in preview and summary fields
      */
     private Boolean includeBody;
+
+    /**
+     * Opaque cursor from a previous response's nextCursor, to fetch the following page
+     * of the same query
+     */
+    private String cursor;
+
+    /**
+     * Optional latency budget in milliseconds. Cards are scored most recent first until it runs
+     * out, and the best matches found so far are returned with partial = true
+     */
+    private Integer maxLatencyMs;
 }
 
@@ -1,5 +1,7 @@
 package com.hcmus.awad_email.dto.kanban;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.hcmus.awad_email.util.SparseFields;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,11 +29,28 @@ public class FuzzySearchResponse {
      * Search results ranked by relevance (best matches first)
      */
     private List<SearchResultItem> results;
+
+    /**
+     * Cursor for the next page of results, or null if this is the last page
+     */
+    private String nextCursor;
+
+    /**
+     * Whether the latency budget ran out before every candidate was scored;
+     * results are then the best matches among the most recent cards
+     */
+    private boolean partial;
+
+    /**
+     * Number of cards scored for this request (0 when served from cached results)
+     */
+    private int scannedCount;
     
     @Data
     @Builder
     @NoArgsConstructor
     @AllArgsConstructor
+    @JsonFilter(SparseFields.FILTER_ID)
     public static class SearchResultItem {
         
         private String id; // EmailKanbanStatus ID
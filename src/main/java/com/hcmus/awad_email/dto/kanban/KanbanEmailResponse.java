@@ -1,5 +1,7 @@
 package com.hcmus.awad_email.dto.kanban;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.hcmus.awad_email.util.SparseFields;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,6 +13,7 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonFilter(SparseFields.FILTER_ID)
 public class KanbanEmailResponse {
     
     private String id; // EmailKanbanStatus ID
@@ -0,0 +1,29 @@
+package com.hcmus.awad_email.dto.search;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for full-text search over complete email bodies.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FullTextSearchRequest {
+
+    // Search terms; supports "exact phrases", prefix* terms and field:term (subject, from, summary, body)
+    @NotBlank(message = "Query is required")
+    @Size(min = 1, max = 500, message = "Query must be between 1 and 500 characters")
+    private String query;
+
+    // Maximum number of results to return (default: 20, max: 100)
+    private Integer limit;
+
+    // Opaque cursor from a previous response's nextCursor, to fetch the following page
+    private String cursor;
+}
@@ -0,0 +1,33 @@
+package com.hcmus.awad_email.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for full-text search results.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FullTextSearchResponse {
+
+    private String query;
+
+    private int totalResults;
+
+    // Number of matching emails across all pages
+    private long totalHits;
+
+    private List<FullTextSearchResultItem> results;
+
+    // Cursor for the next page of results, or null if this is the last page
+    private String nextCursor;
+
+    // Processing time in milliseconds
+    private long processingTimeMs;
+}
@@ -0,0 +1,48 @@
+package com.hcmus.awad_email.dto.search;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.hcmus.awad_email.util.SparseFields;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Individual search result item for full-text search.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonFilter(SparseFields.FILTER_ID)
+public class FullTextSearchResultItem {
+
+    private String emailId;
+
+    private String subject;
+
+    private String fromEmail;
+
+    private String fromName;
+
+    private String preview;
+
+    private String summary;
+
+    private String columnId;
+
+    private String columnName;
+
+    private LocalDateTime receivedAt;
+
+    private boolean isRead;
+
+    private boolean isStarred;
+
+    private boolean hasAttachments;
+
+    // BM25 relevance score; only comparable within one query
+    private double score;
+}
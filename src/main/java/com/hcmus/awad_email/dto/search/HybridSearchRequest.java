@@ -0,0 +1,34 @@
+package com.hcmus.awad_email.dto.search;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for hybrid (lexical + semantic) search.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HybridSearchRequest {
+
+    @NotBlank(message = "Query is required")
+    @Size(min = 1, max = 500, message = "Query must be between 1 and 500 characters")
+    private String query;
+
+    // Maximum number of results to return (default: 20, max: 100)
+    private Integer limit;
+
+    // Whether lexical matching also scores preview and summary
+    private Boolean includeBody;
+
+    // Minimum semantic similarity for the semantic retriever (0.0 to 1.0)
+    private Double minScore;
+
+    // Time budget for both retrievers in milliseconds (capped by the server default)
+    private Long deadlineMs;
+}
@@ -0,0 +1,32 @@
+package com.hcmus.awad_email.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for hybrid search results.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HybridSearchResponse {
+
+    private String query;
+
+    private int totalResults;
+
+    private List<HybridSearchResultItem> results;
+
+    // Whether each retriever finished within the deadline; false means its results are missing
+    private boolean lexicalComplete;
+
+    private boolean semanticComplete;
+
+    // Processing time in milliseconds
+    private long processingTimeMs;
+}
@@ -0,0 +1,50 @@
+package com.hcmus.awad_email.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Individual search result item for hybrid search.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HybridSearchResultItem {
+
+    private String emailId;
+
+    private String subject;
+
+    private String fromEmail;
+
+    private String fromName;
+
+    private String preview;
+
+    private String summary;
+
+    private String columnId;
+
+    private String columnName;
+
+    private LocalDateTime receivedAt;
+
+    private boolean isRead;
+
+    private boolean isStarred;
+
+    private boolean hasAttachments;
+
+    // Reciprocal rank fusion score
+    private double score;
+
+    // 1-based rank in each retriever's list, null if the retriever did not return the email
+    private Integer lexicalRank;
+
+    private Integer semanticRank;
+}
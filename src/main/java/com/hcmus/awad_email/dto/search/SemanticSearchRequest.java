@@ -7,6 +7,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * Request DTO for semantic search.
  */
@@ -26,7 +28,30 @@ public class SemanticSearchRequest {
     // Minimum similarity score threshold (0.0 to 1.0, default: 0.3)
     private Double minScore;
     
-    // Whether to generate embeddings for emails that don't have them yet
+    // Whether to queue background embedding generation for emails that don't have them yet
     private Boolean generateMissingEmbeddings;
+
+    // Opaque cursor from a previous response's nextCursor, to fetch the following page
+    private String cursor;
+
+    // Filters, applied before similarity scoring; unset filters do not restrict
+
+    // Only emails in this Kanban column
+    private String columnId;
+
+    // Only emails received at or after this time
+    private LocalDateTime receivedAfter;
+
+    // Only emails received before this time
+    private LocalDateTime receivedBefore;
+
+    // Only unread emails
+    private Boolean unreadOnly;
+
+    // Only starred emails
+    private Boolean starredOnly;
+
+    // Only emails with attachments
+    private Boolean hasAttachmentsOnly;
 }
 
@@ -21,6 +21,9 @@ public class SemanticSearchResponse {
     private int totalResults;
     
     private List<SemanticSearchResultItem> results;
+
+    // Cursor for the next page of results, or null if this is the last page
+    private String nextCursor;
     
     // Statistics about the search
     private int emailsWithEmbeddings;
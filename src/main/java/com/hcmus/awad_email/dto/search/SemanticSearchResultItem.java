@@ -1,5 +1,7 @@
 package com.hcmus.awad_email.dto.search;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.hcmus.awad_email.util.SparseFields;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,6 +16,7 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonFilter(SparseFields.FILTER_ID)
 public class SemanticSearchResultItem {
     
     private String emailId;
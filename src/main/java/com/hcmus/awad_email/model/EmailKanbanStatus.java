@@ -10,7 +10,6 @@ import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
  * Tracks the Kanban status of an email for a specific user.
@@ -23,6 +22,11 @@ import java.util.List;
 @Document(collection = "email_kanban_status")
 @CompoundIndex(name = "user_email_idx", def = "{'userId': 1, 'emailId': 1}", unique = true)
 @CompoundIndex(name = "user_column_idx", def = "{'userId': 1, 'columnId': 1}")
+@CompoundIndex(name = "user_text_idx", def = "{'userId': 1, 'subject': 'text', 'fromName': 'text', "
+        + "'fromEmail': 'text', 'preview': 'text', 'summary': 'text'}")
+@CompoundIndex(name = "fulltext_pending_idx", def = "{'fullTextIndexedAt': 1, '_id': 1}")
+@CompoundIndex(name = "embedding_pending_idx", def = "{'embeddingGeneratedAt': 1, '_id': 1}")
+@CompoundIndex(name = "embedding_model_idx", def = "{'embeddingModel': 1, '_id': 1}")
 public class EmailKanbanStatus {
     
     @Id
@@ -68,14 +72,28 @@ public class EmailKanbanStatus {
 
     private boolean hasAttachments;
 
+    // Normalized tokens of the cached metadata, maintained on save for search and suggestions
+    private SearchTokens searchTokens;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
 
     // Vector embedding for semantic search
     // Stores the embedding vector generated from subject + preview/body
-    private List<Double> embedding;
+    private EmbeddingVector embedding;
 
     private LocalDateTime embeddingGeneratedAt;
+
+    // Embedding attempts that returned no vector for this card, and when it may be tried again
+    private int embeddingAttempts;
+
+    private LocalDateTime embeddingRetryAt;
+
+    // Model of the embedding, duplicated from the vector so stale embeddings can be queried (null = unknown)
+    private String embeddingModel;
+
+    // When the full message text was last written to the local full-text index (null = pending)
+    private LocalDateTime fullTextIndexedAt;
 }
 
@@ -0,0 +1,116 @@
+package com.hcmus.awad_email.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Embedding vector of an email card, embedded in {@link EmailKanbanStatus}.
+ * Stored as a BSON binary of packed little-endian float32 values behind a small header,
+ * instead of an array of tagged doubles; see {@link #toBytes()} for the layout.
+ */
+@Getter
+@EqualsAndHashCode
+public final class EmbeddingVector {
+
+    /**
+     * BSON binary subtype of stored vectors (first user-defined subtype).
+     */
+    public static final byte BINARY_SUBTYPE = (byte) 0x80;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    // Model that produced the vector, null if unknown (vectors stored before the model was recorded)
+    private final String model;
+
+    // Backing array, shared without copying; callers must not modify it
+    private final float[] values;
+
+    public EmbeddingVector(String model, float[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Embedding values must not be null");
+        }
+        this.model = model != null && !model.isEmpty() ? model : null;
+        this.values = values;
+    }
+
+    /**
+     * Vector from boxed numbers, e.g. a legacy array document or a parsed JSON response.
+     */
+    public static EmbeddingVector of(String model, List<? extends Number> values) {
+        float[] floats = new float[values.size()];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = values.get(i).floatValue();
+        }
+        return new EmbeddingVector(model, floats);
+    }
+
+    public int getDimensions() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Read-only view of the values.
+     */
+    public FloatBuffer asFloatBuffer() {
+        return FloatBuffer.wrap(values).asReadOnlyBuffer();
+    }
+
+    /**
+     * Encode as stored. Layout, little-endian: format version (1 byte), model name length
+     * (2 bytes, 0 if unknown), UTF-8 model name, dimensions (4 bytes), float32 values.
+     */
+    public byte[] toBytes() {
+        byte[] modelBytes = model != null ? model.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + modelBytes.length + 4 + values.length * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(FORMAT_VERSION);
+        buffer.putShort((short) modelBytes.length);
+        buffer.put(modelBytes);
+        buffer.putInt(values.length);
+        buffer.asFloatBuffer().put(values);
+        return buffer.array();
+    }
+
+    /**
+     * Decode bytes written by {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException if the bytes are not a supported encoding
+     */
+    public static EmbeddingVector fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported embedding format version " + version);
+            }
+            byte[] modelBytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(modelBytes);
+            int dimensions = buffer.getInt();
+            if (dimensions < 0 || buffer.remaining() != dimensions * Float.BYTES) {
+                throw new IllegalArgumentException("Embedding of " + dimensions + " dimensions has "
+                        + buffer.remaining() + " value bytes");
+            }
+            float[] values = new float[dimensions];
+            buffer.asFloatBuffer().get(values);
+            return new EmbeddingVector(new String(modelBytes, StandardCharsets.UTF_8), values);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated embedding header", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EmbeddingVector[model=" + model + ", dimensions=" + values.length + "]";
+    }
+}
@@ -51,6 +51,10 @@ public class KanbanColumn {
     // Labels to add when email is moved to this column
     private List<String> addLabelsOnMove;
 
+    // Number of cards in this column, maintained with $inc on every card write
+    // and periodically reconciled against the actual card count
+    private long emailCount;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -0,0 +1,35 @@
+package com.hcmus.awad_email.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted embedding of a normalized search query, so the query embedding cache survives restarts.
+ * Shared by all users; expires a while after creation.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "query_embeddings")
+public class QueryEmbedding {
+
+    @Id
+    private String id; // Embedding model + normalized query, see QueryEmbeddingCache
+
+    private String model;
+
+    private String query; // Normalized query text
+
+    private EmbeddingVector embedding;
+
+    @Indexed(expireAfter = "30d")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.hcmus.awad_email.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Normalized search tokens of an email card, embedded in {@link EmailKanbanStatus}.
+ * Recomputed whenever the card is saved; documents written by an older tokenizer
+ * carry a lower version and are refreshed in the background.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchTokens {
+
+    /**
+     * Bump when the tokenization rules change to trigger a backfill.
+     */
+    public static final int CURRENT_VERSION = 1;
+
+    private int version;
+
+    private List<String> subject;
+
+    private List<String> fromName;
+
+    private List<String> fromEmail;
+
+    private List<String> preview;
+
+    private List<String> summary;
+
+    // Subject tokens that are not stop words and long enough to suggest, in order
+    private List<String> keywords;
+}
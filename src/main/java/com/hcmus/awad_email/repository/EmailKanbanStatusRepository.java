@@ -11,7 +11,8 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EmailKanbanStatusRepository extends MongoRepository<EmailKanbanStatus, String> {
+public interface EmailKanbanStatusRepository extends MongoRepository<EmailKanbanStatus, String>,
+        EmailKanbanStatusRepositoryCustom {
 
     Optional<EmailKanbanStatus> findByUserIdAndEmailId(String userId, String emailId);
 
@@ -23,6 +24,8 @@ public interface EmailKanbanStatusRepository extends MongoRepository<EmailKanban
 
     long countByUserIdAndColumnId(String userId, String columnId);
 
+    long countByEmbeddingGeneratedAtIsNull();
+
     void deleteByUserIdAndEmailId(String userId, String emailId);
 
     void deleteByUserIdAndColumnId(String userId, String columnId);
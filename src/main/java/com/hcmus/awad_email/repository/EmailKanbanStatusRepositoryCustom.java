@@ -0,0 +1,140 @@
+package com.hcmus.awad_email.repository;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.EmbeddingVector;
+import com.hcmus.awad_email.model.SearchTokens;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom queries on email_kanban_status that cannot be expressed as derived queries.
+ */
+public interface EmailKanbanStatusRepositoryCustom {
+
+    /**
+     * Count cards per column across all users in a single aggregation.
+     *
+     * @return Map of columnId -> number of cards in that column
+     */
+    Map<String, Long> countCardsByColumn();
+
+    /**
+     * Find all cards of a user, loading only the given fields.
+     *
+     * @param fields Document fields to load, or null for whole documents
+     */
+    List<EmailKanbanStatus> findByUserIdProjected(String userId, Collection<String> fields);
+
+    /**
+     * Find the cards of one column ordered by position, loading only the given fields.
+     *
+     * @param fields Document fields to load, or null for whole documents
+     */
+    List<EmailKanbanStatus> findByUserIdAndColumnIdProjected(String userId, String columnId, Collection<String> fields);
+
+    /**
+     * Find specific cards of a user, loading only the given fields.
+     *
+     * @param fields Document fields to load, or null for whole documents
+     */
+    List<EmailKanbanStatus> findByUserIdAndEmailIdInProjected(String userId, Collection<String> emailIds,
+                                                              Collection<String> fields);
+
+    /**
+     * Full-text search within a user's cards using the text index, best matches first.
+     * Matches whole (stemmed) words only; no typo tolerance.
+     *
+     * @param fields Document fields to load, or null for whole documents
+     * @param maxTime Server-side time limit of the query, or null for none; exceeding it throws
+     */
+    List<EmailKanbanStatus> searchText(String userId, String text, int limit, Collection<String> fields,
+                                       Duration maxTime);
+
+    /**
+     * Find cards whose search tokens are missing or older than the given version.
+     */
+    List<EmailKanbanStatus> findWithStaleSearchTokens(int version, int limit);
+
+    /**
+     * Set the search tokens of several cards in one bulk write, leaving other fields untouched.
+     *
+     * @param tokensById Map of card id -> tokens
+     */
+    void updateSearchTokens(Map<String, SearchTokens> tokensById);
+
+    /**
+     * Find cards not yet written to the full-text index, oldest first.
+     *
+     * @param excludedUserIds Users to leave out, e.g. ones whose mailbox could not be read this pass
+     */
+    List<EmailKanbanStatus> findPendingFullTextIndex(Collection<String> excludedUserIds, int limit);
+
+    /**
+     * Record that several cards were written to the full-text index, leaving other fields untouched.
+     */
+    void markFullTextIndexed(Collection<String> ids, LocalDateTime indexedAt);
+
+    /**
+     * Mark every card of a user as pending for the full-text index, e.g. after its index was lost.
+     */
+    void clearFullTextIndexed(String userId);
+
+    /**
+     * Find cards that have no embedding yet and are due for an attempt, oldest first.
+     * Cards waiting for a retry or that failed {@code maxAttempts} times are left out.
+     * The returned cards only carry their id, user and email id.
+     *
+     * @param userId Only cards of this user, or null for all users
+     * @param afterId Only cards with a greater id, for paging; null to start at the beginning
+     */
+    List<EmailKanbanStatus> findPendingEmbedding(String userId, String afterId, int maxAttempts, int limit);
+
+    /**
+     * Set the embedding and its model of several cards in one bulk write, leaving other fields untouched.
+     *
+     * @param embeddingsById Map of card id -> embedding
+     */
+    void updateEmbeddings(Map<String, EmbeddingVector> embeddingsById, LocalDateTime generatedAt);
+
+    /**
+     * Record a failed embedding attempt on several cards in one bulk write.
+     *
+     * @param retryAtById Map of card id -> earliest time of the next attempt
+     */
+    void recordEmbeddingFailures(Map<String, LocalDateTime> retryAtById);
+
+    /**
+     * Find cards whose embedding was produced by a model other than the given ones, oldest first.
+     *
+     * @param currentModels Models whose embeddings are current; may contain null for unknown models
+     * @param afterId Only cards with a greater id, for paging; null to start at the beginning
+     * @param fields Document fields to load, or null for whole documents
+     */
+    List<EmailKanbanStatus> findStaleEmbedding(Collection<String> currentModels, String afterId, int limit,
+                                               Collection<String> fields);
+
+    /**
+     * Count cards that have an embedding, per embedding model, across all users.
+     *
+     * @return Map of model -> number of cards; the null key counts embeddings of unknown model
+     */
+    Map<String, Long> countEmbeddingsByModel();
+
+    /**
+     * Find cards whose embedding is still stored as an array of doubles instead of a packed binary.
+     * The returned cards only carry their id and embedding.
+     */
+    List<EmailKanbanStatus> findWithLegacyEmbedding(int limit);
+
+    /**
+     * Rewrite legacy array embeddings in their packed form in one bulk write, leaving other fields
+     * untouched. Cards whose embedding was replaced in the meantime are skipped.
+     *
+     * @param embeddingsById Map of card id -> embedding
+     */
+    void replaceLegacyEmbeddings(Map<String, EmbeddingVector> embeddingsById);
+}
@@ -0,0 +1,243 @@
+package com.hcmus.awad_email.repository;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.EmbeddingVector;
+import com.hcmus.awad_email.model.SearchTokens;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoTemplate-backed implementation of {@link EmailKanbanStatusRepositoryCustom}.
+ */
+public class EmailKanbanStatusRepositoryImpl implements EmailKanbanStatusRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<String, Long> countCardsByColumn() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("columnId").count().as("count"));
+
+        Map<String, Long> counts = new HashMap<>();
+        for (Document doc : mongoTemplate.aggregate(aggregation, EmailKanbanStatus.class, Document.class)
+                .getMappedResults()) {
+            Object columnId = doc.get("_id");
+            Number count = doc.get("count", Number.class);
+            if (columnId != null && count != null) {
+                counts.put(columnId.toString(), count.longValue());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public List<EmailKanbanStatus> findByUserIdProjected(String userId, Collection<String> fields) {
+        Query query = new Query(Criteria.where("userId").is(userId));
+        includeFields(query, fields);
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public List<EmailKanbanStatus> findByUserIdAndColumnIdProjected(String userId, String columnId,
+                                                                    Collection<String> fields) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("columnId").is(columnId))
+                .with(Sort.by(Sort.Direction.ASC, "orderInColumn"));
+        includeFields(query, fields);
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public List<EmailKanbanStatus> findByUserIdAndEmailIdInProjected(String userId, Collection<String> emailIds,
+                                                                     Collection<String> fields) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("emailId").in(emailIds));
+        includeFields(query, fields);
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public List<EmailKanbanStatus> searchText(String userId, String text, int limit, Collection<String> fields,
+                                              Duration maxTime) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text))
+                .sortByScore()
+                .addCriteria(Criteria.where("userId").is(userId))
+                .limit(limit);
+        if (maxTime != null) {
+            query.maxTime(maxTime);
+        }
+        includeFields(query, fields);
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public List<EmailKanbanStatus> findWithStaleSearchTokens(int version, int limit) {
+        Query query = new Query(Criteria.where("searchTokens.version").not().gte(version)).limit(limit);
+        query.fields().include("subject", "fromName", "fromEmail", "preview", "summary");
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public void updateSearchTokens(Map<String, SearchTokens> tokensById) {
+        if (tokensById.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailKanbanStatus.class);
+        tokensById.forEach((id, tokens) ->
+                bulk.updateOne(new Query(Criteria.where("_id").is(id)), new Update().set("searchTokens", tokens)));
+        bulk.execute();
+    }
+
+    @Override
+    public List<EmailKanbanStatus> findPendingFullTextIndex(Collection<String> excludedUserIds, int limit) {
+        Criteria criteria = Criteria.where("fullTextIndexedAt").is(null);
+        if (!excludedUserIds.isEmpty()) {
+            criteria = criteria.and("userId").nin(excludedUserIds);
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit);
+        query.fields().include("userId", "emailId", "subject", "fromName", "fromEmail", "preview", "summary");
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public void markFullTextIndexed(Collection<String> ids, LocalDateTime indexedAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids)),
+                new Update().set("fullTextIndexedAt", indexedAt), EmailKanbanStatus.class);
+    }
+
+    @Override
+    public void clearFullTextIndexed(String userId) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("userId").is(userId)),
+                new Update().unset("fullTextIndexedAt"), EmailKanbanStatus.class);
+    }
+
+    @Override
+    public List<EmailKanbanStatus> findPendingEmbedding(String userId, String afterId, int maxAttempts, int limit) {
+        // not() also matches cards without the fields, i.e. never failed
+        Criteria criteria = Criteria.where("embeddingGeneratedAt").is(null)
+                .and("embeddingAttempts").not().gte(maxAttempts)
+                .and("embeddingRetryAt").not().gt(LocalDateTime.now());
+        if (userId != null) {
+            criteria = criteria.and("userId").is(userId);
+        }
+        if (afterId != null) {
+            criteria = criteria.and("_id").gt(afterId);
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit);
+        query.fields().include("userId", "emailId");
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public void updateEmbeddings(Map<String, EmbeddingVector> embeddingsById, LocalDateTime generatedAt) {
+        if (embeddingsById.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailKanbanStatus.class);
+        embeddingsById.forEach((id, embedding) ->
+                bulk.updateOne(new Query(Criteria.where("_id").is(id)), new Update()
+                        .set("embedding", embedding)
+                        .set("embeddingGeneratedAt", generatedAt)
+                        .set("embeddingModel", embedding.getModel())
+                        .unset("embeddingAttempts")
+                        .unset("embeddingRetryAt")));
+        bulk.execute();
+    }
+
+    @Override
+    public void recordEmbeddingFailures(Map<String, LocalDateTime> retryAtById) {
+        if (retryAtById.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailKanbanStatus.class);
+        retryAtById.forEach((id, retryAt) ->
+                bulk.updateOne(new Query(Criteria.where("_id").is(id).and("embeddingGeneratedAt").is(null)),
+                        new Update().inc("embeddingAttempts", 1).set("embeddingRetryAt", retryAt)));
+        bulk.execute();
+    }
+
+    @Override
+    public List<EmailKanbanStatus> findStaleEmbedding(Collection<String> currentModels, String afterId, int limit,
+                                                      Collection<String> fields) {
+        Criteria criteria = Criteria.where("embeddingGeneratedAt").ne(null)
+                .and("embeddingModel").nin(currentModels);
+        if (afterId != null) {
+            criteria = criteria.and("_id").gt(afterId);
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit);
+        includeFields(query, fields);
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public Map<String, Long> countEmbeddingsByModel() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("embeddingGeneratedAt").ne(null)),
+                Aggregation.group("embeddingModel").count().as("count"));
+
+        Map<String, Long> counts = new HashMap<>();
+        for (Document doc : mongoTemplate.aggregate(aggregation, EmailKanbanStatus.class, Document.class)
+                .getMappedResults()) {
+            Object model = doc.get("_id");
+            Number count = doc.get("count", Number.class);
+            if (count != null) {
+                counts.merge(model != null ? model.toString() : null, count.longValue(), Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public List<EmailKanbanStatus> findWithLegacyEmbedding(int limit) {
+        Query query = new Query(legacyEmbedding()).limit(limit);
+        query.fields().include("embedding");
+        return mongoTemplate.find(query, EmailKanbanStatus.class);
+    }
+
+    @Override
+    public void replaceLegacyEmbeddings(Map<String, EmbeddingVector> embeddingsById) {
+        if (embeddingsById.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailKanbanStatus.class);
+        embeddingsById.forEach((id, embedding) ->
+                bulk.updateOne(new Query(Criteria.where("_id").is(id).andOperator(legacyEmbedding())),
+                        new Update().set("embedding", embedding)));
+        bulk.execute();
+    }
+
+    private static Criteria legacyEmbedding() {
+        return Criteria.where("embedding").type(JsonSchemaObject.Type.arrayType());
+    }
+
+    private void includeFields(Query query, Collection<String> fields) {
+        if (fields != null) {
+            fields.forEach(field -> query.fields().include(field));
+        }
+    }
+}
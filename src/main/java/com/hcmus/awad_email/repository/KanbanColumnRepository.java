@@ -2,8 +2,11 @@ package com.hcmus.awad_email.repository;
 
 import com.hcmus.awad_email.model.KanbanColumn;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,5 +24,34 @@ public interface KanbanColumnRepository extends MongoRepository<KanbanColumn, St
     long countByUserId(String userId);
     
     void deleteByIdAndUserId(String id, String userId);
+
+    /**
+     * Overwrite the user-editable settings of a column, leaving its card counter to $inc.
+     *
+     * @return Number of columns updated; 0 if the column does not exist or belongs to another user
+     */
+    @Query("{ '_id': ?0, 'userId': ?1 }")
+    @Update("{ '$set': { 'name': ?2, 'color': ?3, 'order': ?4, 'gmailLabelId': ?5, 'gmailLabelName': ?6, "
+            + "'removeLabelsOnMove': ?7, 'addLabelsOnMove': ?8, 'updatedAt': ?9 } }")
+    long updateSettings(String id, String userId, String name, String color, int order,
+                        String gmailLabelId, String gmailLabelName, List<String> removeLabelsOnMove,
+                        List<String> addLabelsOnMove, LocalDateTime updatedAt);
+
+    /**
+     * Atomically add delta to the card counter of a column.
+     */
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'emailCount': ?1 } }")
+    long incrementEmailCount(String id, long delta);
+
+    /**
+     * Overwrite the card counter of a column if it still holds the expected value (used by
+     * reconciliation), so increments made since it was read are not lost.
+     *
+     * @return Number of columns updated; 0 if the counter changed in the meantime
+     */
+    @Query("{ '_id': ?0, 'emailCount': ?1 }")
+    @Update("{ '$set': { 'emailCount': ?2 } }")
+    long updateEmailCount(String id, long expectedEmailCount, long emailCount);
 }
 
@@ -0,0 +1,9 @@
+package com.hcmus.awad_email.repository;
+
+import com.hcmus.awad_email.model.QueryEmbedding;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QueryEmbeddingRepository extends MongoRepository<QueryEmbedding, String> {
+}
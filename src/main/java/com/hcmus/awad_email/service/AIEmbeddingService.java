@@ -0,0 +1,231 @@
+package com.hcmus.awad_email.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.EmbeddingVector;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for generating embedding vectors using AI (OpenAI via external AI service).
+ * Embeds card text (subject + preview) and search queries. The default {@link EmbeddingProvider}.
+ */
+@Service
+@ConditionalOnProperty(name = "app.search.semantic.provider", havingValue = "remote", matchIfMissing = true)
+@Slf4j
+public class AIEmbeddingService implements EmbeddingProvider {
+
+    @Value("${app.ai-service.base-url:http://localhost:8000}")
+    private String aiServiceBaseUrl;
+
+    @Value("${app.ai-service.timeout-seconds:30}")
+    private int timeoutSeconds;
+
+    // Recorded with each stored vector; only vectors of this model are searched
+    @Value("${app.openai.embedding-model:}")
+    private String embeddingModel;
+
+    // Model assumed for vectors stored before the model was recorded
+    @Value("${app.search.semantic.legacy-embedding-model:${app.openai.embedding-model:}}")
+    private String legacyEmbeddingModel;
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+
+    private static final String EMBEDDING_ENDPOINT = "/api/v1/email/embedding/generate";
+    private static final String BATCH_EMBEDDING_ENDPOINT = "/api/v1/email/embedding/generate/batch";
+    private static final String EMBEDDING_STATUS_ENDPOINT = "/api/v1/email/embedding/status";
+    private static final long AVAILABILITY_TTL_MS = 30 * 1000L;
+
+    private volatile long availableUntil;
+
+    public AIEmbeddingService() {
+        this.restTemplate = new RestTemplate();
+        this.objectMapper = new ObjectMapper();
+    }
+
+    @PostConstruct
+    public void init() {
+        // Bounds each attempt of a chunk, so a hung call cannot hold an embedding worker indefinitely
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        requestFactory.setReadTimeout((int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        restTemplate.setRequestFactory(requestFactory);
+    }
+
+    /**
+     * Name of the model the AI service embeds with.
+     */
+    @Override
+    public String getModel() {
+        return embeddingModel;
+    }
+
+    /**
+     * Check if the AI service is configured and running.
+     * A positive answer is reused for {@link #AVAILABILITY_TTL_MS}, so searches served from
+     * cached query embeddings do not ping the AI service either; failures are re-checked every call.
+     */
+    @Override
+    public boolean isAvailable() {
+        if (aiServiceBaseUrl == null || aiServiceBaseUrl.isEmpty()) {
+            return false;
+        }
+        if (System.currentTimeMillis() < availableUntil) {
+            return true;
+        }
+        try {
+            String url = aiServiceBaseUrl + EMBEDDING_STATUS_ENDPOINT;
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                JsonNode root = objectMapper.readTree(response.getBody());
+                boolean available = root.path("available").asBoolean(false);
+                if (available) {
+                    availableUntil = System.currentTimeMillis() + AVAILABILITY_TTL_MS;
+                }
+                return available;
+            }
+        } catch (Exception e) {
+            log.warn("AI service not available: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Whether a stored vector was produced by the current model and so is comparable with query
+     * embeddings. Vectors of unknown model count as {@code app.search.semantic.legacy-embedding-model}.
+     */
+    @Override
+    public boolean isCurrent(EmbeddingVector vector) {
+        String model = vector.getModel() != null ? vector.getModel() : emptyToNull(legacyEmbeddingModel);
+        return Objects.equals(model, emptyToNull(embeddingModel));
+    }
+
+    /**
+     * Values of the stored embedding model field that mark an embedding as current; contains null
+     * if embeddings of unknown model are current.
+     */
+    @Override
+    public List<String> getCurrentModels() {
+        String model = emptyToNull(embeddingModel);
+        return Objects.equals(emptyToNull(legacyEmbeddingModel), model)
+                ? Arrays.asList(model, null)
+                : Arrays.asList(model);
+    }
+
+    /**
+     * Generate embedding for a single text via AI service.
+     *
+     * @return Embedding vector or null if generation fails
+     */
+    @Override
+    public float[] embed(String subject, String body) {
+        try {
+            String url = aiServiceBaseUrl + EMBEDDING_ENDPOINT;
+
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("subject", subject);
+            requestBody.put("body", body);
+
+            ResponseEntity<String> response = restTemplate.exchange(
+                    url, HttpMethod.POST, jsonEntity(requestBody), String.class);
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                JsonNode embeddingNode = objectMapper.readTree(response.getBody()).path("embedding");
+                if (embeddingNode.isArray()) {
+                    return toFloats(embeddingNode);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error generating embedding via AI service: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Generate embeddings for several cards in one call to the AI service batch endpoint.
+     * Cards are identified by their document id, so cards of different users can share a batch.
+     *
+     * @return Map of card id -> embedding; cards the AI service skipped are absent
+     * @throws IllegalStateException if the call fails as a whole
+     */
+    @Override
+    public Map<String, float[]> embedBatch(List<EmailKanbanStatus> cards) {
+        if (cards.isEmpty()) {
+            return Map.of();
+        }
+
+        String url = aiServiceBaseUrl + BATCH_EMBEDDING_ENDPOINT;
+
+        List<Map<String, Object>> emailsList = new ArrayList<>(cards.size());
+        for (EmailKanbanStatus card : cards) {
+            Map<String, Object> emailData = new HashMap<>();
+            emailData.put("email_id", card.getId());
+            emailData.put("subject", card.getSubject());
+            emailData.put("body", card.getPreview());
+            emailsList.add(emailData);
+        }
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("emails", emailsList);
+
+        log.debug("Calling AI service at {} for {} embeddings", url, cards.size());
+
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(
+                    url, HttpMethod.POST, jsonEntity(requestBody), String.class);
+
+            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+                throw new IllegalStateException("AI service batch embedding failed. Status: "
+                        + response.getStatusCode());
+            }
+
+            Map<String, float[]> embeddings = new HashMap<>();
+            for (JsonNode embeddingData : objectMapper.readTree(response.getBody()).path("embeddings")) {
+                String id = embeddingData.path("email_id").asText(null);
+                JsonNode embeddingNode = embeddingData.path("embedding");
+                if (id != null && embeddingNode.isArray() && !embeddingNode.isEmpty()) {
+                    embeddings.put(id, toFloats(embeddingNode));
+                }
+            }
+            return embeddings;
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("AI service batch embedding failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value != null && !value.isEmpty() ? value : null;
+    }
+
+    private static HttpEntity<Map<String, Object>> jsonEntity(Map<String, Object> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(body, headers);
+    }
+
+    private static float[] toFloats(JsonNode arrayNode) {
+        float[] values = new float[arrayNode.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) arrayNode.get(i).asDouble();
+        }
+        return values;
+    }
+}
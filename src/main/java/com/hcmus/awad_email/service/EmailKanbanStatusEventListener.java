@@ -0,0 +1,76 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps derived search data in step with writes to email_kanban_status:
+ * stored search tokens are recomputed before each save, and in-memory indexes
+ * and cached search results are updated after saves and deletes.
+ */
+@Component
+@Slf4j
+public class EmailKanbanStatusEventListener extends AbstractMongoEventListener<EmailKanbanStatus> {
+
+    @Autowired
+    private FuzzySearchIndex fuzzySearchIndex;
+
+    @Autowired
+    private SearchTokenService searchTokenService;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private VectorIndexService vectorIndexService;
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<EmailKanbanStatus> event) {
+        EmailKanbanStatus status = event.getSource();
+        status.setSearchTokens(searchTokenService.compute(status));
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<EmailKanbanStatus> event) {
+        EmailKanbanStatus status = event.getSource();
+        fuzzySearchIndex.upsert(status);
+        vectorIndexService.upsert(status);
+        if (status.getUserId() != null) {
+            searchResultCache.bumpBoardVersion(status.getUserId());
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<EmailKanbanStatus> event) {
+        // Deletes only carry the query; targeted ones name the user and email
+        Document query = event.getSource();
+        Object userId = query.get("userId");
+        Object emailId = query.get("emailId");
+
+        if (userId instanceof String user && emailId instanceof String email) {
+            fuzzySearchIndex.remove(user, email);
+            fullTextIndex.remove(user, email);
+            vectorIndexService.remove(user, email);
+            searchResultCache.bumpBoardVersion(user);
+        } else if (userId instanceof String user) {
+            fuzzySearchIndex.invalidate(user);
+            vectorIndexService.invalidate(user);
+            searchResultCache.bumpBoardVersion(user);
+        } else {
+            log.debug("Untargeted delete on email_kanban_status, dropping all search indexes");
+            fuzzySearchIndex.invalidateAll();
+            vectorIndexService.invalidateAll();
+            searchResultCache.invalidateAll();
+        }
+    }
+}
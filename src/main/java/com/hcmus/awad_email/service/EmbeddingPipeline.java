@@ -0,0 +1,468 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Background pipeline that generates embeddings for cards that have none, off the request path.
+ *
+ * <p>Card writes enqueue the card; a dispatcher thread groups queued cards into chunks of up to
+ * {@code app.search.semantic.embedding.chunk-size}, waiting at most {@link #MAX_BATCH_DELAY_MS} for
+ * a chunk to fill, and hands them to at most {@code app.search.semantic.embedding.parallelism}
+ * concurrent AI service calls. A failed chunk is retried on its own, and each chunk's results are
+ * saved with one bulk write.
+ *
+ * <p>The queue is bounded. While every worker is busy the dispatcher stops draining it, and once
+ * it is full further cards are dropped rather than blocking the caller. Dropped cards, and cards
+ * whose batch failed, still have no embedding and are picked up again by the periodic
+ * {@link #enqueueMissing()} sweep, which continues where the previous sweep stopped. Cards the
+ * provider returns no vector for are retried with exponential backoff and given up after
+ * {@link #MAX_CARD_ATTEMPTS} attempts.
+ *
+ * <p>{@link #generateMissing(String)} embeds a user's backlog synchronously on the same workers,
+ * one page of cards at a time and within a deadline.
+ *
+ * <p>{@link #reembedStale()} re-embeds cards whose vector came from a previous model, a few chunks
+ * per scheduled run and only while no new cards are waiting, so a model switch is rolled out
+ * gradually without competing with fresh cards for the AI service.
+ */
+@Service
+@Slf4j
+public class EmbeddingPipeline {
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final long MAX_BATCH_DELAY_MS = 500;
+    private static final int SWEEP_LIMIT = 2000;
+    private static final long RETRY_BACKOFF_MS = 1000;
+    private static final int MAX_CARD_ATTEMPTS = 5;
+    private static final long CARD_RETRY_BASE_MINUTES = 15;
+    private static final String ALL_USERS = "";
+
+    // Embedding input, plus the fields the vector index filters on since saved cards are upserted into it
+    static final Set<String> INPUT_FIELDS = Stream.concat(
+                    Stream.of("userId", "emailId", "subject", "preview", "embeddingGeneratedAt", "embeddingAttempts"),
+                    VectorIndexService.FILTER_FIELDS.stream())
+            .collect(Collectors.toUnmodifiableSet());
+
+    @Autowired
+    private EmailKanbanStatusRepository emailStatusRepository;
+
+    @Autowired
+    private EmbeddingProvider embeddingProvider;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Value("${app.search.semantic.embedding.chunk-size:64}")
+    private int chunkSize;
+
+    @Value("${app.search.semantic.embedding.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.search.semantic.embedding.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.search.semantic.embedding.generate-timeout-seconds:120}")
+    private long generateTimeoutSeconds;
+
+    @Value("${app.search.semantic.embedding.reembed-chunks-per-run:10}")
+    private int reembedChunksPerRun;
+
+    /**
+     * Re-embedding progress after a model switch, across all users.
+     *
+     * @param current Cards embedded by the active model
+     * @param stale Cards embedded by another model, waiting to be re-embedded
+     * @param pending Cards without any embedding
+     * @param percentComplete Share of embedded cards on the active model
+     */
+    public record ReembedProgress(String activeModel, long current, long stale, long pending,
+                                  double percentComplete) {}
+
+    private record CardRef(String userId, String emailId) {}
+
+    private final BlockingQueue<CardRef> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Set<CardRef> queued = ConcurrentHashMap.newKeySet(); // Deduplicates repeated writes of a card
+    private String reembedCursor; // Id after which the next re-embedding run continues
+    private final Map<String, String> sweepCursors = new ConcurrentHashMap<>(); // Per user, or ALL_USERS
+    private Semaphore batchPermits;
+    private ExecutorService workers;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void start() {
+        chunkSize = Math.max(1, chunkSize);
+        parallelism = Math.max(1, parallelism);
+        maxAttempts = Math.max(1, maxAttempts);
+        reembedChunksPerRun = Math.max(0, reembedChunksPerRun);
+        batchPermits = new Semaphore(parallelism);
+        workers = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "embedding-pipeline-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        dispatcher = new Thread(this::dispatch, "embedding-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.interrupt();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queue a card for embedding. Never blocks; cards that already have an embedding when their
+     * batch runs are skipped.
+     *
+     * @return Whether the card is queued; false if the queue is full
+     */
+    public boolean enqueue(String userId, String emailId) {
+        CardRef card = new CardRef(userId, emailId);
+        if (!queued.add(card)) {
+            return true;
+        }
+        if (!queue.offer(card)) {
+            queued.remove(card);
+            log.debug("Embedding queue full, deferring card {} of user {} to the next sweep", emailId, userId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Queue the cards of a user that have no embedding, up to the free queue capacity.
+     *
+     * @return Number of cards queued
+     */
+    public int enqueueMissing(String userId) {
+        return enqueuePending(userId);
+    }
+
+    /**
+     * Queue cards of all users that have no embedding, up to the free queue capacity.
+     *
+     * @return Number of cards queued
+     */
+    public int enqueueMissing() {
+        int enqueued = enqueuePending(null);
+        if (enqueued > 0) {
+            log.info("Queued {} cards without embeddings", enqueued);
+        }
+        return enqueued;
+    }
+
+    /**
+     * Number of cards waiting in the queue.
+     */
+    public int queuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Embed all cards of a user that have no embedding and wait for the result.
+     * Cards are read one page at a time and split into chunks that run in parallel on the pipeline
+     * workers; a chunk that still fails after its retries is left to the background sweep. Stops
+     * starting new work once {@code app.search.semantic.embedding.generate-timeout-seconds} is up.
+     *
+     * @return Number of cards embedded
+     */
+    public int generateMissing(String userId) {
+        long startTime = System.currentTimeMillis();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(generateTimeoutSeconds);
+        int pageSize = chunkSize * parallelism;
+
+        int generated = 0;
+        int failedChunks = 0;
+        boolean timedOut = false;
+        String afterId = null;
+        while (!timedOut) {
+            List<EmailKanbanStatus> pending = emailStatusRepository.findPendingEmbedding(
+                    userId, afterId, MAX_CARD_ATTEMPTS, pageSize);
+            if (pending.isEmpty()) {
+                break;
+            }
+            // Page by id so cards whose chunk failed are not read again
+            afterId = pending.get(pending.size() - 1).getId();
+
+            List<EmailKanbanStatus> cards = emailStatusRepository.findByUserIdAndEmailIdInProjected(userId,
+                    pending.stream().map(EmailKanbanStatus::getEmailId).toList(), INPUT_FIELDS);
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (int from = 0; from < cards.size(); from += chunkSize) {
+                List<EmailKanbanStatus> chunk = cards.subList(from, Math.min(from + chunkSize, cards.size()));
+                chunks.add(workers.submit(() -> embedChunk(chunk)));
+            }
+
+            for (Future<Integer> chunk : chunks) {
+                if (timedOut) {
+                    chunk.cancel(true);
+                    continue;
+                }
+                try {
+                    generated += chunk.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    failedChunks++;
+                    log.warn("Embedding chunk failed for user {}, leaving it to the next sweep: {}",
+                            userId, e.getCause().getMessage());
+                } catch (TimeoutException e) {
+                    timedOut = true;
+                    chunk.cancel(true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    timedOut = true;
+                    chunk.cancel(true);
+                }
+            }
+
+            if (pending.size() < pageSize) {
+                break;
+            }
+        }
+
+        log.info("Generated {} embeddings for user {} in {}ms | failed chunks: {}{}", generated, userId,
+                System.currentTimeMillis() - startTime, failedChunks, timedOut ? " | deadline reached" : "");
+        return generated;
+    }
+
+    /**
+     * Re-embed up to {@code app.search.semantic.embedding.reembed-chunks-per-run} chunks of cards
+     * whose embedding is not from the active model, one chunk at a time. Skipped while queued new
+     * cards are waiting; stops early if the AI service fails. Not thread-safe; call from one thread.
+     *
+     * @return Number of cards re-embedded
+     */
+    public int reembedStale() {
+        if (!queue.isEmpty()) {
+            return 0;
+        }
+
+        List<String> currentModels = embeddingProvider.getCurrentModels();
+        int reembedded = 0;
+        for (int run = 0; run < reembedChunksPerRun; run++) {
+            List<EmailKanbanStatus> stale = emailStatusRepository.findStaleEmbedding(
+                    currentModels, reembedCursor, chunkSize, INPUT_FIELDS);
+            if (stale.isEmpty()) {
+                // Start over next run, picking up chunks that failed on the previous pass
+                reembedCursor = null;
+                break;
+            }
+            reembedCursor = stale.get(stale.size() - 1).getId();
+            try {
+                reembedded += embedChunk(stale);
+            } catch (IllegalStateException e) {
+                log.warn("Re-embedding chunk of {} cards failed, retrying next pass: {}", stale.size(), e.getMessage());
+                break;
+            }
+        }
+
+        if (reembedded > 0) {
+            ReembedProgress progress = reembedProgress();
+            log.info("Re-embedded {} cards with {} | {}% complete, {} stale remaining",
+                    reembedded, progress.activeModel(), String.format("%.1f", progress.percentComplete()),
+                    progress.stale());
+        }
+        return reembedded;
+    }
+
+    /**
+     * Progress of re-embedding cards with the active model.
+     */
+    public ReembedProgress reembedProgress() {
+        List<String> currentModels = embeddingProvider.getCurrentModels();
+        long current = 0;
+        long stale = 0;
+        for (Map.Entry<String, Long> entry : emailStatusRepository.countEmbeddingsByModel().entrySet()) {
+            if (currentModels.contains(entry.getKey())) {
+                current += entry.getValue();
+            } else {
+                stale += entry.getValue();
+            }
+        }
+        long pending = emailStatusRepository.countByEmbeddingGeneratedAtIsNull();
+        double percentComplete = current + stale > 0 ? 100.0 * current / (current + stale) : 100.0;
+        return new ReembedProgress(embeddingProvider.getModel(), current, stale, pending, percentComplete);
+    }
+
+    /**
+     * Queue pending cards, continuing after the last card queued by the previous call for the same
+     * scope and wrapping around at the end, so cards still pending from earlier sweeps cannot keep
+     * newer ones out of reach.
+     */
+    private int enqueuePending(String userId) {
+        int capacity = Math.min(queue.remainingCapacity(), SWEEP_LIMIT);
+        if (capacity == 0) {
+            return 0;
+        }
+        String scope = userId != null ? userId : ALL_USERS;
+        String afterId = sweepCursors.get(scope);
+        List<EmailKanbanStatus> pending = emailStatusRepository.findPendingEmbedding(
+                userId, afterId, MAX_CARD_ATTEMPTS, capacity);
+        if (pending.size() < capacity && afterId != null) {
+            // Reached the end; wrap around to the cards before the cursor
+            pending = new ArrayList<>(pending);
+            for (EmailKanbanStatus card : emailStatusRepository.findPendingEmbedding(
+                    userId, null, MAX_CARD_ATTEMPTS, capacity - pending.size())) {
+                if (card.getId().compareTo(afterId) > 0) {
+                    break;
+                }
+                pending.add(card);
+            }
+        }
+
+        int enqueued = 0;
+        for (EmailKanbanStatus card : pending) {
+            if (!enqueue(card.getUserId(), card.getEmailId())) {
+                break;
+            }
+            enqueued++;
+            sweepCursors.put(scope, card.getId());
+        }
+        if (pending.size() < capacity) {
+            // Everything pending was reached; start from the beginning next time
+            sweepCursors.remove(scope);
+        }
+        return enqueued;
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<CardRef> batch = new ArrayList<>(chunkSize);
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_DELAY_MS);
+                while (batch.size() < chunkSize) {
+                    CardRef next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                // Waits while all workers are busy, which lets the queue fill up and push back on producers
+                batchPermits.acquire();
+                workers.execute(() -> {
+                    try {
+                        process(batch);
+                    } catch (RuntimeException e) {
+                        log.warn("Embedding batch of {} cards failed, leaving them to the next sweep: {}",
+                                batch.size(), e.getMessage());
+                    } finally {
+                        batchPermits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void process(List<CardRef> batch) {
+        // Writes arriving from now on queue the card again
+        batch.forEach(queued::remove);
+
+        Map<String, List<String>> emailIdsByUser = new LinkedHashMap<>();
+        for (CardRef card : batch) {
+            emailIdsByUser.computeIfAbsent(card.userId(), user -> new ArrayList<>()).add(card.emailId());
+        }
+
+        List<EmailKanbanStatus> cards = new ArrayList<>(batch.size());
+        emailIdsByUser.forEach((userId, emailIds) -> {
+            for (EmailKanbanStatus card : emailStatusRepository.findByUserIdAndEmailIdInProjected(
+                    userId, emailIds, INPUT_FIELDS)) {
+                if (card.getEmbeddingGeneratedAt() == null) {
+                    cards.add(card);
+                }
+            }
+        });
+        if (cards.isEmpty()) {
+            return;
+        }
+
+        int saved = embedChunk(cards);
+        log.debug("Embedded {} of {} queued cards", saved, cards.size());
+    }
+
+    /**
+     * Embed one chunk of cards and save the results in one bulk write. Retries the AI service call
+     * up to {@code app.search.semantic.embedding.max-attempts} times with linear backoff.
+     *
+     * @return Number of cards embedded
+     * @throws IllegalStateException if every attempt failed
+     */
+    private int embedChunk(List<EmailKanbanStatus> cards) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Map<String, float[]> embeddings = embeddingProvider.embedBatch(cards);
+                int saved = embeddingService.saveEmbeddings(cards, embeddings, embeddingProvider.getModel());
+                recordSkipped(cards, embeddings);
+                return saved;
+            } catch (IllegalStateException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Embedding chunk of {} cards failed on attempt {}, retrying: {}",
+                        cards.size(), attempt, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedule another attempt for pending cards the provider returned no vector for, e.g. text
+     * without letters, backing off exponentially until {@link #MAX_CARD_ATTEMPTS} is reached.
+     */
+    private void recordSkipped(List<EmailKanbanStatus> cards, Map<String, float[]> embeddings) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, LocalDateTime> retryAtById = new HashMap<>();
+        for (EmailKanbanStatus card : cards) {
+            if (card.getEmbeddingGeneratedAt() == null && !embeddings.containsKey(card.getId())) {
+                int attempt = Math.min(card.getEmbeddingAttempts(), MAX_CARD_ATTEMPTS);
+                retryAtById.put(card.getId(), now.plusMinutes(CARD_RETRY_BASE_MINUTES << attempt));
+            }
+        }
+        if (!retryAtById.isEmpty()) {
+            emailStatusRepository.recordEmbeddingFailures(retryAtById);
+            log.debug("No embedding returned for {} cards, scheduled for retry", retryAtById.size());
+        }
+    }
+}
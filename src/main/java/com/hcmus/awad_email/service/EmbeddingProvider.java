@@ -0,0 +1,61 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.EmbeddingVector;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Source of the embedding vectors used by semantic search, for both cards and queries.
+ * The implementation is chosen with {@code app.search.semantic.provider}: {@code remote}
+ * ({@link AIEmbeddingService}, the default) or {@code local} ({@link LocalEmbeddingProvider}).
+ *
+ * <p>Vectors of different providers are not comparable. Switching provider is a model switch:
+ * stored vectors of the previous provider are no longer searched and are re-embedded in the
+ * background.
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * Name of the model the provider embeds with, recorded with each stored vector.
+     */
+    String getModel();
+
+    /**
+     * Whether the provider can currently embed text.
+     */
+    boolean isAvailable();
+
+    /**
+     * Embed a single text.
+     *
+     * @return Embedding vector or null if generation fails
+     */
+    float[] embed(String subject, String body);
+
+    /**
+     * Embed several cards (subject + preview) at once.
+     *
+     * @return Map of card id -> embedding; cards that could not be embedded are absent
+     * @throws IllegalStateException if the batch fails as a whole
+     */
+    Map<String, float[]> embedBatch(List<EmailKanbanStatus> cards);
+
+    /**
+     * Whether a stored vector was produced by this provider's model and so is comparable with
+     * query embeddings.
+     */
+    default boolean isCurrent(EmbeddingVector vector) {
+        return Objects.equals(vector.getModel(), getModel());
+    }
+
+    /**
+     * Values of the stored embedding model field that mark an embedding as current; may contain
+     * null if embeddings of unknown model are current.
+     */
+    default List<String> getCurrentModels() {
+        return List.of(getModel());
+    }
+}
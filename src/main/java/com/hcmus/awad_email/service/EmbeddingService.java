@@ -1,16 +1,25 @@
 package com.hcmus.awad_email.service;
 
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.EmbeddingVector;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.util.VectorKernels;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service for embedding-related operations.
  *
- * NOTE: Embedding generation is now handled by the AI service (Python FastAPI).
- * This service is kept for backward compatibility and utility methods.
+ * NOTE: Embedding generation is handled by the configured {@link EmbeddingProvider}, by default the
+ * AI service (Python FastAPI). This service stores the generated vectors and provides utility methods.
  *
  * @see SemanticSearchService for the main semantic search implementation
  */
@@ -18,48 +27,102 @@ import java.util.List;
 @Slf4j
 public class EmbeddingService {
 
-    @Value("${app.ai-service.base-url:http://localhost:8000}")
-    private String aiServiceBaseUrl;
+    private static final int MIGRATION_BATCH_SIZE = 500;
+    private static final int MAX_MIGRATION_BATCHES = 20;
 
-    /**
-     * Check if the embedding service is available.
-     * Now checks if AI service URL is configured.
-     */
-    public boolean isAvailable() {
-        return aiServiceBaseUrl != null && !aiServiceBaseUrl.isEmpty();
-    }
+    @Autowired
+    private EmailKanbanStatusRepository emailStatusRepository;
+
+    @Autowired
+    private VectorIndexService vectorIndexService;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
 
     /**
      * Calculate cosine similarity between two embedding vectors.
-     * This utility method is kept for local similarity calculations if needed.
+     * For repeated comparisons, normalize the vectors once and use {@link VectorKernels#dot}.
      *
      * @param embedding1 First embedding vector
      * @param embedding2 Second embedding vector
-     * @return Cosine similarity score (0 to 1, higher is more similar)
+     * @return Cosine similarity score (-1 to 1, higher is more similar)
      */
-    public double cosineSimilarity(List<Double> embedding1, List<Double> embedding2) {
+    public double cosineSimilarity(EmbeddingVector embedding1, EmbeddingVector embedding2) {
         if (embedding1 == null || embedding2 == null ||
-            embedding1.size() != embedding2.size() || embedding1.isEmpty()) {
+            embedding1.getDimensions() != embedding2.getDimensions() || embedding1.isEmpty()) {
+            return 0.0;
+        }
+
+        float[] values1 = embedding1.getValues();
+        float[] values2 = embedding2.getValues();
+        double norm1 = VectorKernels.dot(values1, values1);
+        double norm2 = VectorKernels.dot(values2, values2);
+        if (norm1 == 0 || norm2 == 0) {
             return 0.0;
         }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+        return VectorKernels.dot(values1, values2) / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    /**
+     * Store generated embeddings of several cards in one bulk write. Bulk writes bypass the
+     * mapping events, so the vector index and cached rankings are updated here instead.
+     *
+     * @param cards Cards the embeddings belong to, with at least id, user and email id
+     * @param embeddingsById Map of card id -> embedding; cards without one are left untouched
+     * @param model Model that produced the embeddings
+     * @return Number of cards updated
+     */
+    public int saveEmbeddings(List<EmailKanbanStatus> cards, Map<String, float[]> embeddingsById, String model) {
+        Map<String, EmbeddingVector> vectors = new HashMap<>();
+        embeddingsById.forEach((id, values) -> vectors.put(id, new EmbeddingVector(model, values)));
+        emailStatusRepository.updateEmbeddings(vectors, LocalDateTime.now());
 
-        for (int i = 0; i < embedding1.size(); i++) {
-            double v1 = embedding1.get(i);
-            double v2 = embedding2.get(i);
-            dotProduct += v1 * v2;
-            norm1 += v1 * v1;
-            norm2 += v2 * v2;
+        Set<String> users = new HashSet<>();
+        for (EmailKanbanStatus card : cards) {
+            EmbeddingVector vector = vectors.get(card.getId());
+            if (vector != null) {
+                card.setEmbedding(vector);
+                vectorIndexService.upsert(card);
+                users.add(card.getUserId());
+            }
         }
+        // Embeddings only feed semantic rankings; fuzzy and full-text rankings stay cached
+        users.forEach(user -> searchResultCache.bumpModeVersion(user, SemanticSearchService.CACHE_MODE));
+        return vectors.size();
+    }
 
-        if (norm1 == 0 || norm2 == 0) {
-            return 0.0;
+    /**
+     * Rewrite embeddings stored as arrays of doubles in the packed {@link EmbeddingVector} form.
+     * Works in bounded batches and only sets the embedding field; the values are unchanged apart
+     * from rounding to float32, so loaded vector indexes stay valid.
+     *
+     * @return Number of cards migrated
+     */
+    public int migrateLegacyEmbeddings() {
+        int migrated = 0;
+        for (int batch = 0; batch < MAX_MIGRATION_BATCHES; batch++) {
+            List<EmailKanbanStatus> legacy = emailStatusRepository.findWithLegacyEmbedding(MIGRATION_BATCH_SIZE);
+            if (legacy.isEmpty()) {
+                break;
+            }
+
+            // Reading already converted the arrays; writing them back stores the packed form
+            Map<String, EmbeddingVector> embeddingsById = new HashMap<>();
+            for (EmailKanbanStatus status : legacy) {
+                embeddingsById.put(status.getId(), status.getEmbedding());
+            }
+            emailStatusRepository.replaceLegacyEmbeddings(embeddingsById);
+            migrated += embeddingsById.size();
+
+            if (legacy.size() < MIGRATION_BATCH_SIZE) {
+                break;
+            }
         }
 
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        if (migrated > 0) {
+            log.info("Migrated {} embeddings to packed float32 storage", migrated);
+        }
+        return migrated;
     }
 }
-
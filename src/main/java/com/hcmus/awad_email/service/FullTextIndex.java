@@ -0,0 +1,488 @@
+package com.hcmus.awad_email.service;
+
+import com.google.api.services.gmail.model.Message;
+import com.hcmus.awad_email.exception.BadRequestException;
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.service.SearchResultCache.RankedHit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.charfilter.HTMLStripCharFilter;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Embedded Lucene full-text index over complete message bodies, one index per user on local disk.
+ *
+ * <p>Cards are indexed with their full Gmail body during sync, when added to the board and when
+ * summarized; {@link #backfill()} covers cards stored before that. Each card records
+ * {@code fullTextIndexedAt} once it is committed. Queries support phrases ({@code "quarterly report"}),
+ * prefixes ({@code invoi*}) and field prefixes ({@code subject:budget}), and are ranked with BM25.
+ * Searches never call Gmail.
+ *
+ * <p>The index lives on the instance's local disk. When a user's index is created from scratch
+ * (first use, or a new disk) all of their cards are marked pending again so the backfill rebuilds it.
+ * Writes become searchable immediately through near-real-time readers and are committed to disk
+ * periodically; indexes idle for {@link #MAX_IDLE_MS} are closed.
+ */
+@Service
+@Slf4j
+public class FullTextIndex {
+
+    static final String FIELD_EMAIL_ID = "emailId";
+    static final String FIELD_SUBJECT = "subject";
+    static final String FIELD_FROM = "from";
+    static final String FIELD_SUMMARY = "summary";
+    static final String FIELD_BODY = "body";
+
+    private static final String[] SEARCH_FIELDS = {FIELD_SUBJECT, FIELD_FROM, FIELD_SUMMARY, FIELD_BODY};
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+            FIELD_SUBJECT, 3.0f,
+            FIELD_FROM, 2.0f,
+            FIELD_SUMMARY, 1.5f,
+            FIELD_BODY, 1.0f);
+
+    private static final int MAX_BODY_CHARS = 200_000; // Longer bodies are indexed up to this length
+    private static final long MAX_IDLE_MS = 30 * 60 * 1000L;
+    private static final double RAM_BUFFER_MB = 16;
+    private static final int BACKFILL_BATCH_SIZE = 100;
+    private static final int MAX_BACKFILL_BATCHES = 10; // Per pass, so one pass stays short
+
+    @Value("${app.search.fulltext.index-dir:./data/fulltext-index}")
+    private String indexDir;
+
+    @Autowired
+    private EmailKanbanStatusRepository emailStatusRepository;
+
+    @Autowired
+    private GmailService gmailService;
+
+    @Autowired
+    private GmailMessageConverter gmailMessageConverter;
+
+    private final Analyzer analyzer = new EmailAnalyzer();
+    private final ConcurrentMap<String, UserIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * One page of ranked hits.
+     *
+     * @param totalHits Number of matching cards; may be a lower bound for very broad queries
+     */
+    public record SearchHits(List<RankedHit> hits, long totalHits) {}
+
+    /**
+     * Search a user's index, best matches first.
+     *
+     * @param topN Number of leading hits to return
+     */
+    public SearchHits search(String userId, String queryText, int topN) {
+        if (topN <= 0) {
+            return new SearchHits(List.of(), 0);
+        }
+        Query query = parse(queryText);
+        try {
+            return withIndex(userId, index -> {
+                index.searcherManager.maybeRefresh();
+                IndexSearcher searcher = index.searcherManager.acquire();
+                try {
+                    TopDocs topDocs = searcher.search(query, topN);
+                    StoredFields storedFields = searcher.storedFields();
+                    List<RankedHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+                    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                        String emailId = storedFields.document(scoreDoc.doc, Set.of(FIELD_EMAIL_ID)).get(FIELD_EMAIL_ID);
+                        hits.add(new RankedHit(emailId, scoreDoc.score, null));
+                    }
+                    return new SearchHits(hits, topDocs.totalHits.value);
+                } finally {
+                    index.searcherManager.release(searcher);
+                }
+            });
+        } catch (IOException e) {
+            log.error("Full-text search failed for user {}: {}", userId, e.getMessage());
+            return new SearchHits(List.of(), 0);
+        }
+    }
+
+    /**
+     * Add or replace a card in its user's index.
+     * The change is searchable at once and reaches disk with the next {@link #commit}.
+     *
+     * @param body Full message text (plain or HTML); falls back to the card's preview when null
+     * @return Whether the card was indexed
+     */
+    public boolean index(EmailKanbanStatus card, String body) {
+        if (card.getUserId() == null || card.getEmailId() == null) {
+            return false;
+        }
+        try {
+            return withIndex(card.getUserId(), index -> {
+                index.writer.updateDocument(new Term(FIELD_EMAIL_ID, card.getEmailId()), toDocument(card, body));
+                index.dirty = true;
+                return true;
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to index email {} for user {}: {}", card.getEmailId(), card.getUserId(), e.getMessage());
+            return false;
+        }
+    }
+
+    public void remove(String userId, String emailId) {
+        try {
+            withIndex(userId, index -> {
+                index.writer.deleteDocuments(new Term(FIELD_EMAIL_ID, emailId));
+                index.dirty = true;
+                return null;
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to remove email {} from full-text index of user {}: {}", emailId, userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Commit a user's pending index changes to disk.
+     *
+     * @return Whether the index is now durable
+     */
+    public boolean commit(String userId) {
+        try {
+            return withIndex(userId, index -> {
+                commit(index);
+                return true;
+            });
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to commit full-text index of user {}: {}", userId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Commit every open index with pending changes.
+     */
+    public void commitAll() {
+        for (String userId : indexes.keySet()) {
+            UserIndex index = indexes.get(userId);
+            if (index != null && index.dirty) {
+                commit(userId);
+            }
+        }
+    }
+
+    /**
+     * Run background maintenance: merge segments where the merge policy asks for it
+     * (reclaiming space held by replaced and deleted cards) and close idle indexes.
+     */
+    public void maintain() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, UserIndex> entry : indexes.entrySet()) {
+            UserIndex index = entry.getValue();
+            if (now - index.lastUsed > MAX_IDLE_MS) {
+                close(entry.getKey(), index);
+                continue;
+            }
+            try {
+                withIndex(entry.getKey(), open -> {
+                    open.writer.maybeMerge();
+                    return null;
+                });
+            } catch (IOException | RuntimeException e) {
+                log.warn("Full-text index maintenance failed for user {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Index cards that are not in the full-text index yet, fetching their bodies from Gmail in batches.
+     * Cards of users without a Gmail connection, or whose message is gone, are indexed from their preview.
+     * Users whose mailbox cannot be read are retried on the next pass.
+     *
+     * @return Number of cards indexed
+     */
+    public int backfill() {
+        Set<String> failedUsers = new HashSet<>();
+        int indexed = 0;
+
+        for (int batch = 0; batch < MAX_BACKFILL_BATCHES; batch++) {
+            List<EmailKanbanStatus> pending = emailStatusRepository.findPendingFullTextIndex(failedUsers, BACKFILL_BATCH_SIZE);
+            if (pending.isEmpty()) {
+                break;
+            }
+
+            Map<String, List<EmailKanbanStatus>> byUser = pending.stream()
+                    .filter(card -> card.getUserId() != null)
+                    .collect(Collectors.groupingBy(EmailKanbanStatus::getUserId));
+
+            int batchIndexed = 0;
+            for (Map.Entry<String, List<EmailKanbanStatus>> entry : byUser.entrySet()) {
+                String userId = entry.getKey();
+                List<EmailKanbanStatus> cards = entry.getValue();
+
+                Map<String, Message> messages;
+                try {
+                    messages = gmailService.isGmailConnected(userId)
+                            ? gmailService.getMessages(userId, cards.stream()
+                                    .map(EmailKanbanStatus::getEmailId)
+                                    .collect(Collectors.toList()))
+                            : Collections.emptyMap();
+                } catch (Exception e) {
+                    log.warn("Full-text backfill could not read mailbox of user {}: {}", userId, e.getMessage());
+                    failedUsers.add(userId);
+                    continue;
+                }
+
+                List<String> done = new ArrayList<>();
+                for (EmailKanbanStatus card : cards) {
+                    Message message = messages.get(card.getEmailId());
+                    String body = message != null ? gmailMessageConverter.getBody(message) : null;
+                    if (index(card, body)) {
+                        done.add(card.getId());
+                    }
+                }
+
+                // Only record cards as indexed once they are on disk
+                if (!done.isEmpty() && commit(userId)) {
+                    emailStatusRepository.markFullTextIndexed(done, LocalDateTime.now());
+                    batchIndexed += done.size();
+                } else {
+                    failedUsers.add(userId);
+                }
+            }
+
+            indexed += batchIndexed;
+            if (pending.size() < BACKFILL_BATCH_SIZE) {
+                break;
+            }
+        }
+
+        if (indexed > 0) {
+            log.info("Backfilled {} cards into the full-text index", indexed);
+        }
+        return indexed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexes.forEach(this::close);
+    }
+
+    private Query parse(String queryText) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(SEARCH_FIELDS, analyzer, FIELD_BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        parser.setAllowLeadingWildcard(false);
+        try {
+            return parser.parse(queryText);
+        } catch (ParseException e) {
+            // Unbalanced quotes or stray operators: search the text literally
+            try {
+                return parser.parse(QueryParser.escape(queryText));
+            } catch (ParseException escaped) {
+                throw new BadRequestException("Unsupported full-text query");
+            }
+        }
+    }
+
+    private Document toDocument(EmailKanbanStatus card, String body) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_EMAIL_ID, card.getEmailId(), Field.Store.YES));
+        addText(document, FIELD_SUBJECT, card.getSubject());
+        addText(document, FIELD_FROM, joinNonNull(card.getFromName(), card.getFromEmail()));
+        addText(document, FIELD_SUMMARY, card.getSummary());
+
+        String text = body != null && !body.isEmpty() ? body : card.getPreview();
+        if (text != null && text.length() > MAX_BODY_CHARS) {
+            text = text.substring(0, MAX_BODY_CHARS);
+        }
+        addText(document, FIELD_BODY, text);
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    private static String joinNonNull(String first, String second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null ? first : first + " " + second;
+    }
+
+    // ==================== Index lifecycle ====================
+
+    @FunctionalInterface
+    private interface IndexOperation<T> {
+        T apply(UserIndex index) throws IOException;
+    }
+
+    /**
+     * Run an operation against a user's open index, opening it if needed.
+     * Holds the index's read lock so it cannot be closed underneath the operation.
+     */
+    private <T> T withIndex(String userId, IndexOperation<T> operation) throws IOException {
+        while (true) {
+            UserIndex index;
+            try {
+                index = indexes.computeIfAbsent(userId, this::open);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            index.lock.readLock().lock();
+            try {
+                if (index.closed) {
+                    continue; // Closed for idleness after we looked it up; open it again
+                }
+                index.lastUsed = System.currentTimeMillis();
+                return operation.apply(index);
+            } finally {
+                index.lock.readLock().unlock();
+            }
+        }
+    }
+
+    private UserIndex open(String userId) {
+        try {
+            Path path = Paths.get(indexDir).resolve(directoryName(userId));
+            Files.createDirectories(path);
+            Directory directory = new MMapDirectory(path);
+            boolean created = !DirectoryReader.indexExists(directory);
+
+            IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                    .setRAMBufferSizeMB(RAM_BUFFER_MB)
+                    .setCommitOnClose(true);
+            IndexWriter writer = new IndexWriter(directory, config);
+            SearcherManager searcherManager = new SearcherManager(writer, null);
+
+            if (created) {
+                writer.commit();
+                // Anything recorded as indexed was indexed elsewhere (or on a lost disk)
+                emailStatusRepository.clearFullTextIndexed(userId);
+                log.info("Created full-text index for user {}, queued their cards for backfill", userId);
+            }
+            return new UserIndex(directory, writer, searcherManager);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void commit(UserIndex index) throws IOException {
+        index.dirty = false;
+        try {
+            index.writer.commit();
+        } catch (IOException e) {
+            index.dirty = true;
+            throw e;
+        }
+    }
+
+    private void close(String userId, UserIndex index) {
+        index.lock.writeLock().lock();
+        try {
+            if (index.closed) {
+                return;
+            }
+            index.closed = true;
+            indexes.remove(userId, index);
+            index.searcherManager.close();
+            index.writer.close();
+            index.directory.close();
+            log.debug("Closed full-text index of user {}", userId);
+        } catch (IOException e) {
+            log.error("Failed to close full-text index of user {}: {}", userId, e.getMessage());
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Directory name for a user; IDs that are not filename-safe are encoded.
+     */
+    private static String directoryName(String userId) {
+        if (userId.matches("[A-Za-z0-9_-]{1,64}")) {
+            return userId;
+        }
+        return "u-" + Base64.getUrlEncoder().withoutPadding().encodeToString(userId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class UserIndex {
+        private final Directory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile boolean dirty;
+        private boolean closed; // Guarded by the write lock
+
+        private UserIndex(Directory directory, IndexWriter writer, SearcherManager searcherManager) {
+            this.directory = directory;
+            this.writer = writer;
+            this.searcherManager = searcherManager;
+        }
+    }
+
+    /**
+     * Standard tokenization, lower-cased and folded to ASCII so "Nguyễn" matches "nguyen";
+     * HTML markup is stripped from bodies before tokenizing.
+     */
+    private static final class EmailAnalyzer extends Analyzer {
+
+        @Override
+        protected Reader initReader(String fieldName, Reader reader) {
+            return FIELD_BODY.equals(fieldName) ? new HTMLStripCharFilter(reader) : reader;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer tokenizer = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            // Applied to prefix and wildcard terms, which skip tokenization
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
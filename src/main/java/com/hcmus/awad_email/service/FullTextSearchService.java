@@ -0,0 +1,116 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.dto.search.FullTextSearchRequest;
+import com.hcmus.awad_email.dto.search.FullTextSearchResponse;
+import com.hcmus.awad_email.dto.search.FullTextSearchResultItem;
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.KanbanColumn;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.repository.KanbanColumnRepository;
+import com.hcmus.awad_email.service.FullTextIndex.SearchHits;
+import com.hcmus.awad_email.service.SearchResultCache.RankedHit;
+import com.hcmus.awad_email.util.SearchCursor;
+import com.hcmus.awad_email.util.SparseFields;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Service for full-text search over complete email bodies, backed by {@link FullTextIndex}.
+ * Ranking runs entirely against the local index; only the cards of the returned page are
+ * loaded from MongoDB.
+ */
+@Service
+@Slf4j
+public class FullTextSearchService {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_DEPTH = 1000; // Deepest result position reachable by paging
+    private static final String CURSOR_MODE = "fulltext";
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private EmailKanbanStatusRepository emailStatusRepository;
+
+    @Autowired
+    private KanbanColumnRepository columnRepository;
+
+    /**
+     * Perform full-text search for a user.
+     *
+     * @param fields Result fields to load and return
+     */
+    public FullTextSearchResponse search(String userId, FullTextSearchRequest request, SparseFields fields) {
+        long startTime = System.currentTimeMillis();
+
+        String query = request.getQuery().trim();
+        int limit = request.getLimit() != null ? Math.max(0, Math.min(request.getLimit(), MAX_LIMIT)) : DEFAULT_LIMIT;
+        int offset = SearchCursor.decodeOffset(request.getCursor(), CURSOR_MODE, query);
+        int end = Math.min(offset + limit, MAX_DEPTH);
+
+        // Lucene pages by collecting every hit up to the end of the requested page
+        SearchHits searchHits = fullTextIndex.search(userId, query, end);
+        List<RankedHit> page = searchHits.hits().subList(Math.min(offset, searchHits.hits().size()),
+                searchHits.hits().size());
+
+        // The index can briefly hold cards already removed from the board; those are skipped
+        Map<String, EmailKanbanStatus> emailsById = emailStatusRepository.findByUserIdAndEmailIdInProjected(
+                        userId,
+                        page.stream().map(RankedHit::emailId).collect(Collectors.toList()),
+                        fields.storedFields())
+                .stream()
+                .collect(Collectors.toMap(EmailKanbanStatus::getEmailId, email -> email, (a, b) -> a));
+
+        Map<String, String> columnNames = columnRepository.findByUserIdOrderByOrderAsc(userId)
+                .stream()
+                .collect(Collectors.toMap(KanbanColumn::getId, KanbanColumn::getName));
+
+        List<FullTextSearchResultItem> results = page.stream()
+                .filter(hit -> emailsById.containsKey(hit.emailId()))
+                .map(hit -> toResultItem(emailsById.get(hit.emailId()), hit.score(), columnNames))
+                .collect(Collectors.toList());
+
+        String nextCursor = searchHits.totalHits() > end && end < MAX_DEPTH
+                ? SearchCursor.encode(CURSOR_MODE, query, end)
+                : null;
+
+        long processingTime = System.currentTimeMillis() - startTime;
+        log.info("Full-text search for user {} with query '{}' found {} of {} hits (offset {}) in {}ms",
+                userId, query, results.size(), searchHits.totalHits(), offset, processingTime);
+
+        return FullTextSearchResponse.builder()
+                .query(query)
+                .totalResults(results.size())
+                .totalHits(searchHits.totalHits())
+                .results(results)
+                .nextCursor(nextCursor)
+                .processingTimeMs(processingTime)
+                .build();
+    }
+
+    private FullTextSearchResultItem toResultItem(EmailKanbanStatus email, double score,
+                                                  Map<String, String> columnNames) {
+        return FullTextSearchResultItem.builder()
+                .emailId(email.getEmailId())
+                .subject(email.getSubject())
+                .fromEmail(email.getFromEmail())
+                .fromName(email.getFromName())
+                .preview(email.getPreview())
+                .summary(email.getSummary())
+                .columnId(email.getColumnId())
+                .columnName(columnNames.getOrDefault(email.getColumnId(), "Unknown"))
+                .receivedAt(email.getReceivedAt())
+                .isRead(email.isRead())
+                .isStarred(email.isStarred())
+                .hasAttachments(email.isHasAttachments())
+                .score(score)
+                .build();
+    }
+}
@@ -0,0 +1,597 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.SearchTokens;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.util.BoundedLevenshtein;
+import com.hcmus.awad_email.util.SingleFlight;
+import com.hcmus.awad_email.util.TextNormalizer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Per-user in-memory search index over the fields scored by {@link FuzzySearchService}.
+ *
+ * <p>Each card is indexed under the trigrams of its normalized header fields (subject,
+ * sender name, sender email), and every distinct term goes into a term dictionary with its
+ * own postings. Body fields (preview and summary) get their own postings and dictionary,
+ * built the first time a user searches with {@code includeBody}. Substring and n-gram
+ * matches are found by trigram counting and typo matches by expanding the query words to
+ * dictionary terms within the edit bound, so the candidate set never drops a card the exact
+ * scorer could accept and only the candidates need scoring.
+ *
+ * <p>Indexes are built lazily from MongoDB on first search, kept current by
+ * {@link EmailKanbanStatusEventListener}, rebuilt after {@link #MAX_INDEX_AGE_MS} to pick up
+ * writes made by other instances, and evicted least-recently-used beyond
+ * {@link #MAX_CACHED_USERS}. Concurrent searches share one build per user, and card changes
+ * arriving while it loads are replayed onto the new index before it is published.
+ */
+@Service
+@Slf4j
+public class FuzzySearchIndex {
+
+    @Autowired
+    private EmailKanbanStatusRepository emailStatusRepository;
+
+    @Autowired
+    private SearchTokenService searchTokenService;
+
+    private static final int MAX_CACHED_USERS = 50;
+    private static final long MAX_INDEX_AGE_MS = 10 * 60 * 1000L;
+    private static final int GRAM = 3;
+    private static final int MIN_COMPACT_THRESHOLD = 1000;
+    private static final double MIN_NGRAM_OVERLAP = 0.6; // Mirrors FuzzySearchService
+    private static final int MAX_LEVENSHTEIN_DISTANCE = 2; // Mirrors FuzzySearchService
+
+    // Raw fields are only read for cards whose stored tokens are missing or outdated
+    static final Set<String> INDEXED_FIELDS = Set.of(
+            "emailId", "receivedAt", "searchTokens", "subject", "fromName", "fromEmail", "preview", "summary");
+
+    private final Map<String, UserIndex> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UserIndex> eldest) {
+            return size() > MAX_CACHED_USERS;
+        }
+    };
+
+    // Changes seen while a user's index is being built, in arrival order; guarded by indexes
+    private final Map<String, List<Consumer<UserIndex>>> changesDuringBuild = new HashMap<>();
+
+    private final SingleFlight<String, UserIndex> builds = new SingleFlight<>();
+
+    // Builds started by deadline-bounded searches; they finish for later searches even if the first gives up
+    private final ExecutorService backgroundBuilds = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "fuzzy-index-build-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * Searchable fields of a card, as normalized tokens joined by single spaces.
+     *
+     * @param receivedAtMillis Receive time in epoch milliseconds (0 if unknown), for recency-first scans
+     */
+    public record IndexedCard(String emailId, long receivedAtMillis, String subject, String fromName,
+                              String fromEmail, String preview, String summary) {
+
+        static IndexedCard of(EmailKanbanStatus status, SearchTokens tokens) {
+            long receivedAtMillis = status.getReceivedAt() != null
+                    ? status.getReceivedAt().toInstant(ZoneOffset.UTC).toEpochMilli()
+                    : 0L;
+            return new IndexedCard(status.getEmailId(), receivedAtMillis, SearchTokenService.join(tokens.getSubject()),
+                    SearchTokenService.join(tokens.getFromName()), SearchTokenService.join(tokens.getFromEmail()),
+                    SearchTokenService.join(tokens.getPreview()), SearchTokenService.join(tokens.getSummary()));
+        }
+    }
+
+    /**
+     * Find the cards that could score above the fuzzy search threshold for a query.
+     *
+     * @param query Query in {@link TextNormalizer#toSearchText} form
+     * @param includeBody Whether preview and summary are scored as well
+     */
+    public List<IndexedCard> findCandidates(String userId, String query, boolean includeBody) {
+        UserIndex index = getOrBuild(userId);
+        if (includeBody) {
+            index.ensureBodyPostings();
+        }
+        return index.candidates(query, includeBody);
+    }
+
+    /**
+     * Wait until the user's index is in memory and fresh, building it in the background if needed.
+     * A build still running at the deadline is not cancelled, so a later search finds it ready.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} after which to stop waiting
+     * @return Whether the index is ready, so {@link #findCandidates} will not block on a build
+     */
+    public boolean awaitLoaded(String userId, long deadlineNanos) {
+        if (isLoaded(userId)) {
+            return true;
+        }
+        CompletableFuture<UserIndex> build = builds.submit(userId, () -> build(userId), backgroundBuilds);
+        try {
+            build.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return isLoaded(userId);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Whether the user's index is in memory and fresh, so searching it needs no database access.
+     */
+    public boolean isLoaded(String userId) {
+        UserIndex index = getLoaded(userId);
+        return index != null && System.currentTimeMillis() - index.builtAt < MAX_INDEX_AGE_MS;
+    }
+
+    /**
+     * Reflect a saved card in its user's index, if that index is loaded.
+     */
+    public void upsert(EmailKanbanStatus status) {
+        if (status.getUserId() == null || status.getEmailId() == null) {
+            return;
+        }
+        apply(status.getUserId(), index -> index.upsert(IndexedCard.of(status, searchTokenService.tokensOf(status))));
+    }
+
+    /**
+     * Remove a card from its user's index, if that index is loaded.
+     */
+    public void remove(String userId, String emailId) {
+        apply(userId, index -> index.remove(emailId));
+    }
+
+    /**
+     * Drop a user's index so the next search rebuilds it. A build in progress is not published.
+     */
+    public void invalidate(String userId) {
+        synchronized (indexes) {
+            indexes.remove(userId);
+            changesDuringBuild.remove(userId);
+        }
+    }
+
+    /**
+     * Drop every loaded index.
+     */
+    public void invalidateAll() {
+        synchronized (indexes) {
+            indexes.clear();
+            changesDuringBuild.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backgroundBuilds.shutdownNow();
+    }
+
+    /**
+     * Apply a change to the user's loaded index, and queue it for the index being built if any.
+     */
+    private void apply(String userId, Consumer<UserIndex> change) {
+        UserIndex index;
+        synchronized (indexes) {
+            List<Consumer<UserIndex>> pending = changesDuringBuild.get(userId);
+            if (pending != null) {
+                pending.add(change);
+            }
+            index = indexes.get(userId);
+        }
+        if (index != null) {
+            change.accept(index);
+        }
+    }
+
+    private UserIndex getLoaded(String userId) {
+        synchronized (indexes) {
+            return indexes.get(userId);
+        }
+    }
+
+    private UserIndex getOrBuild(String userId) {
+        UserIndex index = getLoaded(userId);
+        if (index != null && System.currentTimeMillis() - index.builtAt < MAX_INDEX_AGE_MS) {
+            return index;
+        }
+        return builds.execute(userId, () -> build(userId));
+    }
+
+    private UserIndex build(String userId) {
+        long start = System.currentTimeMillis();
+        synchronized (indexes) {
+            changesDuringBuild.put(userId, new ArrayList<>());
+        }
+        try {
+            UserIndex built = new UserIndex();
+            for (EmailKanbanStatus status : emailStatusRepository.findByUserIdProjected(userId, INDEXED_FIELDS)) {
+                built.upsert(IndexedCard.of(status, searchTokenService.tokensOf(status)));
+            }
+
+            synchronized (indexes) {
+                // Replay changes the read may have missed; upserts and removals are idempotent
+                List<Consumer<UserIndex>> changes = changesDuringBuild.remove(userId);
+                if (changes != null) {
+                    changes.forEach(change -> change.accept(built));
+                    indexes.put(userId, built);
+                }
+            }
+            log.debug("Built fuzzy search index for user {} with {} cards in {}ms",
+                    userId, built.size(), System.currentTimeMillis() - start);
+            return built;
+        } finally {
+            synchronized (indexes) {
+                changesDuringBuild.remove(userId);
+            }
+        }
+    }
+
+    /**
+     * Postings for one user. Cards are addressed by ordinal; updates append a new ordinal and
+     * tombstone the old one, and the postings are compacted once tombstones dominate.
+     */
+    private static final class UserIndex {
+
+        final long builtAt = System.currentTimeMillis();
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        List<IndexedCard> cards = new ArrayList<>();
+        Map<String, Integer> ordinals = new HashMap<>();
+        FieldPostings header = new FieldPostings();
+        FieldPostings body;
+        int tombstones;
+
+        int size() {
+            return ordinals.size();
+        }
+
+        void ensureBodyPostings() {
+            lock.writeLock().lock();
+            try {
+                if (body != null) {
+                    return;
+                }
+                body = new FieldPostings();
+                for (int ordinal = 0; ordinal < cards.size(); ordinal++) {
+                    IndexedCard card = cards.get(ordinal);
+                    if (card != null) {
+                        body.add(ordinal, card.preview(), card.summary());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void upsert(IndexedCard card) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(card.emailId());
+                append(card);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String emailId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(emailId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void append(IndexedCard card) {
+            int ordinal = cards.size();
+            cards.add(card);
+            ordinals.put(card.emailId(), ordinal);
+            header.add(ordinal, card.subject(), card.fromName(), card.fromEmail());
+            if (body != null) {
+                body.add(ordinal, card.preview(), card.summary());
+            }
+        }
+
+        private void removeLocked(String emailId) {
+            Integer ordinal = ordinals.remove(emailId);
+            if (ordinal == null) {
+                return;
+            }
+            cards.set(ordinal, null);
+            tombstones++;
+            if (tombstones > Math.max(MIN_COMPACT_THRESHOLD, ordinals.size())) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            List<IndexedCard> live = cards.stream().filter(Objects::nonNull).toList();
+            cards = new ArrayList<>(live.size());
+            ordinals = new HashMap<>();
+            header = new FieldPostings();
+            body = body != null ? new FieldPostings() : null;
+            tombstones = 0;
+            live.forEach(this::append);
+        }
+
+        List<IndexedCard> candidates(String query, boolean includeBody) {
+            lock.readLock().lock();
+            try {
+                // Substring and n-gram rules need whole-query trigrams; below that, scan everything
+                if (query.length() < GRAM) {
+                    return cards.stream().filter(Objects::nonNull).toList();
+                }
+
+                BitSet matches = new BitSet(cards.size());
+                CandidateCounter counter = new CandidateCounter(cards.size());
+                header.collect(matches, counter, query);
+                if (includeBody && body != null) {
+                    body.collect(matches, counter, query);
+                }
+
+                List<IndexedCard> result = new ArrayList<>(matches.cardinality());
+                for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                    IndexedCard card = cards.get(ordinal);
+                    if (card != null) {
+                        result.add(card);
+                    }
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Trigram postings and term dictionary of one field group (header or body).
+     */
+    private static final class FieldPostings {
+
+        final Map<String, IntList> grams = new HashMap<>();
+        final TermDictionary terms = new TermDictionary();
+
+        void add(int ordinal, String... fields) {
+            Set<String> gramsSeen = new HashSet<>();
+            Set<String> termsSeen = new HashSet<>();
+            for (String field : fields) {
+                if (field == null || field.isEmpty()) {
+                    continue;
+                }
+                gramsSeen.addAll(grams(field));
+                for (String term : field.split(" ")) {
+                    if (!term.isEmpty()) {
+                        termsSeen.add(term);
+                    }
+                }
+            }
+            for (String gram : gramsSeen) {
+                grams.computeIfAbsent(gram, key -> new IntList()).add(ordinal);
+            }
+            for (String term : termsSeen) {
+                terms.add(term, ordinal);
+            }
+        }
+
+        /**
+         * Mark every card in this field group that the scorer could accept for the query.
+         */
+        void collect(BitSet matches, CandidateCounter counter, String query) {
+            // Exact/contains and n-gram overlap: share at least 60% of the query's trigrams
+            Set<String> queryGrams = grams(query);
+            int required = (int) Math.ceil(queryGrams.size() * MIN_NGRAM_OVERLAP);
+            for (String gram : queryGrams) {
+                counter.add(grams.get(gram));
+            }
+            counter.drain(matches, count -> count >= required);
+
+            // Word rules, per query word; the scorer also compares the whole query to each word
+            List<String> words = new ArrayList<>(Arrays.asList(query.split(" ")));
+            if (words.size() > 1) {
+                words.add(query);
+            }
+            for (String word : words) {
+                if (word.length() < GRAM) {
+                    continue;
+                }
+                // Prefix and substring matches: the card contains every trigram of the word
+                Set<String> wordGrams = grams(word);
+                for (String gram : wordGrams) {
+                    counter.add(grams.get(gram));
+                }
+                counter.drain(matches, count -> count == wordGrams.size());
+
+                // Typo matches: expand to the dictionary terms within the allowed distance
+                int allowed = word.length() <= 5 ? 1 : MAX_LEVENSHTEIN_DISTANCE;
+                terms.collect(matches, word, allowed);
+            }
+        }
+
+        private static Set<String> grams(String text) {
+            Set<String> result = new HashSet<>();
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                result.add(text.substring(i, i + GRAM));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Distinct terms of a field group with their postings, organised as a BK-tree so that
+     * typo-tolerant lookup visits only the terms that can be within the edit bound.
+     * Lookup cost depends on the vocabulary, not on the number of cards.
+     */
+    private static final class TermDictionary {
+
+        final Map<String, IntList> postings = new HashMap<>();
+        TermNode root;
+
+        void add(String term, int ordinal) {
+            IntList list = postings.get(term);
+            if (list == null) {
+                list = new IntList();
+                postings.put(term, list);
+                insert(term, list);
+            }
+            list.add(ordinal);
+        }
+
+        private void insert(String term, IntList list) {
+            TermNode node = new TermNode(term, list);
+            if (root == null) {
+                root = node;
+                return;
+            }
+            BoundedLevenshtein matcher = BoundedLevenshtein.unbounded(term);
+            TermNode current = root;
+            while (true) {
+                int distance = matcher.distance(current.term);
+                TermNode child = current.child(distance);
+                if (child == null) {
+                    current.setChild(distance, node);
+                    return;
+                }
+                current = child;
+            }
+        }
+
+        /**
+         * Mark the postings of every term within {@code maxDistance} edits of the word.
+         */
+        void collect(BitSet matches, String word, int maxDistance) {
+            if (root == null) {
+                return;
+            }
+            BoundedLevenshtein matcher = BoundedLevenshtein.unbounded(word);
+            Deque<TermNode> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                TermNode node = pending.pop();
+                int distance = matcher.distance(node.term);
+                if (distance <= maxDistance) {
+                    IntList list = node.postings;
+                    for (int i = 0; i < list.size; i++) {
+                        matches.set(list.values[i]);
+                    }
+                }
+                // Triangle inequality: only subtrees at distance d +/- maxDistance can match
+                if (node.children != null) {
+                    int from = Math.max(0, distance - maxDistance);
+                    int to = Math.min(node.children.length - 1, distance + maxDistance);
+                    for (int d = from; d <= to; d++) {
+                        if (node.children[d] != null) {
+                            pending.push(node.children[d]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class TermNode {
+        final String term;
+        final IntList postings;
+        TermNode[] children;
+
+        TermNode(String term, IntList postings) {
+            this.term = term;
+            this.postings = postings;
+        }
+
+        TermNode child(int distance) {
+            return children != null && distance < children.length ? children[distance] : null;
+        }
+
+        void setChild(int distance, TermNode child) {
+            if (children == null || distance >= children.length) {
+                children = Arrays.copyOf(children != null ? children : new TermNode[0], Math.max(distance + 1, 4));
+            }
+            children[distance] = child;
+        }
+    }
+
+    /**
+     * Per-ordinal hit counters for one filter pass, reset only where they were touched.
+     */
+    private static final class CandidateCounter {
+
+        final int[] counts;
+        final IntList touched = new IntList();
+
+        CandidateCounter(int size) {
+            counts = new int[size];
+        }
+
+        void add(IntList postings) {
+            if (postings == null) {
+                return;
+            }
+            for (int i = 0; i < postings.size; i++) {
+                int ordinal = postings.values[i];
+                if (counts[ordinal]++ == 0) {
+                    touched.add(ordinal);
+                }
+            }
+        }
+
+        void drain(BitSet matches, IntPredicate filter) {
+            for (int i = 0; i < touched.size; i++) {
+                int ordinal = touched.values[i];
+                if (filter.test(counts[ordinal])) {
+                    matches.set(ordinal);
+                }
+                counts[ordinal] = 0;
+            }
+            touched.size = 0;
+        }
+    }
+
+    /**
+     * Growable int array; postings are appended in ordinal order.
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -7,17 +7,35 @@ import com.hcmus.awad_email.model.EmailKanbanStatus;
 import com.hcmus.awad_email.model.KanbanColumn;
 import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
 import com.hcmus.awad_email.repository.KanbanColumnRepository;
+import com.hcmus.awad_email.service.FuzzySearchIndex.IndexedCard;
+import com.hcmus.awad_email.service.SearchResultCache.RankedHit;
+import com.hcmus.awad_email.service.SearchResultCache.Ranking;
+import com.hcmus.awad_email.util.BoundedLevenshtein;
+import com.hcmus.awad_email.util.SearchCursor;
+import com.hcmus.awad_email.util.SparseFields;
+import com.hcmus.awad_email.util.TextNormalizer;
+import com.hcmus.awad_email.util.TopK;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
  * Service for fuzzy search functionality on emails.
  * Implements typo tolerance and partial matching using Levenshtein distance
  * and n-gram based similarity scoring.
+ * Fields and query are compared as normalized tokens, so case and diacritics are ignored.
  */
 @Service
 @Slf4j
@@ -29,18 +47,56 @@ public class FuzzySearchService {
     @Autowired
     private KanbanColumnRepository columnRepository;
 
+    @Autowired
+    private FuzzySearchIndex fuzzySearchIndex;
+
+    @Autowired
+    private SearchTokenService searchTokenService;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
     private static final int DEFAULT_LIMIT = 20;
     private static final int MAX_LIMIT = 100;
     private static final double MIN_SCORE_THRESHOLD = 0.5; // Increased from 0.3 for stricter matching
     private static final double MIN_NGRAM_OVERLAP = 0.6; // Minimum n-gram overlap required
     private static final int MAX_LEVENSHTEIN_DISTANCE = 2; // Max typos allowed
+    private static final int PARALLEL_SCORING_THRESHOLD = 4096; // Candidates before scoring goes parallel
+    private static final int SCORING_SLICE_SIZE = 1024; // Candidates scored sequentially per fork-join task
+    private static final int TEXT_CANDIDATE_LIMIT = 200; // Text index hits scored before falling back
+    private static final int MAX_RANKED_RESULTS = 200; // Hits ranked and cached per query, i.e. pagination depth
+    private static final int DEADLINE_CHUNK_SIZE = 256; // Candidates scored between deadline checks
+    private static final String CACHE_MODE = "fuzzy";
+
+    // Highest score first; ties broken by email ID so parallel and sequential runs agree
+    private static final Comparator<ScoredEmail> RANKING = Comparator
+            .comparingDouble((ScoredEmail scored) -> scored.score)
+            .thenComparing(scored -> scored.card.emailId(), Comparator.reverseOrder());
+
+    // Dedicated pool so long scoring runs never starve the common pool used by parallel streams
+    private final ForkJoinPool scoringPool = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("fuzzy-search-" + thread.getPoolIndex());
+                return thread;
+            },
+            null,
+            false);
 
     /**
      * Perform fuzzy search on emails for a user.
      * Searches over subject and sender (name or email) with typo tolerance and partial matches.
      * Results are ranked by relevance.
+     *
+     * @param fields Result fields to load and return
      */
-    public FuzzySearchResponse search(String userId, FuzzySearchRequest request) {
+    public FuzzySearchResponse search(String userId, FuzzySearchRequest request, SparseFields fields) {
+        // The budget covers the whole search, from the text-index query and any cold index build on
+        Long deadlineNanos = request.getMaxLatencyMs() != null && request.getMaxLatencyMs() > 0
+                ? System.nanoTime() + request.getMaxLatencyMs() * 1_000_000L
+                : null;
+
         String query = request.getQuery();
         if (query == null || query.trim().isEmpty()) {
             return FuzzySearchResponse.builder()
@@ -50,57 +106,316 @@ public class FuzzySearchService {
                     .build();
         }
 
-        query = query.trim().toLowerCase();
-        int limit = request.getLimit() != null ? Math.min(request.getLimit(), MAX_LIMIT) : DEFAULT_LIMIT;
+        query = TextNormalizer.toSearchText(query);
+        if (query.isEmpty()) {
+            return FuzzySearchResponse.builder()
+                    .query(request.getQuery())
+                    .totalResults(0)
+                    .results(Collections.emptyList())
+                    .build();
+        }
+        int limit = request.getLimit() != null ? Math.max(0, Math.min(request.getLimit(), MAX_LIMIT)) : DEFAULT_LIMIT;
         boolean includeBody = request.getIncludeBody() != null && request.getIncludeBody();
 
-        // Get all emails for the user
-        List<EmailKanbanStatus> allEmails = emailStatusRepository.findByUserId(userId);
+        String queryKey = query + "|body=" + includeBody;
+        int offset = SearchCursor.decodeOffset(request.getCursor(), CACHE_MODE, queryKey);
+        RankResult result = rank(userId, query, queryKey, includeBody, offset + limit, deadlineNanos);
+        Ranking ranking = result.ranking();
+        List<RankedHit> page = ranking.page(offset, limit);
+
+        // Load only the returned cards, with the requested fields
+        Map<String, EmailKanbanStatus> emailsById = emailStatusRepository.findByUserIdAndEmailIdInProjected(
+                        userId,
+                        page.stream().map(RankedHit::emailId).collect(Collectors.toList()),
+                        fields.storedFields())
+                .stream()
+                .collect(Collectors.toMap(EmailKanbanStatus::getEmailId, email -> email, (a, b) -> a));
 
         // Get column names for response
         Map<String, String> columnNames = columnRepository.findByUserIdOrderByOrderAsc(userId)
                 .stream()
                 .collect(Collectors.toMap(KanbanColumn::getId, KanbanColumn::getName));
 
-        // Score and rank emails
-        List<ScoredEmail> scoredEmails = new ArrayList<>();
-        final String finalQuery = query;
-
-        for (EmailKanbanStatus email : allEmails) {
-            ScoredEmail scored = scoreEmail(email, finalQuery, includeBody);
-            if (scored.score >= MIN_SCORE_THRESHOLD) {
-                scoredEmails.add(scored);
-            }
-        }
-
-        // Sort by score descending
-        scoredEmails.sort((a, b) -> Double.compare(b.score, a.score));
-
-        // Limit results
-        List<SearchResultItem> results = scoredEmails.stream()
-                .limit(limit)
-                .map(scored -> toSearchResultItem(scored, columnNames))
+        List<SearchResultItem> results = page.stream()
+                .filter(hit -> emailsById.containsKey(hit.emailId()))
+                .map(hit -> toSearchResultItem(emailsById.get(hit.emailId()), hit, columnNames))
                 .collect(Collectors.toList());
 
-        log.info("Fuzzy search for user {} with query '{}' found {} results", userId, request.getQuery(), results.size());
+        String nextCursor = ranking.hits().size() > offset + limit
+                ? SearchCursor.encode(CACHE_MODE, queryKey, offset + limit)
+                : null;
+
+        log.info("Fuzzy search for user {} with query '{}' found {} results (offset {}, scanned {}{})",
+                userId, request.getQuery(), results.size(), offset, result.scanned(),
+                result.partial() ? ", partial" : "");
 
         return FuzzySearchResponse.builder()
                 .query(request.getQuery())
                 .totalResults(results.size())
                 .results(results)
+                .nextCursor(nextCursor)
+                .partial(result.partial())
+                .scannedCount(result.scanned())
                 .build();
     }
 
+    /**
+     * Outcome of ranking a query.
+     *
+     * @param partial Whether the latency budget ran out before every candidate was scored, or
+     *                before the index was built and only the text index was searched
+     * @param scanned Number of cards scored
+     */
+    private record RankResult(Ranking ranking, boolean partial, int scanned) {}
+
+    /**
+     * Ranked hits for a normalized query, from the result cache when it covers the requested page.
+     * A ranking cut short by the deadline is returned but not cached. If the index is still being
+     * built at the deadline, the text-index hits are returned and the build finishes in the background.
+     *
+     * @param needed Number of leading hits the caller needs
+     * @param deadlineNanos {@link System#nanoTime()} by which the search must stop, or null for no limit
+     */
+    private RankResult rank(String userId, String query, String queryKey, boolean includeBody, int needed,
+                            Long deadlineNanos) {
+        Ranking cached = searchResultCache.get(userId, CACHE_MODE, queryKey);
+        if (cached != null && cached.covers(needed)) {
+            return new RankResult(cached, false, 0);
+        }
+
+        long version = searchResultCache.version(userId, CACHE_MODE);
+        CompiledQuery compiledQuery = new CompiledQuery(query);
+        Ranking ranking = null;
+        List<IndexedCard> candidates = Collections.emptyList();
+        TopK<ScoredEmail> textBest = null;
+        boolean partial = false;
+        int scanned = 0;
+
+        // Without a loaded index, try the text index first; correctly spelled queries usually stop here
+        if (!fuzzySearchIndex.isLoaded(userId)) {
+            candidates = findTextCandidates(userId, query, deadlineNanos);
+            textBest = scoreRange(candidates, 0, candidates.size(), compiledQuery, includeBody, MAX_RANKED_RESULTS);
+            scanned = candidates.size();
+            if (textBest.size() >= needed) {
+                ranking = new Ranking(toRankedHits(textBest), false);
+            } else if (deadlineNanos != null && !fuzzySearchIndex.awaitLoaded(userId, deadlineNanos)) {
+                // The index is not built in time: the text hits are all there is
+                ranking = new Ranking(toRankedHits(textBest), false);
+                partial = true;
+            }
+        }
+
+        // Too few text hits (typos, partial words): narrow with the in-memory index and score exactly
+        if (ranking == null) {
+            candidates = fuzzySearchIndex.findCandidates(userId, query, includeBody);
+            if (deadlineNanos != null) {
+                DeadlineScan scan = scoreUntil(candidates, compiledQuery, includeBody, deadlineNanos);
+                TopK<ScoredEmail> best = scan.best();
+                if (scan.partial() && textBest != null) {
+                    best = withTextHits(best, textBest);
+                }
+                ranking = new Ranking(toRankedHits(best), !scan.partial());
+                partial = scan.partial();
+                scanned += scan.scanned();
+            } else {
+                TopK<ScoredEmail> best = candidates.size() >= PARALLEL_SCORING_THRESHOLD
+                        ? scoringPool.invoke(new ScoringTask(candidates, 0, candidates.size(), compiledQuery,
+                                includeBody, MAX_RANKED_RESULTS))
+                        : scoreRange(candidates, 0, candidates.size(), compiledQuery, includeBody, MAX_RANKED_RESULTS);
+                ranking = new Ranking(toRankedHits(best), true);
+                scanned += candidates.size();
+            }
+        }
+
+        log.debug("Fuzzy search for user {} scored {} of {} candidates, ranked {} hits",
+                userId, scanned, candidates.size(), ranking.hits().size());
+        if (!partial) {
+            searchResultCache.put(userId, CACHE_MODE, queryKey, ranking, version);
+        }
+        return new RankResult(ranking, partial, scanned);
+    }
+
+    /**
+     * Result of a deadline-bounded scan.
+     *
+     * @param partial Whether the deadline passed before every candidate was scored
+     */
+    private record DeadlineScan(TopK<ScoredEmail> best, boolean partial, int scanned) {}
+
+    /**
+     * Score candidates most recent first until the deadline, keeping the best matches seen.
+     * Workers claim fixed-size chunks in recency order, so whatever is left unscored when
+     * time runs out is always the oldest mail.
+     */
+    private DeadlineScan scoreUntil(List<IndexedCard> candidates, CompiledQuery query, boolean includeBody,
+                                    long deadlineNanos) {
+        List<IndexedCard> byRecency = new ArrayList<>(candidates);
+        byRecency.sort(Comparator.comparingLong(IndexedCard::receivedAtMillis).reversed());
+
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger scanned = new AtomicInteger();
+        Callable<TopK<ScoredEmail>> worker = () -> {
+            TopK<ScoredEmail> best = new TopK<>(MAX_RANKED_RESULTS, RANKING);
+            int from;
+            while (System.nanoTime() - deadlineNanos < 0
+                    && (from = nextChunk.getAndAdd(DEADLINE_CHUNK_SIZE)) < byRecency.size()) {
+                int to = Math.min(from + DEADLINE_CHUNK_SIZE, byRecency.size());
+                scoreInto(best, byRecency, from, to, query, includeBody);
+                scanned.addAndGet(to - from);
+            }
+            return best;
+        };
+
+        TopK<ScoredEmail> best;
+        if (byRecency.size() >= PARALLEL_SCORING_THRESHOLD) {
+            List<ForkJoinTask<TopK<ScoredEmail>>> tasks = new ArrayList<>();
+            for (int i = 0; i < scoringPool.getParallelism(); i++) {
+                tasks.add(scoringPool.submit(worker));
+            }
+            best = new TopK<>(MAX_RANKED_RESULTS, RANKING);
+            for (ForkJoinTask<TopK<ScoredEmail>> task : tasks) {
+                best.merge(task.join());
+            }
+        } else {
+            try {
+                best = worker.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        int scannedCount = scanned.get();
+        return new DeadlineScan(best, scannedCount < byRecency.size(), scannedCount);
+    }
+
+    /**
+     * The best matches of a partial scan together with text-index hits it did not reach.
+     */
+    private TopK<ScoredEmail> withTextHits(TopK<ScoredEmail> scanBest, TopK<ScoredEmail> textBest) {
+        TopK<ScoredEmail> best = new TopK<>(MAX_RANKED_RESULTS, RANKING);
+        Set<String> seen = new HashSet<>();
+        for (ScoredEmail scored : scanBest.toSortedList()) {
+            seen.add(scored.card.emailId());
+            best.offer(scored);
+        }
+        for (ScoredEmail scored : textBest.toSortedList()) {
+            if (seen.add(scored.card.emailId())) {
+                best.offer(scored);
+            }
+        }
+        return best;
+    }
+
+    private List<RankedHit> toRankedHits(TopK<ScoredEmail> best) {
+        return best.toSortedList().stream()
+                .map(scored -> new RankedHit(scored.card.emailId(), scored.score, scored.matchedFields))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Cards matching the query's words in the MongoDB text index, best text score first.
+     * Returns an empty list if the text stage fails or runs past the deadline, so the caller falls
+     * back to the index.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} by which the query must finish, or null for no limit
+     */
+    private List<IndexedCard> findTextCandidates(String userId, String query, Long deadlineNanos) {
+        Duration maxTime = null;
+        if (deadlineNanos != null) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMs <= 0) {
+                return Collections.emptyList();
+            }
+            maxTime = Duration.ofMillis(remainingMs);
+        }
+        try {
+            return emailStatusRepository.searchText(userId, query, TEXT_CANDIDATE_LIMIT,
+                            FuzzySearchIndex.INDEXED_FIELDS, maxTime)
+                    .stream()
+                    .map(email -> IndexedCard.of(email, searchTokenService.tokensOf(email)))
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.warn("Text search failed for user {}, falling back to fuzzy index: {}", userId, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scoringPool.shutdown();
+    }
+
+    /**
+     * Score a slice of the candidates sequentially, keeping the best {@code limit} matches.
+     */
+    private TopK<ScoredEmail> scoreRange(List<IndexedCard> candidates, int from, int to,
+                                         CompiledQuery query, boolean includeBody, int limit) {
+        TopK<ScoredEmail> best = new TopK<>(limit, RANKING);
+        scoreInto(best, candidates, from, to, query, includeBody);
+        return best;
+    }
+
+    private void scoreInto(TopK<ScoredEmail> best, List<IndexedCard> candidates, int from, int to,
+                           CompiledQuery query, boolean includeBody) {
+        for (int i = from; i < to; i++) {
+            ScoredEmail scored = scoreEmail(candidates.get(i), query, includeBody);
+            if (scored.score >= MIN_SCORE_THRESHOLD) {
+                best.offer(scored);
+            }
+        }
+    }
+
+    /**
+     * Splits candidate scoring across the scoring pool and merges the per-slice top-K heaps.
+     */
+    private class ScoringTask extends RecursiveTask<TopK<ScoredEmail>> {
+        private final List<IndexedCard> candidates;
+        private final int from;
+        private final int to;
+        private final CompiledQuery query;
+        private final boolean includeBody;
+        private final int limit;
+
+        ScoringTask(List<IndexedCard> candidates, int from, int to,
+                    CompiledQuery query, boolean includeBody, int limit) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.query = query;
+            this.includeBody = includeBody;
+            this.limit = limit;
+        }
+
+        @Override
+        protected TopK<ScoredEmail> compute() {
+            if (to - from <= SCORING_SLICE_SIZE) {
+                return scoreRange(candidates, from, to, query, includeBody, limit);
+            }
+            int mid = (from + to) >>> 1;
+            ScoringTask left = new ScoringTask(candidates, from, mid, query, includeBody, limit);
+            left.fork();
+            TopK<ScoredEmail> right = new ScoringTask(candidates, mid, to, query, includeBody, limit).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Perform fuzzy search returning all result fields.
+     */
+    public FuzzySearchResponse search(String userId, FuzzySearchRequest request) {
+        return search(userId, request, SparseFields.all());
+    }
+
     /**
      * Score an email against the search query.
      */
-    private ScoredEmail scoreEmail(EmailKanbanStatus email, String query, boolean includeBody) {
+    private ScoredEmail scoreEmail(IndexedCard card, CompiledQuery query, boolean includeBody) {
         double maxScore = 0;
         List<String> matchedFields = new ArrayList<>();
 
         // Score subject (highest weight)
-        if (email.getSubject() != null) {
-            double subjectScore = calculateSimilarity(email.getSubject().toLowerCase(), query) * 1.5;
+        if (card.subject() != null) {
+            double subjectScore = calculateSimilarity(card.subject(), query) * 1.5;
             if (subjectScore > MIN_SCORE_THRESHOLD) {
                 matchedFields.add("subject");
                 maxScore = Math.max(maxScore, subjectScore);
@@ -108,8 +423,8 @@ public class FuzzySearchService {
         }
 
         // Score sender name
-        if (email.getFromName() != null) {
-            double nameScore = calculateSimilarity(email.getFromName().toLowerCase(), query) * 1.3;
+        if (card.fromName() != null) {
+            double nameScore = calculateSimilarity(card.fromName(), query) * 1.3;
             if (nameScore > MIN_SCORE_THRESHOLD) {
                 matchedFields.add("fromName");
                 maxScore = Math.max(maxScore, nameScore);
@@ -117,8 +432,8 @@ public class FuzzySearchService {
         }
 
         // Score sender email
-        if (email.getFromEmail() != null) {
-            double emailScore = calculateSimilarity(email.getFromEmail().toLowerCase(), query) * 1.2;
+        if (card.fromEmail() != null) {
+            double emailScore = calculateSimilarity(card.fromEmail(), query) * 1.2;
             if (emailScore > MIN_SCORE_THRESHOLD) {
                 matchedFields.add("fromEmail");
                 maxScore = Math.max(maxScore, emailScore);
@@ -127,15 +442,15 @@ public class FuzzySearchService {
 
         // Optionally score body/preview/summary
         if (includeBody) {
-            if (email.getPreview() != null) {
-                double previewScore = calculateSimilarity(email.getPreview().toLowerCase(), query) * 0.8;
+            if (card.preview() != null) {
+                double previewScore = calculateSimilarity(card.preview(), query) * 0.8;
                 if (previewScore > MIN_SCORE_THRESHOLD) {
                     matchedFields.add("preview");
                     maxScore = Math.max(maxScore, previewScore);
                 }
             }
-            if (email.getSummary() != null) {
-                double summaryScore = calculateSimilarity(email.getSummary().toLowerCase(), query) * 0.9;
+            if (card.summary() != null) {
+                double summaryScore = calculateSimilarity(card.summary(), query) * 0.9;
                 if (summaryScore > MIN_SCORE_THRESHOLD) {
                     matchedFields.add("summary");
                     maxScore = Math.max(maxScore, summaryScore);
@@ -143,15 +458,16 @@ public class FuzzySearchService {
             }
         }
 
-        return new ScoredEmail(email, maxScore, matchedFields);
+        return new ScoredEmail(card, maxScore, matchedFields);
     }
 
     /**
      * Calculate similarity between text and query using multiple techniques.
      * Stricter matching to avoid false positives.
      */
-    private double calculateSimilarity(String text, String query) {
+    private double calculateSimilarity(String text, CompiledQuery compiled) {
         if (text == null || text.isEmpty()) return 0;
+        String query = compiled.text;
 
         // Exact match (highest score)
         if (text.equals(query)) return 1.0;
@@ -173,20 +489,20 @@ public class FuzzySearchService {
         }
 
         // Levenshtein-based similarity for typo tolerance (stricter)
-        double levenshteinScore = levenshteinSimilarity(text, query);
+        double levenshteinScore = levenshteinSimilarity(text, compiled);
         if (levenshteinScore >= MIN_SCORE_THRESHOLD) {
             return levenshteinScore;
         }
 
         // N-gram similarity only if there's significant overlap
-        double ngramScore = ngramSimilarity(text, query, 3); // Use 3-grams for stricter matching
+        double ngramScore = ngramSimilarity(text, compiled.ngrams, 3); // Use 3-grams for stricter matching
         if (ngramScore >= MIN_NGRAM_OVERLAP) {
             return ngramScore * 0.7; // Reduce weight of n-gram matches
         }
 
         // Word-level matching for multi-word queries
         if (query.contains(" ")) {
-            double wordScore = wordMatchScore(text, query);
+            double wordScore = wordMatchScore(text, compiled);
             if (wordScore >= MIN_SCORE_THRESHOLD) {
                 return wordScore;
             }
@@ -198,9 +514,8 @@ public class FuzzySearchService {
     /**
      * Calculate n-gram similarity between two strings.
      */
-    private double ngramSimilarity(String text, String query, int n) {
+    private double ngramSimilarity(String text, Set<String> queryNgrams, int n) {
         Set<String> textNgrams = generateNgrams(text, n);
-        Set<String> queryNgrams = generateNgrams(query, n);
 
         if (queryNgrams.isEmpty()) return 0;
 
@@ -230,21 +545,22 @@ public class FuzzySearchService {
      * Checks each word in the text against the query.
      * Only returns high score if the edit distance is small (typo tolerance).
      */
-    private double levenshteinSimilarity(String text, String query) {
+    private double levenshteinSimilarity(String text, CompiledQuery compiled) {
+        String query = compiled.text;
+        // Skip very short queries to avoid false positives
+        if (query.length() < 3) return 0;
+
         String[] words = text.split("\\s+");
         double maxSimilarity = 0;
 
         for (String word : words) {
             // Skip very short words to avoid false positives
-            if (word.length() < 3 || query.length() < 3) continue;
-
-            int distance = levenshteinDistance(word, query);
+            if (word.length() < 3) continue;
 
             // Only consider as match if edit distance is small (typo tolerance)
-            // Allow 1 typo for words up to 5 chars, 2 typos for longer words
-            int allowedDistance = query.length() <= 5 ? 1 : MAX_LEVENSHTEIN_DISTANCE;
+            int distance = compiled.matcher.distance(word);
 
-            if (distance <= allowedDistance) {
+            if (distance <= compiled.matcher.getMaxDistance()) {
                 int maxLen = Math.max(word.length(), query.length());
                 double similarity = 1.0 - ((double) distance / maxLen);
                 maxSimilarity = Math.max(maxSimilarity, similarity);
@@ -254,41 +570,17 @@ public class FuzzySearchService {
         return maxSimilarity;
     }
 
-    /**
-     * Calculate Levenshtein distance between two strings.
-     */
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-
-        for (int i = 0; i <= s1.length(); i++) {
-            for (int j = 0; j <= s2.length(); j++) {
-                if (i == 0) {
-                    dp[i][j] = j;
-                } else if (j == 0) {
-                    dp[i][j] = i;
-                } else {
-                    int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
-                    dp[i][j] = Math.min(
-                            Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                            dp[i - 1][j - 1] + cost
-                    );
-                }
-            }
-        }
-
-        return dp[s1.length()][s2.length()];
-    }
-
     /**
      * Calculate word-level match score.
      * Useful for multi-word queries. Stricter matching.
      */
-    private double wordMatchScore(String text, String query) {
-        String[] queryWords = query.split("\\s+");
+    private double wordMatchScore(String text, CompiledQuery compiled) {
+        String[] queryWords = compiled.words;
         String[] textWords = text.split("\\s+");
 
         int matchedWords = 0;
-        for (String qWord : queryWords) {
+        for (int i = 0; i < queryWords.length; i++) {
+            String qWord = queryWords[i];
             // Skip very short query words
             if (qWord.length() < 3) continue;
 
@@ -304,8 +596,7 @@ public class FuzzySearchService {
                 }
 
                 // Check for typo tolerance (stricter: max 1-2 char difference)
-                int allowedDistance = qWord.length() <= 5 ? 1 : 2;
-                if (levenshteinDistance(tWord, qWord) <= allowedDistance) {
+                if (compiled.wordMatchers[i].matches(tWord)) {
                     matchedWords++;
                     break;
                 }
@@ -318,8 +609,8 @@ public class FuzzySearchService {
     /**
      * Convert scored email to search result item.
      */
-    private SearchResultItem toSearchResultItem(ScoredEmail scored, Map<String, String> columnNames) {
-        EmailKanbanStatus email = scored.email;
+    private SearchResultItem toSearchResultItem(EmailKanbanStatus email, RankedHit hit,
+                                                Map<String, String> columnNames) {
         return SearchResultItem.builder()
                 .id(email.getId())
                 .emailId(email.getEmailId())
@@ -334,21 +625,48 @@ public class FuzzySearchService {
                 .isRead(email.isRead())
                 .isStarred(email.isStarred())
                 .hasAttachments(email.isHasAttachments())
-                .score(scored.score)
-                .matchedFields(scored.matchedFields)
+                .score(hit.score())
+                .matchedFields(hit.matchedFields())
                 .build();
     }
 
+    /**
+     * Query state derived once per search and shared by every scored field.
+     * Allow 1 typo for words up to 5 chars, 2 typos for longer words.
+     */
+    private class CompiledQuery {
+        final String text;
+        final Set<String> ngrams;
+        final BoundedLevenshtein matcher;
+        final String[] words;
+        final BoundedLevenshtein[] wordMatchers;
+
+        CompiledQuery(String text) {
+            this.text = text;
+            this.ngrams = generateNgrams(text, 3);
+            this.matcher = BoundedLevenshtein.compile(text, allowedDistance(text));
+            this.words = text.split("\\s+");
+            this.wordMatchers = new BoundedLevenshtein[words.length];
+            for (int i = 0; i < words.length; i++) {
+                wordMatchers[i] = BoundedLevenshtein.compile(words[i], allowedDistance(words[i]));
+            }
+        }
+
+        private int allowedDistance(String word) {
+            return word.length() <= 5 ? 1 : MAX_LEVENSHTEIN_DISTANCE;
+        }
+    }
+
     /**
      * Internal class to hold scored email results.
      */
     private static class ScoredEmail {
-        final EmailKanbanStatus email;
+        final IndexedCard card;
         final double score;
         final List<String> matchedFields;
 
-        ScoredEmail(EmailKanbanStatus email, double score, List<String> matchedFields) {
-            this.email = email;
+        ScoredEmail(IndexedCard card, double score, List<String> matchedFields) {
+            this.card = card;
             this.score = score;
             this.matchedFields = matchedFields;
         }
@@ -3,7 +3,11 @@ package com.hcmus.awad_email.service;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
 import com.google.api.client.googleapis.auth.oauth2.GoogleTokenResponse;
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
@@ -40,6 +44,12 @@ public class GmailService {
             "https://www.googleapis.com/auth/gmail.send",
             "https://www.googleapis.com/auth/gmail.labels"
     );
+
+    // Gmail accepts up to 100 calls per batch but rate-limits batches larger than 50
+    private static final int MAX_BATCH_SIZE = 50;
+
+    // Headers read to build a Kanban card; the snippet, labels and internal date come with any format
+    private static final List<String> CARD_HEADERS = List.of("Subject", "From");
     
     @Value("${app.google.client-id}")
     private String clientId;
@@ -218,22 +228,7 @@ public class GmailService {
                     userId, labelId, maxResults, pageToken != null ? pageToken : "null");
 
             Gmail service = getGmailService(userId);
-
-            Gmail.Users.Messages.List request = service.users().messages().list("me");
-
-            if (labelId != null && !labelId.isEmpty()) {
-                request.setLabelIds(Collections.singletonList(labelId));
-            }
-
-            if (maxResults != null) {
-                request.setMaxResults(maxResults);
-            }
-
-            if (pageToken != null && !pageToken.isEmpty()) {
-                request.setPageToken(pageToken);
-            }
-
-            ListMessagesResponse response = request.execute();
+            ListMessagesResponse response = list(service, labelId, maxResults, pageToken);
 
             log.debug("📬 Gmail API response | messages: {} | nextPageToken: {} | resultSizeEstimate: {}",
                     response.getMessages() != null ? response.getMessages().size() : 0,
@@ -275,6 +270,43 @@ public class GmailService {
         }
     }
     
+    /**
+     * List the IDs of the newest messages in a label/mailbox, without fetching the messages.
+     */
+    public List<String> listMessageIds(String userId, String labelId, Long maxResults) {
+        try {
+            ListMessagesResponse response = list(getGmailService(userId), labelId, maxResults, null);
+            if (response.getMessages() == null) {
+                return Collections.emptyList();
+            }
+            return response.getMessages().stream()
+                    .map(Message::getId)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("Failed to list Gmail messages", e);
+            throw new BadRequestException("Failed to fetch emails: " + e.getMessage());
+        }
+    }
+
+    private ListMessagesResponse list(Gmail service, String labelId, Long maxResults, String pageToken)
+            throws IOException {
+        Gmail.Users.Messages.List request = service.users().messages().list("me");
+
+        if (labelId != null && !labelId.isEmpty()) {
+            request.setLabelIds(Collections.singletonList(labelId));
+        }
+
+        if (maxResults != null) {
+            request.setMaxResults(maxResults);
+        }
+
+        if (pageToken != null && !pageToken.isEmpty()) {
+            request.setPageToken(pageToken);
+        }
+
+        return request.execute();
+    }
+
     /**
      * Get a single message by ID
      */
@@ -290,6 +322,90 @@ public class GmailService {
         }
     }
     
+    /**
+     * Get the headers of a single message needed for a Kanban card, without its body.
+     */
+    public Message getMessageHeaders(String userId, String messageId) {
+        try {
+            Gmail service = getGmailService(userId);
+            return service.users().messages().get("me", messageId)
+                    .setFormat("metadata")
+                    .setMetadataHeaders(CARD_HEADERS)
+                    .execute();
+        } catch (IOException e) {
+            log.error("Failed to get Gmail message: " + messageId, e);
+            throw new BadRequestException("Failed to fetch email: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get several complete messages, bodies and attachment parts included, by ID.
+     * Only for callers that read the body; cards need {@link #getMessageHeaders(String, List)}.
+     *
+     * @return Map of message ID -> message
+     */
+    public Map<String, Message> getMessages(String userId, List<String> messageIds) {
+        return getMessages(userId, messageIds, true);
+    }
+
+    /**
+     * Get the headers of several messages needed for Kanban cards, without their bodies.
+     *
+     * @return Map of message ID -> message
+     */
+    public Map<String, Message> getMessageHeaders(String userId, List<String> messageIds) {
+        return getMessages(userId, messageIds, false);
+    }
+
+    /**
+     * Get several messages by ID using Gmail batch requests (one HTTP call per 50 messages).
+     * Messages that cannot be fetched are logged and left out of the result.
+     *
+     * @param full Whether to fetch the whole message rather than the card headers
+     */
+    private Map<String, Message> getMessages(String userId, List<String> messageIds, boolean full) {
+        Map<String, Message> messages = new HashMap<>();
+        if (messageIds == null || messageIds.isEmpty()) {
+            return messages;
+        }
+
+        try {
+            Gmail service = getGmailService(userId);
+
+            JsonBatchCallback<Message> callback = new JsonBatchCallback<>() {
+                @Override
+                public void onSuccess(Message message, HttpHeaders responseHeaders) {
+                    messages.put(message.getId(), message);
+                }
+
+                @Override
+                public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                    log.warn("Failed to fetch message in batch: {}", error.getMessage());
+                }
+            };
+
+            for (int start = 0; start < messageIds.size(); start += MAX_BATCH_SIZE) {
+                BatchRequest batch = service.batch();
+                for (String messageId : messageIds.subList(start, Math.min(start + MAX_BATCH_SIZE, messageIds.size()))) {
+                    Gmail.Users.Messages.Get request = service.users().messages().get("me", messageId);
+                    if (full) {
+                        request.setFormat("full");
+                    } else {
+                        request.setFormat("metadata").setMetadataHeaders(CARD_HEADERS);
+                    }
+                    request.queue(batch, callback);
+                }
+                batch.execute();
+            }
+
+            log.debug("📬 Gmail API batch get | requested: {} | fetched: {}", messageIds.size(), messages.size());
+            return messages;
+        } catch (IOException e) {
+            log.error("Failed to batch get Gmail messages", e);
+            throw new BadRequestException("Failed to fetch emails: " + e.getMessage());
+        }
+    }
+    
     /**
      * Modify message labels (mark read/unread, star, etc.)
      */
@@ -0,0 +1,215 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.dto.kanban.FuzzySearchRequest;
+import com.hcmus.awad_email.dto.kanban.FuzzySearchResponse;
+import com.hcmus.awad_email.dto.kanban.FuzzySearchResponse.SearchResultItem;
+import com.hcmus.awad_email.dto.search.HybridSearchRequest;
+import com.hcmus.awad_email.dto.search.HybridSearchResponse;
+import com.hcmus.awad_email.dto.search.HybridSearchResultItem;
+import com.hcmus.awad_email.dto.search.SemanticSearchRequest;
+import com.hcmus.awad_email.dto.search.SemanticSearchResponse;
+import com.hcmus.awad_email.dto.search.SemanticSearchResultItem;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Service for hybrid search: runs fuzzy (lexical) and semantic retrieval concurrently
+ * under one deadline and merges the two rankings with reciprocal rank fusion (RRF).
+ * A retriever that fails or misses the deadline simply contributes nothing, so a slow
+ * or unavailable AI service degrades the result to lexical-only instead of failing it.
+ */
+@Service
+@Slf4j
+public class HybridSearchService {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    private static final int MIN_RETRIEVER_DEPTH = 50; // Results requested from each retriever before fusion
+    private static final int RRF_K = 60; // Standard RRF damping constant
+
+    @Value("${app.search.hybrid-deadline-ms:1500}")
+    private long defaultDeadlineMs;
+
+    @Autowired
+    private FuzzySearchService fuzzySearchService;
+
+    @Autowired
+    private SemanticSearchService semanticSearchService;
+
+    // Bounded so a burst of hybrid searches cannot queue unbounded retriever work
+    private final ThreadPoolExecutor retrieverExecutor = new ThreadPoolExecutor(
+            16, 16, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "hybrid-search-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * Perform hybrid search for a user.
+     */
+    public HybridSearchResponse search(String userId, HybridSearchRequest request) {
+        long startTime = System.currentTimeMillis();
+
+        String query = request.getQuery().trim();
+        int limit = request.getLimit() != null ? Math.max(0, Math.min(request.getLimit(), MAX_LIMIT)) : DEFAULT_LIMIT;
+        int depth = Math.min(MAX_LIMIT, Math.max(limit * 2, MIN_RETRIEVER_DEPTH));
+        long deadlineMs = request.getDeadlineMs() != null && request.getDeadlineMs() > 0
+                ? Math.min(request.getDeadlineMs(), defaultDeadlineMs)
+                : defaultDeadlineMs;
+        long deadline = startTime + deadlineMs;
+
+        FuzzySearchRequest lexicalRequest = FuzzySearchRequest.builder()
+                .query(query)
+                .limit(depth)
+                .includeBody(request.getIncludeBody())
+                .maxLatencyMs((int) (deadlineMs * 4 / 5)) // Scoring stops early, leaving time to load the page
+                .build();
+        SemanticSearchRequest semanticRequest = SemanticSearchRequest.builder()
+                .query(query)
+                .limit(depth)
+                .minScore(request.getMinScore())
+                .generateMissingEmbeddings(false)
+                .build();
+
+        Future<FuzzySearchResponse> lexical =
+                submit(() -> fuzzySearchService.search(userId, lexicalRequest));
+        Future<SemanticSearchResponse> semantic =
+                submit(() -> semanticSearchService.search(userId, semanticRequest));
+
+        FuzzySearchResponse lexicalResponse = await(lexical, deadline, "lexical", userId);
+        SemanticSearchResponse semanticResponse = await(semantic, deadline, "semantic", userId);
+
+        List<SearchResultItem> lexicalResults = lexicalResponse != null
+                ? lexicalResponse.getResults() : Collections.emptyList();
+        List<SemanticSearchResultItem> semanticResults = semanticResponse != null
+                ? semanticResponse.getResults() : Collections.emptyList();
+
+        List<HybridSearchResultItem> results = fuse(lexicalResults, semanticResults, limit);
+
+        long processingTime = System.currentTimeMillis() - startTime;
+        log.info("Hybrid search for user {} with query '{}': {} lexical + {} semantic -> {} results in {}ms",
+                userId, query, lexicalResults.size(), semanticResults.size(), results.size(), processingTime);
+
+        return HybridSearchResponse.builder()
+                .query(query)
+                .totalResults(results.size())
+                .results(results)
+                .lexicalComplete(lexicalResponse != null)
+                .semanticComplete(semanticResponse != null)
+                .processingTimeMs(processingTime)
+                .build();
+    }
+
+    /**
+     * Merge two rankings: each email scores the sum of 1 / (k + rank) over the lists containing it.
+     */
+    private List<HybridSearchResultItem> fuse(List<SearchResultItem> lexicalResults,
+                                              List<SemanticSearchResultItem> semanticResults,
+                                              int limit) {
+        Map<String, HybridSearchResultItem> fused = new LinkedHashMap<>();
+
+        for (int i = 0; i < lexicalResults.size(); i++) {
+            SearchResultItem item = lexicalResults.get(i);
+            HybridSearchResultItem result = fused.computeIfAbsent(item.getEmailId(), id -> HybridSearchResultItem.builder()
+                    .emailId(item.getEmailId())
+                    .subject(item.getSubject())
+                    .fromEmail(item.getFromEmail())
+                    .fromName(item.getFromName())
+                    .preview(item.getPreview())
+                    .summary(item.getSummary())
+                    .columnId(item.getColumnId())
+                    .columnName(item.getColumnName())
+                    .receivedAt(item.getReceivedAt())
+                    .isRead(item.isRead())
+                    .isStarred(item.isStarred())
+                    .hasAttachments(item.isHasAttachments())
+                    .build());
+            result.setLexicalRank(i + 1);
+            result.setScore(result.getScore() + 1.0 / (RRF_K + i + 1));
+        }
+
+        for (int i = 0; i < semanticResults.size(); i++) {
+            SemanticSearchResultItem item = semanticResults.get(i);
+            HybridSearchResultItem result = fused.computeIfAbsent(item.getEmailId(), id -> HybridSearchResultItem.builder()
+                    .emailId(item.getEmailId())
+                    .subject(item.getSubject())
+                    .fromEmail(item.getFromEmail())
+                    .fromName(item.getFromName())
+                    .preview(item.getPreview())
+                    .summary(item.getSummary())
+                    .columnId(item.getColumnId())
+                    .columnName(item.getColumnName())
+                    .receivedAt(item.getReceivedAt())
+                    .isRead(item.isRead())
+                    .isStarred(item.isStarred())
+                    .hasAttachments(item.isHasAttachments())
+                    .build());
+            result.setSemanticRank(i + 1);
+            result.setScore(result.getScore() + 1.0 / (RRF_K + i + 1));
+        }
+
+        // Highest fused score first; ties go to the email with the better single-list rank
+        return fused.values().stream()
+                .sorted(Comparator.comparingDouble(HybridSearchResultItem::getScore).reversed()
+                        .thenComparingInt(HybridSearchService::bestRank))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static int bestRank(HybridSearchResultItem item) {
+        int lexical = item.getLexicalRank() != null ? item.getLexicalRank() : Integer.MAX_VALUE;
+        int semantic = item.getSemanticRank() != null ? item.getSemanticRank() : Integer.MAX_VALUE;
+        return Math.min(lexical, semantic);
+    }
+
+    private <T> Future<T> submit(Callable<T> retriever) {
+        try {
+            return retrieverExecutor.submit(retriever);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Wait for a retriever until the shared deadline, cancelling it if it misses the deadline so
+     * it stops holding a retriever thread, or never starts if it is still queued.
+     *
+     * @return The retriever's response, or null if it failed or missed the deadline
+     */
+    private <T> T await(Future<T> future, long deadline, String retriever, String userId) {
+        long remaining = deadline - System.currentTimeMillis();
+        try {
+            return future.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Hybrid search {} retriever missed the deadline for user {}", retriever, userId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        } catch (ExecutionException e) {
+            log.warn("Hybrid search {} retriever failed for user {}: {}",
+                    retriever, userId, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retrieverExecutor.shutdownNow();
+    }
+}
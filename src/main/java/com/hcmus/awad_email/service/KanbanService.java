@@ -1,14 +1,17 @@
 package com.hcmus.awad_email.service;
 
 import com.google.api.services.gmail.model.Message;
-import com.hcmus.awad_email.dto.email.MessageListResult;
 import com.hcmus.awad_email.dto.kanban.*;
 import com.hcmus.awad_email.exception.BadRequestException;
 import com.hcmus.awad_email.exception.ResourceNotFoundException;
 import com.hcmus.awad_email.model.EmailKanbanStatus;
 import com.hcmus.awad_email.model.KanbanColumn;
+import com.hcmus.awad_email.model.SearchTokens;
 import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
 import com.hcmus.awad_email.repository.KanbanColumnRepository;
+import com.hcmus.awad_email.util.SingleFlight;
+import com.hcmus.awad_email.util.SparseFields;
+import com.hcmus.awad_email.util.TextNormalizer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -36,6 +39,19 @@ public class KanbanService {
     
     @Autowired
     private AISummarizationService aiSummarizationService;
+
+    @Autowired
+    private SearchTokenService searchTokenService;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private EmbeddingPipeline embeddingPipeline;
+
+    // Identical concurrent board builds share one result; concurrent syncs of a user share one job
+    private final SingleFlight<String, KanbanBoardResponse> boardFlights = new SingleFlight<>();
+    private final SingleFlight<String, KanbanSyncResult> syncFlights = new SingleFlight<>();
     
     // ==================== Column Operations ====================
     
@@ -76,7 +92,7 @@ public class KanbanService {
                 .userId(userId).name("Snoozed").type(KanbanColumn.ColumnType.SNOOZED)
                 .order(5).color("#9E9E9E").isDefault(true).createdAt(now).updatedAt(now).build());
 
-        return columnRepository.saveAll(defaultColumns);
+        return columnRepository.insert(defaultColumns);
     }
     
     /**
@@ -111,7 +127,8 @@ public class KanbanService {
                 .addLabelsOnMove(request.getAddLabelsOnMove())
                 .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
-        column = columnRepository.save(column);
+        // Insert, never overwrite: a new column has no counter increments to lose
+        column = columnRepository.insert(column);
         log.info("Created new column '{}' for user {} with label mapping: {}",
                 request.getName(), userId, request.getGmailLabelId());
         return toColumnResponse(column);
@@ -149,7 +166,14 @@ public class KanbanService {
 
         column.setUpdatedAt(LocalDateTime.now());
 
-        column = columnRepository.save(column);
+        // Only $set the edited settings; saving the whole column would overwrite emailCount with
+        // the value read above and lose increments made since
+        long updated = columnRepository.updateSettings(column.getId(), userId, column.getName(), column.getColor(),
+                column.getOrder(), column.getGmailLabelId(), column.getGmailLabelName(),
+                column.getRemoveLabelsOnMove(), column.getAddLabelsOnMove(), column.getUpdatedAt());
+        if (updated == 0) {
+            throw new ResourceNotFoundException("Column not found");
+        }
         log.info("Updated column '{}' for user {} with label mapping: {}",
                 column.getName(), userId, column.getGmailLabelId());
         return toColumnResponse(column);
@@ -179,13 +203,15 @@ public class KanbanService {
             email.setUpdatedAt(LocalDateTime.now());
         }
         emailStatusRepository.saveAll(emails);
+        adjustColumnCount(targetColumn.getId(), emails.size());
         
         columnRepository.deleteByIdAndUserId(columnId, userId);
         log.info("Deleted column '{}' for user {}", column.getName(), userId);
     }
     
     private KanbanColumnResponse toColumnResponse(KanbanColumn column) {
-        long emailCount = emailStatusRepository.countByUserIdAndColumnId(column.getUserId(), column.getId());
+        // Counter is maintained on write, so reading it costs nothing
+        long emailCount = Math.max(column.getEmailCount(), 0);
         return KanbanColumnResponse.builder()
                 .id(column.getId()).name(column.getName()).type(column.getType())
                 .order(column.getOrder()).color(column.getColor()).isDefault(column.isDefault())
@@ -197,18 +223,83 @@ public class KanbanService {
                 .build();
     }
 
+    /**
+     * Apply a delta to a column's card counter with an atomic $inc.
+     * Must be called in the same write path as every card insert, move, snooze and delete.
+     */
+    private void adjustColumnCount(String columnId, long delta) {
+        if (columnId == null || delta == 0) {
+            return;
+        }
+        columnRepository.incrementEmailCount(columnId, delta);
+    }
+
+    /**
+     * Move one card between two column counters.
+     */
+    private void moveColumnCount(String fromColumnId, String toColumnId) {
+        if (Objects.equals(fromColumnId, toColumnId)) {
+            return;
+        }
+        adjustColumnCount(fromColumnId, -1);
+        adjustColumnCount(toColumnId, 1);
+    }
+
+    /**
+     * Position for a card appended to the end of a column, taken from the column counter.
+     */
+    private int nextOrderInColumn(KanbanColumn column) {
+        return (int) Math.max(column.getEmailCount(), 0);
+    }
+
+    /**
+     * Recompute every column's card counter from the actual cards (called by scheduler).
+     * Fixes drift from failed writes or data changed outside the service.
+     * Counters are read before the cards are counted and only overwritten if unchanged since, so a
+     * card added or moved during the pass is not undone; such columns are reconciled next pass.
+     */
+    public void reconcileColumnCounts() {
+        List<KanbanColumn> columns = columnRepository.findAll();
+        Map<String, Long> actualCounts = emailStatusRepository.countCardsByColumn();
+
+        int fixed = 0;
+        int changed = 0;
+        for (KanbanColumn column : columns) {
+            long actual = actualCounts.getOrDefault(column.getId(), 0L);
+            if (column.getEmailCount() != actual) {
+                if (columnRepository.updateEmailCount(column.getId(), column.getEmailCount(), actual) > 0) {
+                    fixed++;
+                } else {
+                    changed++;
+                }
+            }
+        }
+
+        if (fixed > 0 || changed > 0) {
+            log.info("Reconciled card counters for {} columns ({} changed during the pass, left for the next)",
+                    fixed, changed);
+        }
+    }
+
     // ==================== Email Operations ====================
 
     /**
      * Get the full Kanban board with all columns and emails.
      * Uses cached emails from database for performance. Call with sync=true to fetch new emails from Gmail.
+     * Concurrent identical requests of a user (e.g. several open tabs) share one build.
      *
      * @param userId The user ID
      * @param maxEmails Maximum emails to fetch/display (default 50)
      * @param sync If true, sync new emails from Gmail first
+     * @param fields Card fields to load and return
      */
-    public KanbanBoardResponse getBoard(String userId, Integer maxEmails, boolean sync) {
+    public KanbanBoardResponse getBoard(String userId, Integer maxEmails, boolean sync, SparseFields fields) {
         int limit = maxEmails != null ? maxEmails : 50;
+        String flightKey = userId + "|" + limit + "|" + sync + "|" + fields;
+        return boardFlights.execute(flightKey, () -> buildBoard(userId, limit, sync, fields));
+    }
+
+    private KanbanBoardResponse buildBoard(String userId, int limit, boolean sync, SparseFields fields) {
 
         // Get columns
         List<KanbanColumnResponse> columns = getColumns(userId);
@@ -224,15 +315,16 @@ public class KanbanService {
             syncGmailEmails(userId, limit);
         }
 
-        // Load all emails from database (cached)
-        List<EmailKanbanStatus> allStatuses = emailStatusRepository.findByUserId(userId);
+        // Load all emails from database (cached), limited to the requested fields
+        Set<String> storedFields = fields.storedFields("orderInColumn");
+        List<EmailKanbanStatus> allStatuses = emailStatusRepository.findByUserIdProjected(userId, storedFields);
 
         if (allStatuses.isEmpty()) {
             // No cached emails - if Gmail is connected, do initial sync
             if (gmailService.isGmailConnected(userId)) {
                 log.info("No cached emails found for user {}, performing initial sync", userId);
                 syncGmailEmails(userId, limit);
-                allStatuses = emailStatusRepository.findByUserId(userId);
+                allStatuses = emailStatusRepository.findByUserIdProjected(userId, storedFields);
             }
         }
 
@@ -272,6 +364,13 @@ public class KanbanService {
                 .build();
     }
 
+    /**
+     * Get the full Kanban board with all card fields.
+     */
+    public KanbanBoardResponse getBoard(String userId, Integer maxEmails, boolean sync) {
+        return getBoard(userId, maxEmails, sync, SparseFields.all());
+    }
+
     /**
      * Get the full Kanban board with all columns and emails (no sync).
      */
@@ -290,12 +389,21 @@ public class KanbanService {
      * Get the Kanban board with filtering and sorting options.
      * Supports sorting by date (newest/oldest) or sender name,
      * and filtering by unread status, attachments, or sender.
+     * Concurrent identical requests of a user share one build.
      *
      * @param userId The user ID
      * @param filterRequest The filter and sort options
+     * @param fields Card fields to load and return
      * @return KanbanBoardResponse with filtered and sorted emails
      */
-    public KanbanBoardResponse getBoardWithFilters(String userId, KanbanFilterRequest filterRequest) {
+    public KanbanBoardResponse getBoardWithFilters(String userId, KanbanFilterRequest filterRequest,
+                                                   SparseFields fields) {
+        String flightKey = userId + "|" + filterRequest + "|" + fields;
+        return boardFlights.execute(flightKey, () -> buildFilteredBoard(userId, filterRequest, fields));
+    }
+
+    private KanbanBoardResponse buildFilteredBoard(String userId, KanbanFilterRequest filterRequest,
+                                                   SparseFields fields) {
         // Get columns
         List<KanbanColumnResponse> columns = getColumns(userId);
         Map<String, List<KanbanEmailResponse>> emailsByColumn = new HashMap<>();
@@ -305,8 +413,10 @@ public class KanbanService {
             emailsByColumn.put(column.getId(), new ArrayList<>());
         }
 
-        // Load all emails from database
-        List<EmailKanbanStatus> allStatuses = emailStatusRepository.findByUserId(userId);
+        // Load all emails from database, keeping the fields needed for filtering and sorting
+        List<EmailKanbanStatus> allStatuses = emailStatusRepository.findByUserIdProjected(userId,
+                fields.storedFields("receivedAt", "fromName", "fromEmail", "isRead", "hasAttachments",
+                        "searchTokens.version", "searchTokens.fromName", "searchTokens.fromEmail"));
 
         // Apply filters
         List<EmailKanbanStatus> filteredStatuses = applyFilters(allStatuses, filterRequest);
@@ -354,10 +464,21 @@ public class KanbanService {
                 .build();
     }
 
+    /**
+     * Get the Kanban board with filtering and sorting options and all card fields.
+     */
+    public KanbanBoardResponse getBoardWithFilters(String userId, KanbanFilterRequest filterRequest) {
+        return getBoardWithFilters(userId, filterRequest, SparseFields.all());
+    }
+
     /**
      * Apply filters to email statuses.
      */
     private List<EmailKanbanStatus> applyFilters(List<EmailKanbanStatus> statuses, KanbanFilterRequest filterRequest) {
+        String senderFilter = filterRequest.getFromSender() != null && !filterRequest.getFromSender().isEmpty()
+                ? TextNormalizer.toSearchText(filterRequest.getFromSender())
+                : null;
+
         return statuses.stream()
                 .filter(status -> {
                     // Filter by unread only
@@ -374,11 +495,11 @@ public class KanbanService {
                         }
                     }
 
-                    // Filter by sender (partial match)
-                    if (filterRequest.getFromSender() != null && !filterRequest.getFromSender().isEmpty()) {
-                        String senderFilter = filterRequest.getFromSender().toLowerCase();
-                        String fromEmail = status.getFromEmail() != null ? status.getFromEmail().toLowerCase() : "";
-                        String fromName = status.getFromName() != null ? status.getFromName().toLowerCase() : "";
+                    // Filter by sender (partial match on normalized tokens)
+                    if (senderFilter != null) {
+                        SearchTokens tokens = searchTokenService.tokensOf(status);
+                        String fromEmail = SearchTokenService.join(tokens.getFromEmail());
+                        String fromName = SearchTokenService.join(tokens.getFromName());
 
                         if (!fromEmail.contains(senderFilter) && !fromName.contains(senderFilter)) {
                             return false;
@@ -444,12 +565,22 @@ public class KanbanService {
     }
 
     /**
-     * Get emails in a specific column.
-     * Fetches from Gmail and filters by column.
+     * Get emails in a specific column, ordered by position.
+     * Reads cached cards of that column only.
+     */
+    public List<KanbanEmailResponse> getEmailsInColumn(String userId, String columnId, SparseFields fields) {
+        return emailStatusRepository
+                .findByUserIdAndColumnIdProjected(userId, columnId, fields.storedFields("orderInColumn"))
+                .stream()
+                .map(this::toEmailResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get emails in a specific column with all card fields.
      */
     public List<KanbanEmailResponse> getEmailsInColumn(String userId, String columnId) {
-        KanbanBoardResponse board = getBoard(userId);
-        return board.getEmailsByColumn().getOrDefault(columnId, Collections.emptyList());
+        return getEmailsInColumn(userId, columnId, SparseFields.all());
     }
 
     /**
@@ -464,13 +595,14 @@ public class KanbanService {
 
         // Determine target column (default to Backlog, fall back to Inbox for backward compatibility)
         String columnId = request.getColumnId();
+        KanbanColumn targetColumn;
         if (columnId == null || columnId.isEmpty()) {
-            KanbanColumn defaultColumn = columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.BACKLOG)
+            targetColumn = columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.BACKLOG)
                     .orElseGet(() -> columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.INBOX)
                             .orElseGet(() -> initializeDefaultColumns(userId).get(1))); // Index 1 is Backlog
-            columnId = defaultColumn.getId();
+            columnId = targetColumn.getId();
         } else {
-            columnRepository.findByIdAndUserId(columnId, userId)
+            targetColumn = columnRepository.findByIdAndUserId(columnId, userId)
                     .orElseThrow(() -> new ResourceNotFoundException("Column not found"));
         }
 
@@ -496,7 +628,7 @@ public class KanbanService {
         }
 
         // Get order in column
-        int order = (int) emailStatusRepository.countByUserIdAndColumnId(userId, columnId);
+        int order = nextOrderInColumn(targetColumn);
 
         LocalDateTime now = LocalDateTime.now();
         EmailKanbanStatus status = EmailKanbanStatus.builder()
@@ -519,7 +651,13 @@ public class KanbanService {
                 .updatedAt(now)
                 .build();
 
+        if (fullTextIndex.index(status, body) && fullTextIndex.commit(userId)) {
+            status.setFullTextIndexedAt(now);
+        }
+
         status = emailStatusRepository.save(status);
+        adjustColumnCount(columnId, 1);
+        embeddingPipeline.enqueue(userId, status.getEmailId());
         log.info("Added email {} to Kanban board for user {}", request.getEmailId(), userId);
         return toEmailResponse(status);
     }
@@ -573,10 +711,13 @@ public class KanbanService {
             throw new BadRequestException("Use the snooze endpoint to move emails to Snoozed column");
         }
 
+        // New records have no id yet and are not counted in any column
+        String sourceColumnId = status.getId() != null ? status.getColumnId() : null;
+
         // Update column and order
         status.setColumnId(request.getTargetColumnId());
         status.setOrderInColumn(request.getNewOrder() != null ? request.getNewOrder()
-                : (int) emailStatusRepository.countByUserIdAndColumnId(userId, request.getTargetColumnId()));
+                : nextOrderInColumn(targetColumn));
 
         // If moving out of Snoozed, clear snooze data
         if (status.isSnoozed() && targetColumn.getType() != KanbanColumn.ColumnType.SNOOZED) {
@@ -587,6 +728,10 @@ public class KanbanService {
 
         status.setUpdatedAt(LocalDateTime.now());
         status = emailStatusRepository.save(status);
+        moveColumnCount(sourceColumnId, request.getTargetColumnId());
+        if (status.getEmbeddingGeneratedAt() == null) {
+            embeddingPipeline.enqueue(userId, status.getEmailId());
+        }
 
         // Sync Gmail labels based on column configuration
         syncGmailLabelsForColumn(userId, request.getEmailId(), targetColumn);
@@ -736,15 +881,22 @@ public class KanbanService {
                             .build();
                 });
 
-        // Store previous column for restoration
-        status.setPreviousColumnId(status.getColumnId());
+        // New records have no id yet and are not counted in any column
+        String sourceColumnId = status.getId() != null ? status.getColumnId() : null;
+        boolean alreadyInSnoozed = snoozedColumn.getId().equals(status.getColumnId());
+
+        // Store previous column for restoration (keep the original one when re-snoozing)
+        if (!alreadyInSnoozed) {
+            status.setPreviousColumnId(status.getColumnId());
+            status.setOrderInColumn(nextOrderInColumn(snoozedColumn));
+        }
         status.setColumnId(snoozedColumn.getId());
         status.setSnoozed(true);
         status.setSnoozeUntil(request.getSnoozeUntil());
-        status.setOrderInColumn((int) emailStatusRepository.countByUserIdAndColumnId(userId, snoozedColumn.getId()));
         status.setUpdatedAt(LocalDateTime.now());
 
         status = emailStatusRepository.save(status);
+        moveColumnCount(sourceColumnId, snoozedColumn.getId());
         log.info("Snoozed email {} until {} for user {}", request.getEmailId(), request.getSnoozeUntil(), userId);
         return toEmailResponse(status);
     }
@@ -762,21 +914,21 @@ public class KanbanService {
         }
 
         // Restore to previous column or Inbox
-        String targetColumnId = status.getPreviousColumnId();
-        if (targetColumnId == null) {
-            KanbanColumn inboxColumn = columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.INBOX)
-                    .orElseThrow(() -> new ResourceNotFoundException("Inbox column not found"));
-            targetColumnId = inboxColumn.getId();
-        }
+        KanbanColumn targetColumn = Optional.ofNullable(status.getPreviousColumnId())
+                .flatMap(columnId -> columnRepository.findByIdAndUserId(columnId, userId))
+                .orElseGet(() -> columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.INBOX)
+                        .orElseThrow(() -> new ResourceNotFoundException("Inbox column not found")));
+        String sourceColumnId = status.getColumnId();
 
-        status.setColumnId(targetColumnId);
+        status.setColumnId(targetColumn.getId());
         status.setSnoozed(false);
         status.setSnoozeUntil(null);
         status.setPreviousColumnId(null);
-        status.setOrderInColumn((int) emailStatusRepository.countByUserIdAndColumnId(userId, targetColumnId));
+        status.setOrderInColumn(nextOrderInColumn(targetColumn));
         status.setUpdatedAt(LocalDateTime.now());
 
         status = emailStatusRepository.save(status);
+        moveColumnCount(sourceColumnId, targetColumn.getId());
         log.info("Unsnoozed email {} for user {}", emailId, userId);
         return toEmailResponse(status);
     }
@@ -850,7 +1002,9 @@ public class KanbanService {
                             .updatedAt(LocalDateTime.now())
                             .build();
 
-                    return emailStatusRepository.save(newStatus);
+                    newStatus = emailStatusRepository.save(newStatus);
+                    adjustColumnCount(newStatus.getColumnId(), 1);
+                    return newStatus;
                 });
 
         // Get email body for summary generation
@@ -867,6 +1021,10 @@ public class KanbanService {
             status.setSummary(summary);
             status.setSummaryGeneratedAt(LocalDateTime.now());
             status.setUpdatedAt(LocalDateTime.now());
+            // Re-index with the new summary; the full body is at hand anyway
+            if (fullTextIndex.index(status, body) && fullTextIndex.commit(userId)) {
+                status.setFullTextIndexedAt(LocalDateTime.now());
+            }
             status = emailStatusRepository.save(status);
             log.info("Generated summary for email {} for user {}", emailId, userId);
         } else {
@@ -881,10 +1039,10 @@ public class KanbanService {
      */
     @Transactional
     public void removeEmailFromKanban(String userId, String emailId) {
-        if (!emailStatusRepository.existsByUserIdAndEmailId(userId, emailId)) {
-            throw new ResourceNotFoundException("Email not found on Kanban board");
-        }
+        EmailKanbanStatus status = emailStatusRepository.findByUserIdAndEmailId(userId, emailId)
+                .orElseThrow(() -> new ResourceNotFoundException("Email not found on Kanban board"));
         emailStatusRepository.deleteByUserIdAndEmailId(userId, emailId);
+        adjustColumnCount(status.getColumnId(), -1);
         log.info("Removed email {} from Kanban board for user {}", emailId, userId);
     }
 
@@ -906,24 +1064,67 @@ public class KanbanService {
         }
 
         try {
-            Message gmailMessage = gmailService.getMessage(userId, emailId);
+            Message gmailMessage = gmailService.getMessageHeaders(userId, emailId);
+            String backlogColumnId = getBacklogColumnId(userId);
+            return buildKanbanEmailResponse(gmailMessage, backlogColumnId, 0, null, null, false, null);
+        } catch (Exception e) {
+            throw new ResourceNotFoundException("Email not found in Gmail");
+        }
+    }
 
-            // Find Backlog column
-            String backlogColumnId = columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.BACKLOG)
-                    .map(KanbanColumn::getId)
-                    .orElseGet(() -> columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.INBOX)
-                            .map(KanbanColumn::getId)
-                            .orElse(null));
+    /**
+     * Get the Kanban status of several emails in one round trip.
+     * Cached cards are resolved with a single query; the rest are fetched from Gmail
+     * with batched requests and returned in the Backlog column (not persisted).
+     * Emails found in neither place are left out. Results keep the requested order.
+     */
+    public List<KanbanEmailResponse> getEmailStatuses(String userId, List<String> emailIds) {
+        List<String> requestedIds = emailIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<String, KanbanEmailResponse> responses = new HashMap<>();
+        for (EmailKanbanStatus status : emailStatusRepository.findByUserIdAndEmailIdIn(userId, requestedIds)) {
+            responses.put(status.getEmailId(), toEmailResponse(status));
+        }
+
+        List<String> missingIds = requestedIds.stream()
+                .filter(id -> !responses.containsKey(id))
+                .collect(Collectors.toList());
 
-            if (backlogColumnId == null) {
-                List<KanbanColumn> columns = initializeDefaultColumns(userId);
-                backlogColumnId = columns.get(1).getId(); // Index 1 is Backlog
+        if (!missingIds.isEmpty() && gmailService.isGmailConnected(userId)) {
+            String backlogColumnId = getBacklogColumnId(userId);
+            for (Message gmailMessage : gmailService.getMessageHeaders(userId, missingIds).values()) {
+                responses.put(gmailMessage.getId(),
+                        buildKanbanEmailResponse(gmailMessage, backlogColumnId, 0, null, null, false, null));
             }
+        }
 
-            return buildKanbanEmailResponse(gmailMessage, backlogColumnId, 0, null, null, false, null);
-        } catch (Exception e) {
-            throw new ResourceNotFoundException("Email not found in Gmail");
+        log.info("Resolved {} of {} requested emails for user {} ({} from Gmail)",
+                responses.size(), requestedIds.size(), userId, missingIds.size());
+
+        return requestedIds.stream()
+                .map(responses::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find the Backlog column ID (falls back to Inbox, creating default columns if needed).
+     */
+    private String getBacklogColumnId(String userId) {
+        String backlogColumnId = columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.BACKLOG)
+                .map(KanbanColumn::getId)
+                .orElseGet(() -> columnRepository.findByUserIdAndType(userId, KanbanColumn.ColumnType.INBOX)
+                        .map(KanbanColumn::getId)
+                        .orElse(null));
+
+        if (backlogColumnId == null) {
+            List<KanbanColumn> columns = initializeDefaultColumns(userId);
+            backlogColumnId = columns.get(1).getId(); // Index 1 is Backlog
         }
+        return backlogColumnId;
     }
 
     // ==================== Gmail Sync Operations ====================
@@ -931,6 +1132,7 @@ public class KanbanService {
     /**
      * Sync Gmail emails to the Kanban board.
      * New emails are placed in the BACKLOG column by default (falls back to INBOX for backward compatibility).
+     * Only one sync runs per user at a time; callers arriving while it runs attach to it and get its result.
      *
      * @param userId The user ID
      * @param maxEmails Maximum number of emails to sync (default 50)
@@ -938,6 +1140,13 @@ public class KanbanService {
      */
     @Transactional
     public KanbanSyncResult syncGmailEmails(String userId, Integer maxEmails) {
+        if (syncFlights.isInFlight(userId)) {
+            log.info("Gmail sync already running for user {}, attaching to it", userId);
+        }
+        return syncFlights.execute(userId, () -> doSyncGmailEmails(userId, maxEmails));
+    }
+
+    private KanbanSyncResult doSyncGmailEmails(String userId, Integer maxEmails) {
         // Check if Gmail is connected
         if (!gmailService.isGmailConnected(userId)) {
             log.warn("Gmail not connected for user {}, skipping sync", userId);
@@ -967,11 +1176,10 @@ public class KanbanService {
                         .findFirst()
                         .orElseThrow(() -> new ResourceNotFoundException("No suitable column found for syncing emails")));
 
-        // Fetch emails from Gmail INBOX
-        MessageListResult gmailResult = gmailService.listMessages(userId, "INBOX", (long) limit, null);
-        List<Message> gmailMessages = gmailResult.getMessages();
+        // List the newest emails in Gmail INBOX
+        List<String> gmailEmailIds = gmailService.listMessageIds(userId, "INBOX", (long) limit);
 
-        if (gmailMessages.isEmpty()) {
+        if (gmailEmailIds.isEmpty()) {
             return KanbanSyncResult.builder()
                     .synced(0)
                     .skipped(0)
@@ -981,25 +1189,27 @@ public class KanbanService {
         }
 
         // Get existing email IDs in Kanban
-        List<String> gmailEmailIds = gmailMessages.stream()
-                .map(Message::getId)
-                .collect(Collectors.toList());
-
         Set<String> existingEmailIds = emailStatusRepository.findByUserIdAndEmailIdIn(userId, gmailEmailIds)
                 .stream()
                 .map(EmailKanbanStatus::getEmailId)
                 .collect(Collectors.toSet());
 
+        // Fetch only the new emails, in full: their bodies are indexed below
+        Map<String, Message> newMessages = gmailService.getMessages(userId, gmailEmailIds.stream()
+                .filter(id -> !existingEmailIds.contains(id))
+                .collect(Collectors.toList()));
+
         int synced = 0;
         int skipped = 0;
-        int currentOrder = (int) emailStatusRepository.countByUserIdAndColumnId(userId, targetColumn.getId());
+        int currentOrder = nextOrderInColumn(targetColumn);
         LocalDateTime now = LocalDateTime.now();
+        List<String> fullTextIndexedIds = new ArrayList<>();
 
-        for (Message gmailMessage : gmailMessages) {
-            String emailId = gmailMessage.getId();
+        for (String emailId : gmailEmailIds) {
+            Message gmailMessage = newMessages.get(emailId);
 
-            // Skip if already in Kanban
-            if (existingEmailIds.contains(emailId)) {
+            // Skip if already in Kanban, or if it could not be fetched
+            if (gmailMessage == null) {
                 skipped++;
                 continue;
             }
@@ -1031,7 +1241,14 @@ public class KanbanService {
                         .updatedAt(now)
                         .build();
 
+                // Messages are fetched in full, so index the complete body now rather than in the backfill
+                boolean indexed = fullTextIndex.index(status, gmailMessageConverter.getBody(gmailMessage));
+
                 emailStatusRepository.save(status);
+                if (indexed) {
+                    fullTextIndexedIds.add(status.getId());
+                }
+                embeddingPipeline.enqueue(userId, emailId);
                 synced++;
 
             } catch (Exception e) {
@@ -1040,13 +1257,19 @@ public class KanbanService {
             }
         }
 
+        adjustColumnCount(targetColumn.getId(), synced);
+        // Only record cards as indexed once they are on disk; otherwise the backfill indexes them again
+        if (!fullTextIndexedIds.isEmpty() && fullTextIndex.commit(userId)) {
+            emailStatusRepository.markFullTextIndexed(fullTextIndexedIds, now);
+        }
+
         log.info("Synced {} emails to Kanban board (column: {}) for user {} ({} skipped)",
                 synced, targetColumn.getName(), userId, skipped);
 
         return KanbanSyncResult.builder()
                 .synced(synced)
                 .skipped(skipped)
-                .total(gmailMessages.size())
+                .total(gmailEmailIds.size())
                 .message(String.format("Successfully synced %d emails to Kanban board (Backlog).", synced))
                 .build();
     }
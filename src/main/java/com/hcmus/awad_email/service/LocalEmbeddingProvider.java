@@ -0,0 +1,134 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.util.TextNormalizer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process {@link EmbeddingProvider} based on feature hashing, with no network access.
+ *
+ * <p>Words and character trigrams of the normalized text are hashed into a fixed number of
+ * dimensions with a random sign, weighted sub-linearly by frequency and normalized to unit length.
+ * Similar vectors share words or word fragments, so this finds near-duplicates, typo variants and
+ * emails on the same topic in the same words, but not synonyms. Meant as an offline degraded mode
+ * and for running search benchmarks on an isolated machine; enable with
+ * {@code app.search.semantic.provider=local}.
+ */
+@Service
+@ConditionalOnProperty(name = "app.search.semantic.provider", havingValue = "local")
+@Slf4j
+public class LocalEmbeddingProvider implements EmbeddingProvider {
+
+    // Bump when the features or weights change, so stored vectors are re-embedded
+    private static final int ALGORITHM_VERSION = 1;
+    private static final float SUBJECT_WEIGHT = 2.0f;
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    @Value("${app.search.semantic.local.dimensions:512}")
+    private int dimensions;
+
+    @PostConstruct
+    public void init() {
+        if (dimensions <= 0) {
+            throw new IllegalStateException("app.search.semantic.local.dimensions must be positive");
+        }
+        log.info("Semantic search uses in-process embeddings ({})", getModel());
+    }
+
+    @Override
+    public String getModel() {
+        return "local-hashing-v" + ALGORITHM_VERSION + "-" + dimensions;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * @return Unit-length embedding, or null if the text has no letters or digits
+     */
+    @Override
+    public float[] embed(String subject, String body) {
+        Map<String, Float> features = new HashMap<>();
+        addFeatures(features, subject, SUBJECT_WEIGHT);
+        addFeatures(features, body, 1.0f);
+        if (features.isEmpty()) {
+            return null;
+        }
+
+        float[] vector = new float[dimensions];
+        features.forEach((feature, count) -> {
+            int hash = hash(feature);
+            int index = Math.floorMod(hash >>> 1, dimensions);
+            float weight = (float) (1 + Math.log(count));
+            vector[index] += (hash & 1) == 0 ? weight : -weight;
+        });
+
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    @Override
+    public Map<String, float[]> embedBatch(List<EmailKanbanStatus> cards) {
+        Map<String, float[]> embeddings = new HashMap<>();
+        for (EmailKanbanStatus card : cards) {
+            float[] embedding = embed(card.getSubject(), card.getPreview());
+            if (embedding != null) {
+                embeddings.put(card.getId(), embedding);
+            }
+        }
+        return embeddings;
+    }
+
+    /**
+     * Accumulate weighted counts of the words and padded character trigrams of a text.
+     */
+    private static void addFeatures(Map<String, Float> features, String text, float weight) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        for (String token : TextNormalizer.tokenize(text)) {
+            features.merge("w:" + token, weight * WORD_WEIGHT, Float::sum);
+            String padded = " " + token + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                features.merge("c:" + padded.substring(i, i + 3), weight * TRIGRAM_WEIGHT, Float::sum);
+            }
+        }
+    }
+
+    /**
+     * 32-bit FNV-1a hash with a final mixing step, so short features with shared prefixes still
+     * spread over all dimensions.
+     */
+    private static int hash(String feature) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < feature.length(); i++) {
+            hash ^= feature.charAt(i);
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
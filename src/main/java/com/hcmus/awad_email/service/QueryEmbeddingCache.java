@@ -0,0 +1,120 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmbeddingVector;
+import com.hcmus.awad_email.model.QueryEmbedding;
+import com.hcmus.awad_email.repository.QueryEmbeddingRepository;
+import com.hcmus.awad_email.util.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caches embeddings of search queries per (embedding model, normalized query), so repeated
+ * queries and later pages skip the AI service round trip.
+ *
+ * <p>Query embeddings do not depend on the user or on any card, so entries never go stale while
+ * the model stays the same, and are shared across users. The most recently used
+ * {@link #MAX_ENTRIES} are kept in memory. With {@code app.search.semantic.query-cache.persist}
+ * enabled they are also stored in MongoDB, where they outlive restarts until the collection's
+ * TTL index expires them.
+ */
+@Service
+@Slf4j
+public class QueryEmbeddingCache {
+
+    private static final int MAX_ENTRIES = 2000; // About 12 MB of 1536-dimension vectors
+
+    @Autowired
+    private QueryEmbeddingRepository queryEmbeddingRepository;
+
+    @Value("${app.search.semantic.query-cache.persist:false}")
+    private boolean persist;
+
+    private final Map<String, float[]> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // Concurrent misses for the same query (e.g. a burst of page requests) share one embedding call
+    private final SingleFlight<String, float[]> flights = new SingleFlight<>();
+
+    /**
+     * The cached embedding of a query, or the one computed by the embedder and then cached.
+     * The returned array is shared; callers must not modify it.
+     *
+     * @param normalizedQuery Query in normalized form, so equivalent spellings share an entry
+     * @param embedder Computes the embedding on a miss; null results are returned but not cached
+     */
+    public float[] getOrCompute(String model, String normalizedQuery, Supplier<float[]> embedder) {
+        String key = key(model, normalizedQuery);
+        float[] cached = getInMemory(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return flights.execute(key, () -> {
+            float[] embedding = load(key);
+            if (embedding == null) {
+                embedding = embedder.get();
+                if (embedding == null || embedding.length == 0) {
+                    return null;
+                }
+                store(key, model, normalizedQuery, embedding);
+            }
+            synchronized (entries) {
+                entries.put(key, embedding);
+            }
+            return embedding;
+        });
+    }
+
+    private float[] getInMemory(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private float[] load(String key) {
+        if (!persist) {
+            return null;
+        }
+        try {
+            return queryEmbeddingRepository.findById(key)
+                    .map(stored -> stored.getEmbedding().getValues())
+                    .orElse(null);
+        } catch (Exception e) {
+            log.warn("Failed to load persisted query embedding: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String key, String model, String normalizedQuery, float[] embedding) {
+        if (!persist) {
+            return;
+        }
+        try {
+            queryEmbeddingRepository.save(QueryEmbedding.builder()
+                    .id(key)
+                    .model(model)
+                    .query(normalizedQuery)
+                    .embedding(new EmbeddingVector(model, embedding))
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (Exception e) {
+            // The in-memory entry still serves this instance
+            log.warn("Failed to persist query embedding: {}", e.getMessage());
+        }
+    }
+
+    private static String key(String model, String normalizedQuery) {
+        return (model != null ? model : "") + "|" + normalizedQuery;
+    }
+}
@@ -0,0 +1,150 @@
+package com.hcmus.awad_email.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches ranked search results per (user, mode, normalized query) so later pages and
+ * repeated searches skip retrieval and scoring.
+ *
+ * <p>Each entry records the version of its user and mode when it was computed. Any card write
+ * bumps the user's board version (see {@link EmailKanbanStatusEventListener}), which makes every
+ * cached ranking of that user stale. Writes that only matter to one mode, such as saved
+ * embeddings, bump that mode's version instead and leave the other modes' rankings cached.
+ * Entries also expire after {@link #TTL_MS}, which bounds staleness from writes handled by
+ * other instances.
+ */
+@Service
+public class SearchResultCache {
+
+    private static final int MAX_ENTRIES = 2000;
+    private static final long TTL_MS = 5 * 60 * 1000L;
+
+    /**
+     * One ranked hit; only IDs and scores are cached, cards are loaded per page.
+     */
+    public record RankedHit(String emailId, double score, List<String> matchedFields) {}
+
+    /**
+     * A ranked result list.
+     *
+     * @param complete Whether the list holds every hit up to the retriever's depth; a partial
+     *                 list (e.g. from a prefilter) only serves pages it fully covers
+     * @param withEmbeddings Semantic only: cards that had an embedding when ranked
+     * @param withoutEmbeddings Semantic only: cards that had no embedding when ranked
+     */
+    public record Ranking(List<RankedHit> hits, boolean complete, int withEmbeddings, int withoutEmbeddings) {
+
+        public Ranking(List<RankedHit> hits, boolean complete) {
+            this(hits, complete, 0, 0);
+        }
+
+        /**
+         * Whether this ranking can serve results up to the given position.
+         */
+        public boolean covers(int end) {
+            return complete || hits.size() >= end;
+        }
+
+        public List<RankedHit> page(int offset, int limit) {
+            int from = Math.min(offset, hits.size());
+            int to = Math.min(from + limit, hits.size());
+            return hits.subList(from, to);
+        }
+    }
+
+    private record Entry(Ranking ranking, long version, long createdAt) {}
+
+    // Versions come from one global counter so a forgotten user never reuses an old version
+    private final AtomicLong versionCounter = new AtomicLong();
+    private final ConcurrentMap<String, Long> boardVersions = new ConcurrentHashMap<>();
+    // Keyed by user and mode
+    private final ConcurrentMap<String, Long> modeVersions = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Cached ranking for a query, or null if absent, expired or computed before the last write
+     * affecting the mode.
+     */
+    public Ranking get(String userId, String mode, String queryKey) {
+        String key = key(userId, mode, queryKey);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.version != version(userId, mode)
+                    || System.currentTimeMillis() - entry.createdAt > TTL_MS) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.ranking;
+        }
+    }
+
+    /**
+     * Cache a ranking computed at the given version.
+     * Read the version with {@link #version} before ranking and pass it here, so a write
+     * that lands while ranking is in progress is not masked.
+     */
+    public void put(String userId, String mode, String queryKey, Ranking ranking, long version) {
+        synchronized (entries) {
+            entries.put(key(userId, mode, queryKey), new Entry(ranking, version, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Current version of a user's rankings in a mode; changes on every card write of the user
+     * and on every write bumped for that mode alone.
+     */
+    public long version(String userId, String mode) {
+        // Both come from the same increasing counter, so the larger one changes whenever either is bumped
+        return Math.max(boardVersions.getOrDefault(userId, 0L),
+                modeVersions.getOrDefault(modeKey(userId, mode), 0L));
+    }
+
+    /**
+     * Record a card write for a user, invalidating their cached rankings.
+     */
+    public void bumpBoardVersion(String userId) {
+        boardVersions.put(userId, versionCounter.incrementAndGet());
+    }
+
+    /**
+     * Record a write that only affects one mode's rankings of a user, invalidating those alone.
+     */
+    public void bumpModeVersion(String userId, String mode) {
+        modeVersions.put(modeKey(userId, mode), versionCounter.incrementAndGet());
+    }
+
+    /**
+     * Invalidate every cached ranking, for writes that cannot be attributed to a user.
+     */
+    public void invalidateAll() {
+        boardVersions.replaceAll((userId, version) -> versionCounter.incrementAndGet());
+        modeVersions.replaceAll((key, version) -> versionCounter.incrementAndGet());
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static String modeKey(String userId, String mode) {
+        return userId + '\u0000' + mode;
+    }
+
+    private static String key(String userId, String mode, String queryKey) {
+        return userId + '\u0000' + mode + '\u0000' + queryKey;
+    }
+}
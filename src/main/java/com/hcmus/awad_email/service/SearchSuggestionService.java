@@ -5,6 +5,7 @@ import com.hcmus.awad_email.dto.search.SearchSuggestionResponse.ContactSuggestio
 import com.hcmus.awad_email.dto.search.SearchSuggestionResponse.KeywordSuggestion;
 import com.hcmus.awad_email.model.EmailKanbanStatus;
 import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.util.TextNormalizer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -24,9 +25,17 @@ public class SearchSuggestionService {
     private static final int MAX_KEYWORD_SUGGESTIONS = 5;
     private static final int MIN_QUERY_LENGTH = 1;
 
+    // Subject is only read for cards whose stored tokens are missing or outdated
+    private static final Set<String> SUGGESTION_FIELDS = Set.of(
+            "fromEmail", "fromName", "subject", "searchTokens.version", "searchTokens.keywords");
+    private static final Set<String> CONTACT_FIELDS = Set.of("fromEmail", "fromName");
+
     @Autowired
     private EmailKanbanStatusRepository emailStatusRepository;
 
+    @Autowired
+    private SearchTokenService searchTokenService;
+
     /**
      * Get search suggestions based on the query prefix.
      * Returns matching contacts and keywords.
@@ -41,11 +50,11 @@ public class SearchSuggestionService {
                     .build();
         }
 
-        String normalizedQuery = query.trim().toLowerCase();
+        String normalizedQuery = TextNormalizer.normalize(query.trim());
         log.debug("🔍 Getting suggestions for user: {} | query: '{}'", userId, normalizedQuery);
 
-        // Get all emails for the user
-        List<EmailKanbanStatus> allEmails = emailStatusRepository.findByUserId(userId);
+        // Get all emails for the user, with only the fields suggestions are built from
+        List<EmailKanbanStatus> allEmails = emailStatusRepository.findByUserIdProjected(userId, SUGGESTION_FIELDS);
 
         // Get contact suggestions
         List<ContactSuggestion> contacts = getContactSuggestions(allEmails, normalizedQuery);
@@ -66,7 +75,7 @@ public class SearchSuggestionService {
      * Useful for populating contact autocomplete.
      */
     public List<ContactSuggestion> getAllContacts(String userId) {
-        List<EmailKanbanStatus> allEmails = emailStatusRepository.findByUserId(userId);
+        List<EmailKanbanStatus> allEmails = emailStatusRepository.findByUserIdProjected(userId, CONTACT_FIELDS);
         return extractAllContacts(allEmails);
     }
 
@@ -134,8 +143,8 @@ public class SearchSuggestionService {
     }
 
     private boolean matchesQuery(ContactInfo info, String query) {
-        String email = info.email != null ? info.email.toLowerCase() : "";
-        String name = info.name != null ? info.name.toLowerCase() : "";
+        String email = TextNormalizer.normalize(info.email);
+        String name = TextNormalizer.normalize(info.name);
         
         return email.contains(query) || name.contains(query);
     }
@@ -145,18 +154,8 @@ public class SearchSuggestionService {
         Map<String, Integer> keywordCounts = new HashMap<>();
 
         for (EmailKanbanStatus email : emails) {
-            String subject = email.getSubject();
-            if (subject == null || subject.isEmpty()) continue;
-
-            // Extract words from subject
-            String[] words = subject.toLowerCase()
-                    .replaceAll("[^a-zA-Z0-9\\s]", " ")
-                    .split("\\s+");
-
-            for (String word : words) {
-                // Skip short words and common words
-                if (word.length() < 3 || isCommonWord(word)) continue;
-                
+            // Precomputed subject keywords (short and common words already removed)
+            for (String word : searchTokenService.keywordsOf(email)) {
                 // Only include words that start with the query
                 if (word.startsWith(query) || word.contains(query)) {
                     keywordCounts.merge(word, 1, Integer::sum);
@@ -176,22 +175,6 @@ public class SearchSuggestionService {
                 .collect(Collectors.toList());
     }
 
-    private boolean isCommonWord(String word) {
-        Set<String> commonWords = Set.of(
-                "the", "and", "for", "are", "but", "not", "you", "all",
-                "can", "had", "her", "was", "one", "our", "out", "has",
-                "his", "how", "its", "may", "new", "now", "old", "see",
-                "way", "who", "did", "get", "let", "put", "say", "she",
-                "too", "use", "from", "have", "this", "that", "with",
-                "your", "will", "been", "more", "when", "some", "them",
-                "into", "than", "then", "what", "just", "only", "come",
-                "made", "find", "here", "many", "make", "like", "time",
-                "very", "after", "most", "also", "know", "back", "first",
-                "fwd", "re", "fw"
-        );
-        return commonWords.contains(word);
-    }
-
     private static class ContactInfo {
         String email;
         String name;
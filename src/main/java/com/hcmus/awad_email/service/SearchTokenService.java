@@ -0,0 +1,111 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.SearchTokens;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.util.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Computes and backfills the normalized {@link SearchTokens} stored with each card.
+ */
+@Service
+@Slf4j
+public class SearchTokenService {
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final int MAX_BACKFILL_BATCHES = 20;
+    private static final int MIN_KEYWORD_LENGTH = 3;
+
+    @Autowired
+    private EmailKanbanStatusRepository emailStatusRepository;
+
+    /**
+     * Tokenize the cached metadata of a card.
+     */
+    public SearchTokens compute(EmailKanbanStatus status) {
+        List<String> subject = TextNormalizer.tokenize(status.getSubject());
+        List<String> keywords = subject.stream()
+                .filter(token -> token.length() >= MIN_KEYWORD_LENGTH && !TextNormalizer.isStopWord(token))
+                .collect(Collectors.toList());
+
+        return SearchTokens.builder()
+                .version(SearchTokens.CURRENT_VERSION)
+                .subject(subject)
+                .fromName(TextNormalizer.tokenize(status.getFromName()))
+                .fromEmail(TextNormalizer.tokenize(status.getFromEmail()))
+                .preview(TextNormalizer.tokenize(status.getPreview()))
+                .summary(TextNormalizer.tokenize(status.getSummary()))
+                .keywords(keywords)
+                .build();
+    }
+
+    /**
+     * The stored tokens of a card, or freshly computed ones if they are missing or outdated.
+     * Never writes; the computed tokens are persisted by the next save or by the backfill.
+     */
+    public SearchTokens tokensOf(EmailKanbanStatus status) {
+        SearchTokens tokens = status.getSearchTokens();
+        if (tokens != null && tokens.getVersion() >= SearchTokens.CURRENT_VERSION) {
+            return tokens;
+        }
+        return compute(status);
+    }
+
+    /**
+     * Join a token list back into the space-separated form matched by search.
+     */
+    public static String join(List<String> tokens) {
+        return tokens != null ? String.join(" ", tokens) : "";
+    }
+
+    /**
+     * Store current tokens on cards written before tokenization (or by an older version).
+     * Works in bounded batches and only sets the tokens field, so concurrent card updates
+     * are not overwritten.
+     *
+     * @return Number of cards updated
+     */
+    public int backfill() {
+        int updated = 0;
+        for (int batch = 0; batch < MAX_BACKFILL_BATCHES; batch++) {
+            List<EmailKanbanStatus> stale = emailStatusRepository.findWithStaleSearchTokens(
+                    SearchTokens.CURRENT_VERSION, BACKFILL_BATCH_SIZE);
+            if (stale.isEmpty()) {
+                break;
+            }
+
+            Map<String, SearchTokens> tokensById = new HashMap<>();
+            for (EmailKanbanStatus status : stale) {
+                tokensById.put(status.getId(), compute(status));
+            }
+            emailStatusRepository.updateSearchTokens(tokensById);
+            updated += tokensById.size();
+
+            if (stale.size() < BACKFILL_BATCH_SIZE) {
+                break;
+            }
+        }
+
+        if (updated > 0) {
+            log.info("Backfilled search tokens for {} cards", updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Tokens of a card's keyword suggestions, tolerating cards without stored tokens.
+     */
+    public List<String> keywordsOf(EmailKanbanStatus status) {
+        List<String> keywords = tokensOf(status).getKeywords();
+        return keywords != null ? keywords : Collections.emptyList();
+    }
+}
@@ -1,7 +1,5 @@
 package com.hcmus.awad_email.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hcmus.awad_email.dto.search.SemanticSearchRequest;
 import com.hcmus.awad_email.dto.search.SemanticSearchResponse;
 import com.hcmus.awad_email.dto.search.SemanticSearchResultItem;
@@ -9,21 +7,22 @@ import com.hcmus.awad_email.model.EmailKanbanStatus;
 import com.hcmus.awad_email.model.KanbanColumn;
 import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
 import com.hcmus.awad_email.repository.KanbanColumnRepository;
+import com.hcmus.awad_email.service.SearchResultCache.RankedHit;
+import com.hcmus.awad_email.service.SearchResultCache.Ranking;
+import com.hcmus.awad_email.service.VectorIndexService.CardFilter;
+import com.hcmus.awad_email.util.SearchCursor;
+import com.hcmus.awad_email.util.SparseFields;
+import com.hcmus.awad_email.util.TextNormalizer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
- * Service for semantic search using vector embeddings via AI service.
- * Finds conceptually related emails, not just exact text matches.
+ * Service for semantic search using vector embeddings from the configured {@link EmbeddingProvider}
+ * (the AI service by default). Finds conceptually related emails, not just exact text matches.
  */
 @Service
 @Slf4j
@@ -32,9 +31,8 @@ public class SemanticSearchService {
     private static final int DEFAULT_LIMIT = 20;
     private static final int MAX_LIMIT = 100;
     private static final double DEFAULT_MIN_SCORE = 0.2;
-
-    @Value("${app.ai-service.base-url:http://localhost:8000}")
-    private String aiServiceBaseUrl;
+    private static final int MAX_RANKED_RESULTS = 100; // Hits ranked and cached per query, i.e. pagination depth
+    static final String CACHE_MODE = "semantic";
 
     @Autowired
     private EmailKanbanStatusRepository emailStatusRepository;
@@ -42,48 +40,45 @@ public class SemanticSearchService {
     @Autowired
     private KanbanColumnRepository columnRepository;
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    @Autowired
+    private SearchResultCache searchResultCache;
 
-    private static final String EMBEDDING_SEARCH_ENDPOINT = "/api/v1/email/search/embedding";
-    private static final String EMBEDDING_STATUS_ENDPOINT = "/api/v1/email/embedding/status";
-    private static final String BATCH_EMBEDDING_ENDPOINT = "/api/v1/email/embedding/generate/batch";
+    @Autowired
+    private VectorIndexService vectorIndexService;
 
-    public SemanticSearchService() {
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
-    }
+    @Autowired
+    private QueryEmbeddingCache queryEmbeddingCache;
+
+    @Autowired
+    private EmbeddingProvider embeddingProvider;
+
+    @Autowired
+    private EmbeddingPipeline embeddingPipeline;
+
+    @Autowired
+    private EmbeddingService embeddingService;
 
     /**
-     * Check if semantic search is available (AI service configured and running).
+     * Check if semantic search is available, i.e. the configured {@link EmbeddingProvider} can embed.
      */
     public boolean isAvailable() {
-        if (aiServiceBaseUrl == null || aiServiceBaseUrl.isEmpty()) {
-            return false;
-        }
-        try {
-            String url = aiServiceBaseUrl + EMBEDDING_STATUS_ENDPOINT;
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode root = objectMapper.readTree(response.getBody());
-                return root.path("available").asBoolean(false);
-            }
-        } catch (Exception e) {
-            log.warn("AI service not available: {}", e.getMessage());
-        }
-        return false;
+        return embeddingProvider.isAvailable();
     }
 
     /**
-     * Perform semantic search on user's emails via AI service.
-     * Sends emails to AI service which generates embeddings and performs similarity search.
+     * Perform semantic search on user's emails.
+     * The query is embedded by the embedding provider and compared with the stored email embeddings locally.
+     * The ranked IDs are cached, so further pages of the same query are served without
+     * embedding the query again. Missing email embeddings are only ever queued for the
+     * background {@link EmbeddingPipeline}, never generated while the search waits.
+     *
+     * @param fields Result fields to load and return
      */
-    @Transactional
-    public SemanticSearchResponse search(String userId, SemanticSearchRequest request) {
+    public SemanticSearchResponse search(String userId, SemanticSearchRequest request, SparseFields fields) {
         long startTime = System.currentTimeMillis();
 
         String query = request.getQuery().trim();
-        int limit = request.getLimit() != null ? Math.min(request.getLimit(), MAX_LIMIT) : DEFAULT_LIMIT;
+        int limit = request.getLimit() != null ? Math.max(0, Math.min(request.getLimit(), MAX_LIMIT)) : DEFAULT_LIMIT;
         double minScore = request.getMinScore() != null ? request.getMinScore() : DEFAULT_MIN_SCORE;
         boolean generateMissing = request.getGenerateMissingEmbeddings() != null
                 && request.getGenerateMissingEmbeddings();
@@ -91,186 +86,140 @@ public class SemanticSearchService {
         log.info("🔍 Semantic search for user: {} | query: '{}' | limit: {} | minScore: {}",
                 userId, query, limit, minScore);
 
-        // Get all emails for the user
-        List<EmailKanbanStatus> allEmails = emailStatusRepository.findByUserId(userId);
-
-        // Get column names for display
-        Map<String, String> columnNames = getColumnNames(userId);
+        CardFilter filter = toFilter(request);
+        String queryKey = TextNormalizer.toSearchText(query) + "|minScore=" + minScore
+                + (filter.isEmpty() ? "" : "|" + filter);
+        int offset = SearchCursor.decodeOffset(request.getCursor(), CACHE_MODE, queryKey);
 
-        // Separate emails with and without embeddings
-        List<EmailKanbanStatus> emailsWithEmbeddings = new ArrayList<>();
-        List<EmailKanbanStatus> emailsWithoutEmbeddings = new ArrayList<>();
-
-        for (EmailKanbanStatus email : allEmails) {
-            if (email.getEmbedding() != null && !email.getEmbedding().isEmpty()) {
-                emailsWithEmbeddings.add(email);
-            } else {
-                emailsWithoutEmbeddings.add(email);
-            }
+        if (generateMissing) {
+            embeddingPipeline.enqueueMissing(userId);
         }
 
-        // Generate embeddings for emails that don't have them (if requested)
-        if (generateMissing && !emailsWithoutEmbeddings.isEmpty()) {
-            generateMissingEmbeddingsViaAI(emailsWithoutEmbeddings);
-            // Re-fetch to get updated embeddings
-            allEmails = emailStatusRepository.findByUserId(userId);
-            emailsWithEmbeddings = allEmails.stream()
-                    .filter(e -> e.getEmbedding() != null && !e.getEmbedding().isEmpty())
-                    .collect(Collectors.toList());
-            emailsWithoutEmbeddings = allEmails.stream()
-                    .filter(e -> e.getEmbedding() == null || e.getEmbedding().isEmpty())
-                    .collect(Collectors.toList());
+        Ranking ranking = searchResultCache.get(userId, CACHE_MODE, queryKey);
+        if (ranking == null || !ranking.covers(offset + limit)) {
+            ranking = rank(userId, query, queryKey, minScore, filter);
         }
+        List<RankedHit> page = ranking.page(offset, limit);
 
-        // Call AI service for semantic search
-        try {
-            List<SemanticSearchResultItem> results = performAISearch(
-                    query, allEmails, limit, minScore, columnNames);
-
-            long processingTime = System.currentTimeMillis() - startTime;
-            log.info("✅ Semantic search completed | results: {} | time: {}ms", results.size(), processingTime);
-
-            return SemanticSearchResponse.builder()
-                    .query(query)
-                    .totalResults(results.size())
-                    .results(results)
-                    .emailsWithEmbeddings(emailsWithEmbeddings.size())
-                    .emailsWithoutEmbeddings(emailsWithoutEmbeddings.size())
-                    .processingTimeMs(processingTime)
-                    .build();
-        } catch (Exception e) {
-            log.error("AI service search failed: {}", e.getMessage(), e);
-            return SemanticSearchResponse.builder()
-                    .query(query)
-                    .totalResults(0)
-                    .results(Collections.emptyList())
-                    .emailsWithEmbeddings(emailsWithEmbeddings.size())
-                    .emailsWithoutEmbeddings(emailsWithoutEmbeddings.size())
-                    .processingTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
-        }
+        // Load only the returned cards, with the requested fields
+        Map<String, EmailKanbanStatus> emailsById = emailStatusRepository.findByUserIdAndEmailIdInProjected(
+                        userId,
+                        page.stream().map(RankedHit::emailId).collect(Collectors.toList()),
+                        fields.storedFields())
+                .stream()
+                .collect(Collectors.toMap(EmailKanbanStatus::getEmailId, email -> email, (a, b) -> a));
+
+        // Get column names for display
+        Map<String, String> columnNames = getColumnNames(userId);
+
+        List<SemanticSearchResultItem> results = page.stream()
+                .filter(hit -> emailsById.containsKey(hit.emailId()))
+                .map(hit -> toResultItem(emailsById.get(hit.emailId()), hit.score(), columnNames))
+                .collect(Collectors.toList());
+
+        String nextCursor = ranking.hits().size() > offset + limit
+                ? SearchCursor.encode(CACHE_MODE, queryKey, offset + limit)
+                : null;
+
+        long processingTime = System.currentTimeMillis() - startTime;
+        log.info("✅ Semantic search completed | results: {} | offset: {} | time: {}ms",
+                results.size(), offset, processingTime);
+
+        return SemanticSearchResponse.builder()
+                .query(query)
+                .totalResults(results.size())
+                .results(results)
+                .nextCursor(nextCursor)
+                .emailsWithEmbeddings(ranking.withEmbeddings())
+                .emailsWithoutEmbeddings(ranking.withoutEmbeddings())
+                .processingTimeMs(processingTime)
+                .build();
     }
 
     /**
-     * Perform semantic search via AI service.
+     * Rank the user's emails against a query, up to {@link #MAX_RANKED_RESULTS} hits. Only the query
+     * is embedded by the provider; emails are ranked against the local {@link VectorIndexService}.
+     * Successful rankings are cached; a failed query embedding yields an empty, uncached ranking.
+     *
+     * @param filter Applied by the index before scoring, so only matching emails are compared
      */
-    private List<SemanticSearchResultItem> performAISearch(
-            String query,
-            List<EmailKanbanStatus> emails,
-            int limit,
-            double minScore,
-            Map<String, String> columnNames) {
-
-        String url = aiServiceBaseUrl + EMBEDDING_SEARCH_ENDPOINT;
-
-        // Build request body
-        List<Map<String, Object>> emailsList = new ArrayList<>();
-        Map<String, EmailKanbanStatus> emailMap = new HashMap<>();
-
-        for (EmailKanbanStatus email : emails) {
-            Map<String, Object> emailData = new HashMap<>();
-            emailData.put("email_id", email.getEmailId());
-            emailData.put("subject", email.getSubject());
-            emailData.put("body", email.getPreview());
-            emailData.put("from_email", email.getFromEmail());
-            emailData.put("from_name", email.getFromName());
-
-            // Include pre-computed embedding if available
-            if (email.getEmbedding() != null && !email.getEmbedding().isEmpty()) {
-                emailData.put("embedding", email.getEmbedding());
-            }
-
-            emailsList.add(emailData);
-            emailMap.put(email.getEmailId(), email);
-        }
+    private Ranking rank(String userId, String query, String queryKey, double minScore, CardFilter filter) {
+        long version = searchResultCache.version(userId, CACHE_MODE);
 
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("query", query);
-        requestBody.put("emails", emailsList);
-        requestBody.put("top_k", limit);
-        requestBody.put("min_score", minScore);
+        VectorIndexService.Snapshot index = vectorIndexService.snapshot(userId);
+        int withEmbeddings = index.vectorCount();
+        int withoutEmbeddings = index.unembeddedCount();
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-        log.debug("Calling AI service at {} for semantic search", url);
+        float[] queryVector = embedQuery(query);
+        if (queryVector == null || queryVector.length == 0) {
+            log.error("Embedding provider could not embed semantic search query for user {}", userId);
+            return new Ranking(Collections.emptyList(), true, withEmbeddings, withoutEmbeddings);
+        }
 
-        ResponseEntity<String> response = restTemplate.exchange(
-                url, HttpMethod.POST, entity, String.class);
+        List<RankedHit> hits = index.search(queryVector, MAX_RANKED_RESULTS, minScore, filter);
+        Ranking ranking = new Ranking(hits, true, withEmbeddings, withoutEmbeddings);
+        searchResultCache.put(userId, CACHE_MODE, queryKey, ranking, version);
+        return ranking;
+    }
 
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            return parseSearchResults(response.getBody(), emailMap, columnNames);
-        }
+    private static CardFilter toFilter(SemanticSearchRequest request) {
+        return new CardFilter(
+                request.getColumnId() != null && !request.getColumnId().isBlank() ? request.getColumnId() : null,
+                request.getReceivedAfter(),
+                request.getReceivedBefore(),
+                Boolean.TRUE.equals(request.getUnreadOnly()),
+                Boolean.TRUE.equals(request.getStarredOnly()),
+                Boolean.TRUE.equals(request.getHasAttachmentsOnly()));
+    }
 
-        log.error("AI service search failed. Status: {}", response.getStatusCode());
-        return Collections.emptyList();
+    /**
+     * Embedding of a search query, from the cache when the same normalized query was embedded before.
+     */
+    private float[] embedQuery(String query) {
+        String normalized = TextNormalizer.toSearchText(query);
+        // Queries without word characters (e.g. only symbols) are cached verbatim
+        String cacheKey = normalized.isEmpty() ? query : normalized;
+        return queryEmbeddingCache.getOrCompute(embeddingProvider.getModel(), cacheKey,
+                () -> embeddingProvider.embed(query, ""));
     }
 
     /**
-     * Parse search results from AI service response.
+     * Perform semantic search returning all result fields.
      */
-    private List<SemanticSearchResultItem> parseSearchResults(
-            String responseBody,
-            Map<String, EmailKanbanStatus> emailMap,
-            Map<String, String> columnNames) {
-        try {
-            JsonNode root = objectMapper.readTree(responseBody);
-            JsonNode resultsNode = root.path("results");
-
-            List<SemanticSearchResultItem> results = new ArrayList<>();
-
-            if (resultsNode.isArray()) {
-                for (JsonNode resultNode : resultsNode) {
-                    String emailId = resultNode.path("email_id").asText();
-                    double score = resultNode.path("similarity_score").asDouble();
-
-                    EmailKanbanStatus email = emailMap.get(emailId);
-                    if (email != null) {
-                        results.add(SemanticSearchResultItem.builder()
-                                .emailId(email.getEmailId())
-                                .subject(email.getSubject())
-                                .fromEmail(email.getFromEmail())
-                                .fromName(email.getFromName())
-                                .preview(email.getPreview())
-                                .columnId(email.getColumnId())
-                                .columnName(columnNames.getOrDefault(email.getColumnId(), "Unknown"))
-                                .receivedAt(email.getReceivedAt())
-                                .isRead(email.isRead())
-                                .isStarred(email.isStarred())
-                                .hasAttachments(email.isHasAttachments())
-                                .similarityScore(score)
-                                .summary(email.getSummary())
-                                .build());
-                    }
-                }
-            }
-
-            return results;
-        } catch (Exception e) {
-            log.error("Error parsing AI service response: {}", e.getMessage());
-            return Collections.emptyList();
-        }
+    public SemanticSearchResponse search(String userId, SemanticSearchRequest request) {
+        return search(userId, request, SparseFields.all());
+    }
+
+    private SemanticSearchResultItem toResultItem(EmailKanbanStatus email, double score,
+                                                  Map<String, String> columnNames) {
+        return SemanticSearchResultItem.builder()
+                .emailId(email.getEmailId())
+                .subject(email.getSubject())
+                .fromEmail(email.getFromEmail())
+                .fromName(email.getFromName())
+                .preview(email.getPreview())
+                .columnId(email.getColumnId())
+                .columnName(columnNames.getOrDefault(email.getColumnId(), "Unknown"))
+                .receivedAt(email.getReceivedAt())
+                .isRead(email.isRead())
+                .isStarred(email.isStarred())
+                .hasAttachments(email.isHasAttachments())
+                .similarityScore(score)
+                .summary(email.getSummary())
+                .build();
     }
 
     /**
-     * Generate embeddings for all emails that don't have them via AI service.
+     * Generate embeddings for all emails that don't have them via AI service, in parallel chunks.
+     * Bounded by a deadline; emails left over are embedded by the background pipeline.
      */
-    @Transactional
     public int generateAllEmbeddings(String userId) {
-        List<EmailKanbanStatus> emails = emailStatusRepository.findByUserId(userId);
-        List<EmailKanbanStatus> emailsWithoutEmbeddings = emails.stream()
-                .filter(e -> e.getEmbedding() == null || e.getEmbedding().isEmpty())
-                .collect(Collectors.toList());
-
-        return generateMissingEmbeddingsViaAI(emailsWithoutEmbeddings);
+        return embeddingPipeline.generateMissing(userId);
     }
 
     /**
      * Generate embedding for a single email via AI service.
      */
-    @Transactional
     public boolean generateEmbeddingForEmail(String userId, String emailId) {
         Optional<EmailKanbanStatus> emailOpt = emailStatusRepository.findByUserIdAndEmailId(userId, emailId);
         if (emailOpt.isEmpty()) {
@@ -278,143 +227,13 @@ public class SemanticSearchService {
         }
 
         EmailKanbanStatus email = emailOpt.get();
-        List<Double> embedding = generateEmbeddingViaAI(email.getSubject(), email.getPreview());
-
-        if (embedding != null) {
-            email.setEmbedding(embedding);
-            email.setEmbeddingGeneratedAt(LocalDateTime.now());
-            emailStatusRepository.save(email);
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Generate embedding for a single text via AI service.
-     */
-    private List<Double> generateEmbeddingViaAI(String subject, String body) {
-        try {
-            String url = aiServiceBaseUrl + "/api/v1/email/embedding/generate";
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("subject", subject);
-            requestBody.put("body", body);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.POST, entity, String.class);
-
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode root = objectMapper.readTree(response.getBody());
-                JsonNode embeddingNode = root.path("embedding");
-
-                if (embeddingNode.isArray()) {
-                    List<Double> embedding = new ArrayList<>();
-                    for (JsonNode value : embeddingNode) {
-                        embedding.add(value.asDouble());
-                    }
-                    return embedding;
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error generating embedding via AI service: {}", e.getMessage());
-        }
-        return null;
-    }
-
-    /**
-     * Generate embeddings for multiple emails via AI service batch endpoint.
-     */
-    private int generateMissingEmbeddingsViaAI(List<EmailKanbanStatus> emails) {
-        if (emails.isEmpty()) {
-            return 0;
-        }
-
-        try {
-            String url = aiServiceBaseUrl + BATCH_EMBEDDING_ENDPOINT;
-
-            // Build request body
-            List<Map<String, Object>> emailsList = new ArrayList<>();
-            for (EmailKanbanStatus email : emails) {
-                Map<String, Object> emailData = new HashMap<>();
-                emailData.put("email_id", email.getEmailId());
-                emailData.put("subject", email.getSubject());
-                emailData.put("body", email.getPreview());
-                emailsList.add(emailData);
-            }
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("emails", emailsList);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            log.debug("Calling AI service at {} for batch embedding generation", url);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.POST, entity, String.class);
-
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                return parseAndSaveEmbeddings(response.getBody(), emails);
-            }
-
-            log.error("AI service batch embedding failed. Status: {}", response.getStatusCode());
-            return 0;
-
-        } catch (Exception e) {
-            log.error("Error generating batch embeddings via AI service: {}", e.getMessage(), e);
-            return 0;
-        }
-    }
-
-    /**
-     * Parse batch embedding response and save to database.
-     */
-    private int parseAndSaveEmbeddings(String responseBody, List<EmailKanbanStatus> emails) {
-        try {
-            JsonNode root = objectMapper.readTree(responseBody);
-            JsonNode embeddingsNode = root.path("embeddings");
-
-            // Create a map for quick lookup
-            Map<String, EmailKanbanStatus> emailMap = emails.stream()
-                    .collect(Collectors.toMap(EmailKanbanStatus::getEmailId, e -> e));
-
-            int generated = 0;
-            LocalDateTime now = LocalDateTime.now();
-
-            if (embeddingsNode.isArray()) {
-                for (JsonNode embeddingData : embeddingsNode) {
-                    String emailId = embeddingData.path("email_id").asText();
-                    JsonNode embeddingNode = embeddingData.path("embedding");
-
-                    EmailKanbanStatus email = emailMap.get(emailId);
-                    if (email != null && embeddingNode.isArray()) {
-                        List<Double> embedding = new ArrayList<>();
-                        for (JsonNode value : embeddingNode) {
-                            embedding.add(value.asDouble());
-                        }
-
-                        email.setEmbedding(embedding);
-                        email.setEmbeddingGeneratedAt(now);
-                        emailStatusRepository.save(email);
-                        generated++;
-                    }
-                }
-            }
-
-            log.info("Generated embeddings for {} emails via AI service", generated);
-            return generated;
-
-        } catch (Exception e) {
-            log.error("Error parsing batch embedding response: {}", e.getMessage());
-            return 0;
+        float[] embedding = embeddingProvider.embed(email.getSubject(), email.getPreview());
+        if (embedding == null) {
+            return false;
         }
+        // Same write path as the pipeline: only the embedding fields, plus the index and cache updates
+        return embeddingService.saveEmbeddings(
+                List.of(email), Map.of(email.getId(), embedding), embeddingProvider.getModel()) > 0;
     }
 
     private Map<String, String> getColumnNames(String userId) {
@@ -0,0 +1,682 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.EmbeddingVector;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.service.SearchResultCache.RankedHit;
+import com.hcmus.awad_email.util.HnswIndex;
+import com.hcmus.awad_email.util.QuantizedVectors;
+import com.hcmus.awad_email.util.SingleFlight;
+import com.hcmus.awad_email.util.TopK;
+import com.hcmus.awad_email.util.VectorKernels;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Per-user in-memory nearest-neighbour index over stored email embeddings, so semantic search
+ * only needs the query embedded remotely and ranks locally by cosine similarity.
+ *
+ * <p>Vectors are loaded from MongoDB on first search and kept compressed: optionally truncated
+ * to their leading {@code app.search.semantic.index-dimensions} dimensions (embedding models
+ * trained Matryoshka-style keep most of their quality in the prefix) and quantized to int8
+ * ({@link QuantizedVectors}). The compressed vectors only pick candidates; the final ranking
+ * re-scores those candidates with their full-precision embeddings loaded from MongoDB.
+ * Only embeddings of the current model are indexed (see {@link EmbeddingProvider#isCurrent}), so
+ * vectors of a previous model are never compared with queries while they are being re-embedded.
+ *
+ * <p>Small mailboxes are scanned exhaustively; from {@link #GRAPH_MIN_VECTORS} vectors on, an
+ * {@link HnswIndex} graph is built on a background thread and takes over once complete.
+ * Indexes are kept current by {@link EmailKanbanStatusEventListener}, rebuilt after
+ * {@link #MAX_INDEX_AGE_MS} to pick up writes from other instances or once replaced vectors
+ * dominate the graph, and evicted least-recently-used beyond {@link #MAX_CACHED_USERS}.
+ * Concurrent searches share one load per user, and card changes arriving while it runs are
+ * replayed onto the new index before it is published.
+ *
+ * <p>Each indexed email also keeps the card fields a {@link CardFilter} tests (column, received
+ * date, flags), so filtered searches select the matching emails first and only score those: as a
+ * slot mask over the int8 codes, scanned directly, or once the graph is built and the selection
+ * is large, as a filtered, widened walk of the graph.
+ */
+@Service
+@Slf4j
+public class VectorIndexService {
+
+    @Autowired
+    private EmailKanbanStatusRepository emailStatusRepository;
+
+    @Autowired
+    private EmbeddingProvider embeddingProvider;
+
+    @Value("${app.search.semantic.index-dimensions:0}")
+    private int indexDimensions;
+
+    private static final int MAX_CACHED_USERS = 20; // Vectors are large; keep fewer users than the text indexes
+    private static final long MAX_INDEX_AGE_MS = 10 * 60 * 1000L;
+    private static final int GRAPH_MIN_VECTORS = 5000; // Below this an exhaustive scan is as fast as the graph
+    private static final int EF_SEARCH = 100;
+    private static final int RERANK_FACTOR = 3; // Candidates re-scored per requested hit
+    private static final int RECALL_SAMPLE_QUERIES = 20;
+    private static final int RECALL_K = 10;
+    private static final int MAX_FILTERED_SCAN = 2000; // Larger filtered selections walk the graph instead
+    private static final int MAX_FILTERED_EF = 2000;
+
+    static final Set<String> VECTOR_FIELDS = Set.of("emailId", "embedding");
+    static final Set<String> FILTER_FIELDS = Set.of("columnId", "receivedAt", "isRead", "isStarred", "hasAttachments");
+    private static final Set<String> LOAD_FIELDS = Stream.concat(VECTOR_FIELDS.stream(), FILTER_FIELDS.stream())
+            .collect(Collectors.toUnmodifiableSet());
+
+    /**
+     * Restriction of a search to cards with the given properties; null or false components do not
+     * restrict.
+     *
+     * @param receivedAfter Inclusive lower bound of the received date
+     * @param receivedBefore Exclusive upper bound of the received date
+     */
+    public record CardFilter(String columnId, LocalDateTime receivedAfter, LocalDateTime receivedBefore,
+                             boolean unreadOnly, boolean starredOnly, boolean hasAttachmentsOnly) {
+
+        public static final CardFilter NONE = new CardFilter(null, null, null, false, false, false);
+
+        public boolean isEmpty() {
+            return equals(NONE);
+        }
+
+        boolean matches(CardFields card) {
+            if (card == null) {
+                return false;
+            }
+            if (columnId != null && !columnId.equals(card.columnId())) {
+                return false;
+            }
+            if (receivedAfter != null || receivedBefore != null) {
+                if (card.receivedAt() == null
+                        || (receivedAfter != null && card.receivedAt().isBefore(receivedAfter))
+                        || (receivedBefore != null && !card.receivedAt().isBefore(receivedBefore))) {
+                    return false;
+                }
+            }
+            return (!unreadOnly || !card.read())
+                    && (!starredOnly || card.starred())
+                    && (!hasAttachmentsOnly || card.hasAttachments());
+        }
+    }
+
+    /**
+     * The {@link #FILTER_FIELDS} of an indexed card.
+     */
+    private record CardFields(String columnId, LocalDateTime receivedAt, boolean read, boolean starred,
+                              boolean hasAttachments) {
+
+        static CardFields of(EmailKanbanStatus status) {
+            return new CardFields(status.getColumnId(), status.getReceivedAt(), status.isRead(),
+                    status.isStarred(), status.isHasAttachments());
+        }
+    }
+
+    private final Map<String, UserVectors> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UserVectors> eldest) {
+            return size() > MAX_CACHED_USERS;
+        }
+    };
+
+    // Changes seen while a user's index is being loaded, in arrival order; guarded by indexes.
+    // Each returns false if the index must be reloaded instead.
+    private final Map<String, List<Predicate<UserVectors>>> changesDuringLoad = new HashMap<>();
+
+    private final SingleFlight<String, UserVectors> loads = new SingleFlight<>();
+
+    private final ExecutorService graphBuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vector-index-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A user's index as loaded at one moment, so the counts and the hits of one search describe
+     * the same index even if it is rebuilt meanwhile.
+     */
+    public final class Snapshot {
+
+        private final String userId;
+        private final UserVectors index;
+
+        private Snapshot(String userId, UserVectors index) {
+            this.userId = userId;
+            this.index = index;
+        }
+
+        /**
+         * Number of emails of the user that have an indexed embedding.
+         */
+        public int vectorCount() {
+            return index.size();
+        }
+
+        /**
+         * Number of emails of the user that have no indexed embedding yet, as seen by the index:
+         * counted when it loads and kept up to date by {@link #upsert} and {@link #remove}.
+         */
+        public int unembeddedCount() {
+            return index.unembeddedCount();
+        }
+
+        /**
+         * Most similar emails to a query vector, best first.
+         *
+         * @param minScore Minimum cosine similarity of returned emails
+         * @return Hits whose score is the full-precision cosine similarity; empty if the query's
+         *         dimensions do not match the stored embeddings
+         */
+        public List<RankedHit> search(float[] query, int k, double minScore) {
+            return search(query, k, minScore, CardFilter.NONE);
+        }
+
+        /**
+         * Most similar emails to a query vector among the cards passing a filter, best first.
+         * The filter is applied before scoring, so filtered-out emails are never compared.
+         *
+         * @param minScore Minimum cosine similarity of returned emails
+         * @return Hits whose score is the full-precision cosine similarity; empty if the query's
+         *         dimensions do not match the stored embeddings
+         */
+        public List<RankedHit> search(float[] query, int k, double minScore, CardFilter filter) {
+            if (index.dimensions != query.length) {
+                if (index.dimensions > 0) {
+                    log.warn("Query embedding has {} dimensions, stored embeddings of user {} have {}",
+                            query.length, userId, index.dimensions);
+                }
+                return Collections.emptyList();
+            }
+
+            List<String> candidates = index.candidates(query, k * RERANK_FACTOR, filter);
+            if (candidates.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            // Cards removed since the candidates were picked are simply not found
+            Map<String, float[]> fullVectors = new HashMap<>();
+            for (EmailKanbanStatus status : emailStatusRepository.findByUserIdAndEmailIdInProjected(
+                    userId, candidates, VECTOR_FIELDS)) {
+                float[] vector = currentVector(status.getEmbedding());
+                if (vector != null && vector.length == query.length) {
+                    fullVectors.put(status.getEmailId(), vector);
+                }
+            }
+            return rerank(normalize(query), fullVectors, k, minScore);
+        }
+    }
+
+    /**
+     * The user's index, loading it first if it is not loaded or has expired.
+     */
+    public Snapshot snapshot(String userId) {
+        return new Snapshot(userId, getOrBuild(userId));
+    }
+
+    /**
+     * Reflect a saved card's embedding in its user's index, if that index is loaded or loading.
+     */
+    public void upsert(EmailKanbanStatus status) {
+        if (status.getUserId() == null || status.getEmailId() == null) {
+            return;
+        }
+        float[] vector = currentVector(status.getEmbedding());
+        CardFields fields = CardFields.of(status);
+        String emailId = status.getEmailId();
+        apply(status.getUserId(), index -> {
+            if (index.dimensions == 0) {
+                // First embedding of the user; reload to settle the dimensions
+                if (vector != null) {
+                    return false;
+                }
+                index.markUnembedded(emailId);
+                return true;
+            }
+            float[] indexed = vector != null && vector.length == index.dimensions ? index.truncate(vector) : null;
+            if (indexed != null) {
+                index.upsert(emailId, indexed, fields);
+            } else {
+                index.remove(emailId);
+                index.markUnembedded(emailId);
+            }
+            return !index.isDegraded();
+        });
+    }
+
+    /**
+     * Remove a card from its user's index, if that index is loaded or loading.
+     */
+    public void remove(String userId, String emailId) {
+        apply(userId, index -> {
+            index.remove(emailId);
+            return true;
+        });
+    }
+
+    /**
+     * Drop a user's index so the next search rebuilds it. A load in progress is not published.
+     */
+    public void invalidate(String userId) {
+        synchronized (indexes) {
+            indexes.remove(userId);
+            changesDuringLoad.remove(userId);
+        }
+    }
+
+    /**
+     * Drop every loaded index.
+     */
+    public void invalidateAll() {
+        synchronized (indexes) {
+            indexes.clear();
+            changesDuringLoad.clear();
+        }
+    }
+
+    @PostConstruct
+    public void logKernel() {
+        log.info("Vector similarity kernels: {}", VectorKernels.description());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        graphBuilder.shutdownNow();
+    }
+
+    private UserVectors getLoaded(String userId) {
+        synchronized (indexes) {
+            return indexes.get(userId);
+        }
+    }
+
+    /**
+     * Apply a change to the user's loaded index, and queue it for the index being loaded if any.
+     * Drops the loaded index if the change asks for a rebuild.
+     */
+    private void apply(String userId, Predicate<UserVectors> change) {
+        UserVectors index;
+        synchronized (indexes) {
+            List<Predicate<UserVectors>> pending = changesDuringLoad.get(userId);
+            if (pending != null) {
+                pending.add(change);
+            }
+            index = indexes.get(userId);
+        }
+        if (index != null && !change.test(index)) {
+            synchronized (indexes) {
+                indexes.remove(userId, index);
+            }
+        }
+    }
+
+    private UserVectors getOrBuild(String userId) {
+        UserVectors index = getLoaded(userId);
+        if (index != null && System.currentTimeMillis() - index.builtAt < MAX_INDEX_AGE_MS) {
+            return index;
+        }
+        return loads.execute(userId, () -> load(userId));
+    }
+
+    private UserVectors load(String userId) {
+        long start = System.currentTimeMillis();
+        synchronized (indexes) {
+            changesDuringLoad.put(userId, new ArrayList<>());
+        }
+        try {
+            Map<String, float[]> vectors = new LinkedHashMap<>();
+            Map<String, CardFields> fields = new HashMap<>();
+            Set<String> unembedded = new HashSet<>();
+            int dimensions = 0;
+            for (EmailKanbanStatus status : emailStatusRepository.findByUserIdProjected(userId, LOAD_FIELDS)) {
+                float[] vector = currentVector(status.getEmbedding());
+                if (vector == null) {
+                    unembedded.add(status.getEmailId());
+                    continue;
+                }
+                fields.put(status.getEmailId(), CardFields.of(status));
+                // Same model, but the dimensions may differ if they were configured; keep the first seen
+                if (dimensions == 0) {
+                    dimensions = vector.length;
+                }
+                if (vector.length == dimensions) {
+                    vectors.put(status.getEmailId(), vector);
+                } else {
+                    unembedded.add(status.getEmailId());
+                }
+            }
+
+            int stored = dimensions > 0 && indexDimensions > 0 ? Math.min(indexDimensions, dimensions) : dimensions;
+            UserVectors built = new UserVectors(dimensions, stored, vectors.size());
+            vectors.forEach((emailId, vector) -> {
+                float[] indexed = built.truncate(vector);
+                if (indexed != null) {
+                    built.upsert(emailId, indexed, fields.get(emailId));
+                } else {
+                    unembedded.add(emailId);
+                }
+            });
+            unembedded.forEach(built::markUnembedded);
+
+            boolean published = false;
+            synchronized (indexes) {
+                // Replay changes the read may have missed; upserts and removals are idempotent
+                List<Predicate<UserVectors>> changes = changesDuringLoad.remove(userId);
+                if (changes != null && changes.stream().allMatch(change -> change.test(built))) {
+                    indexes.put(userId, built);
+                    published = true;
+                }
+            }
+            log.debug("Loaded {} embeddings of user {} ({} of {} dimensions, int8) in {}ms",
+                    vectors.size(), userId, stored, dimensions, System.currentTimeMillis() - start);
+
+            if (log.isDebugEnabled() && vectors.size() > RECALL_K) {
+                log.debug("Recall@{} of compressed candidates for user {}: {}",
+                        RECALL_K, userId, String.format("%.3f", measureRecall(built, vectors)));
+            }
+
+            if (published && vectors.size() >= GRAPH_MIN_VECTORS) {
+                graphBuilder.execute(() -> buildGraph(userId, built));
+            }
+            return built;
+        } finally {
+            synchronized (indexes) {
+                changesDuringLoad.remove(userId);
+            }
+        }
+    }
+
+    /**
+     * Benchmark the compressed index against exact search, using a sample of the stored vectors
+     * as queries: the fraction of each exact top {@link #RECALL_K} that the candidate search
+     * followed by full-precision re-ranking also returns.
+     */
+    private static double measureRecall(UserVectors index, Map<String, float[]> vectors) {
+        List<float[]> all = new ArrayList<>(vectors.values());
+        int queries = Math.min(RECALL_SAMPLE_QUERIES, all.size());
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = all.get(q * all.size() / queries);
+
+            Set<String> exact = new HashSet<>();
+            for (RankedHit hit : rerank(query, vectors, RECALL_K, -1)) {
+                exact.add(hit.emailId());
+            }
+
+            Map<String, float[]> candidates = new HashMap<>();
+            for (String key : index.candidates(query, RECALL_K * RERANK_FACTOR)) {
+                candidates.put(key, vectors.get(key));
+            }
+            for (RankedHit hit : rerank(query, candidates, RECALL_K, -1)) {
+                if (exact.contains(hit.emailId())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (queries * RECALL_K);
+    }
+
+    private void buildGraph(String userId, UserVectors index) {
+        if (getLoaded(userId) != index) {
+            return; // Replaced or evicted while queued
+        }
+        long start = System.currentTimeMillis();
+        try {
+            index.buildGraph();
+            log.info("Built HNSW graph for user {} with {} vectors in {}ms",
+                    userId, index.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Failed to build HNSW graph for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Exact top-k of unit-length vectors against a unit-length query.
+     */
+    private static List<RankedHit> rerank(float[] query, Map<String, float[]> vectors, int k, double minScore) {
+        TopK<RankedHit> best = new TopK<>(k, Comparator.comparingDouble(RankedHit::score));
+        for (Map.Entry<String, float[]> entry : vectors.entrySet()) {
+            double similarity = VectorKernels.dot(query, entry.getValue());
+            if (similarity >= minScore) {
+                best.offer(new RankedHit(entry.getKey(), similarity, null));
+            }
+        }
+        return best.toSortedList();
+    }
+
+    /**
+     * Unit-length copy of a stored embedding, or null if it is missing, all zeros or from another model.
+     */
+    private float[] currentVector(EmbeddingVector embedding) {
+        return embedding != null && embeddingProvider.isCurrent(embedding) ? toVector(embedding) : null;
+    }
+
+    /**
+     * Unit-length copy of a stored embedding, or null if it is missing or all zeros.
+     */
+    private static float[] toVector(EmbeddingVector embedding) {
+        if (embedding == null || embedding.isEmpty()) {
+            return null;
+        }
+        float[] vector = normalize(embedding.getValues());
+        return vector.length > 0 ? vector : null;
+    }
+
+    /**
+     * Unit-length copy of a vector; empty if the vector is all zeros.
+     */
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return new float[0];
+        }
+        float[] normalized = new float[vector.length];
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    /**
+     * Compressed vectors of one user: int8 codes scanned exhaustively, plus the HNSW graph once
+     * built. The codes stay the only copy of the vectors; the graph holds links between their
+     * slots and scores on the codes too.
+     */
+    private static final class UserVectors {
+
+        final long builtAt = System.currentTimeMillis();
+        final int dimensions; // Of the stored embeddings; 0 if the user has none yet
+        final int indexedDimensions; // Leading dimensions kept in memory
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        final QuantizedVectors codes; // Null if the user has no embeddings yet
+        HnswIndex graph; // Receives updates while being built
+        boolean graphReady;
+        final Map<String, CardFields> cardFields = new HashMap<>(); // Of every indexed email
+        final Set<String> unembedded = new HashSet<>(); // Emails of the user without an indexed vector
+
+        UserVectors(int dimensions, int indexedDimensions, int expectedSize) {
+            this.dimensions = dimensions;
+            this.indexedDimensions = indexedDimensions;
+            this.codes = indexedDimensions > 0 ? new QuantizedVectors(indexedDimensions, expectedSize) : null;
+        }
+
+        /**
+         * The part of a full-length vector kept in memory, or null if that part is all zeros.
+         */
+        float[] truncate(float[] vector) {
+            if (indexedDimensions == 0) {
+                return null;
+            }
+            float[] prefix = normalize(Arrays.copyOf(vector, indexedDimensions));
+            return prefix.length > 0 ? prefix : null;
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return codes != null ? codes.size() : 0;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int unembeddedCount() {
+            lock.readLock().lock();
+            try {
+                return unembedded.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void markUnembedded(String emailId) {
+            lock.writeLock().lock();
+            try {
+                unembedded.add(emailId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Whether replaced vectors dominate the graph and it should be rebuilt.
+         */
+        boolean isDegraded() {
+            lock.readLock().lock();
+            try {
+                return graphReady && graph.deletedCount() > graph.size() / 4 + GRAPH_MIN_VECTORS / 10;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * @param vector Output of {@link #truncate}
+         */
+        void upsert(String emailId, float[] vector, CardFields fields) {
+            lock.writeLock().lock();
+            try {
+                unembedded.remove(emailId);
+                cardFields.put(emailId, fields);
+                codes.add(emailId, vector);
+                if (graph != null) {
+                    graph.add(emailId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String emailId) {
+            lock.writeLock().lock();
+            try {
+                unembedded.remove(emailId);
+                cardFields.remove(emailId);
+                if (graph != null) {
+                    graph.remove(emailId);
+                }
+                if (codes != null) {
+                    codes.remove(emailId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Link every vector into a new graph over the codes. Runs off the request path; concurrent
+         * updates go to both the codes and the graph, and each vector is linked as it is at that
+         * moment, so the finished graph matches the codes.
+         */
+        void buildGraph() {
+            List<String> keys;
+            lock.writeLock().lock();
+            try {
+                graph = new HnswIndex(codes);
+                keys = codes.keys();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            for (String key : keys) {
+                lock.readLock().lock();
+                try {
+                    if (codes.slot(key) >= 0) {
+                        graph.add(key);
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                graphReady = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Approximately most similar emails to a full-length query, best first.
+         */
+        List<String> candidates(float[] query, int n) {
+            return candidates(query, n, CardFilter.NONE);
+        }
+
+        /**
+         * Approximately most similar emails to a full-length query among those passing a filter,
+         * best first.
+         */
+        List<String> candidates(float[] query, int n, CardFilter filter) {
+            float[] prefix = truncate(query);
+            if (prefix == null) {
+                return Collections.emptyList();
+            }
+            lock.readLock().lock();
+            try {
+                List<String> keys = new ArrayList<>(n);
+                if (filter.isEmpty()) {
+                    if (graphReady) {
+                        graph.search(prefix, n, Math.max(EF_SEARCH, n)).forEach(match -> keys.add(match.key()));
+                    } else {
+                        codes.search(prefix, n).forEach(match -> keys.add(match.key()));
+                    }
+                } else {
+                    BitSet slots = codes.select(emailId -> filter.matches(cardFields.get(emailId)));
+                    int selected = slots.cardinality();
+                    if (!graphReady || selected <= MAX_FILTERED_SCAN) {
+                        codes.search(prefix, n, slots).forEach(match -> keys.add(match.key()));
+                    } else {
+                        // A walk meets matching nodes at the selection's rate; widen the beam to compensate
+                        long ef = (long) Math.max(EF_SEARCH, n) * codes.size() / selected;
+                        graph.search(prefix, n, (int) Math.min(ef, MAX_FILTERED_EF),
+                                        emailId -> filter.matches(cardFields.get(emailId)))
+                                .forEach(match -> keys.add(match.key()));
+                    }
+                }
+                return keys;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.hcmus.awad_email.util;
+
+/**
+ * Levenshtein distance against a fixed pattern, computed only up to a maximum distance.
+ * Compile the pattern once and reuse the instance for every candidate string.
+ *
+ * <p>Patterns of up to 64 characters use the Myers/Hyyrö bit-parallel algorithm, which
+ * processes one text character per handful of word operations. Longer patterns fall back to a
+ * dynamic programme restricted to the diagonal band of width {@code 2 * maxDistance + 1},
+ * using per-thread reusable rows. Both stop as soon as the distance is known to exceed the
+ * bound. Instances are immutable and thread-safe.
+ */
+public final class BoundedLevenshtein {
+
+    private static final int MAX_BIT_PARALLEL_LENGTH = 64;
+    private static final int ASCII_SIZE = 128;
+    private static final int UNBOUNDED = Integer.MAX_VALUE / 2;
+
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][64]);
+
+    private final String pattern;
+    private final int maxDistance;
+
+    // Bit-parallel match masks: bit i is set where pattern[i] == c
+    private final long[] asciiMasks;
+    private final char[] otherChars;
+    private final long[] otherMasks;
+    private final long lastBit;
+
+    private BoundedLevenshtein(String pattern, int maxDistance) {
+        this.pattern = pattern;
+        this.maxDistance = maxDistance;
+
+        int m = pattern.length();
+        if (m == 0 || m > MAX_BIT_PARALLEL_LENGTH) {
+            asciiMasks = null;
+            otherChars = null;
+            otherMasks = null;
+            lastBit = 0;
+            return;
+        }
+
+        asciiMasks = new long[ASCII_SIZE];
+        String others = pattern.chars()
+                .filter(c -> c >= ASCII_SIZE)
+                .distinct()
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString();
+        otherChars = others.toCharArray();
+        otherMasks = new long[otherChars.length];
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            if (c < ASCII_SIZE) {
+                asciiMasks[c] |= 1L << i;
+            } else {
+                otherMasks[others.indexOf(c)] |= 1L << i;
+            }
+        }
+        lastBit = 1L << (m - 1);
+    }
+
+    /**
+     * Compile a pattern for repeated bounded distance checks.
+     *
+     * @param maxDistance Largest distance that needs to be reported exactly
+     */
+    public static BoundedLevenshtein compile(String pattern, int maxDistance) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("pattern must not be null");
+        }
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative");
+        }
+        return new BoundedLevenshtein(pattern, maxDistance);
+    }
+
+    /**
+     * Compile a pattern whose distances are always reported exactly, e.g. for metric-tree
+     * traversal. Still benefits from the precompiled masks, but never exits early.
+     */
+    public static BoundedLevenshtein unbounded(String pattern) {
+        return compile(pattern, UNBOUNDED);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Whether the text is within {@code maxDistance} edits of the pattern.
+     */
+    public boolean matches(String text) {
+        return distance(text) <= maxDistance;
+    }
+
+    /**
+     * Edit distance between the pattern and the text.
+     *
+     * @return The exact distance when it is at most {@code maxDistance}, otherwise {@code maxDistance + 1}
+     */
+    public int distance(String text) {
+        int m = pattern.length();
+        int n = text.length();
+        if (Math.abs(m - n) > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (m == 0 || n == 0) {
+            return Math.max(m, n);
+        }
+        return asciiMasks != null ? bitParallel(text) : banded(text);
+    }
+
+    private int bitParallel(String text) {
+        int n = text.length();
+        long pv = -1L;
+        long mv = 0L;
+        int score = pattern.length();
+
+        for (int j = 0; j < n; j++) {
+            long eq = mask(text.charAt(j));
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+
+            if ((ph & lastBit) != 0) {
+                score++;
+            } else if ((mh & lastBit) != 0) {
+                score--;
+            }
+            // The last row can drop by at most one per remaining character
+            if (score - (n - j - 1) > maxDistance) {
+                return maxDistance + 1;
+            }
+
+            ph = (ph << 1) | 1L;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return Math.min(score, maxDistance + 1);
+    }
+
+    private long mask(char c) {
+        if (c < ASCII_SIZE) {
+            return asciiMasks[c];
+        }
+        for (int i = 0; i < otherChars.length; i++) {
+            if (otherChars[i] == c) {
+                return otherMasks[i];
+            }
+        }
+        return 0L;
+    }
+
+    private int banded(String text) {
+        int m = pattern.length();
+        int n = text.length();
+        int k = maxDistance;
+        int outside = k + 1;
+
+        int[][] rows = ROWS.get();
+        if (rows[0].length < m + 1) {
+            rows = new int[][]{new int[m + 1], new int[m + 1]};
+            ROWS.set(rows);
+        }
+        int[] prev = rows[0];
+        int[] cur = rows[1];
+
+        for (int j = 0; j <= m; j++) {
+            prev[j] = Math.min(j, outside);
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int lo = Math.max(1, i - k);
+            int hi = Math.min(m, i + k);
+            char c = text.charAt(i - 1);
+
+            cur[lo - 1] = lo == 1 ? Math.min(i, outside) : outside;
+            int rowMin = cur[lo - 1];
+            for (int j = lo; j <= hi; j++) {
+                int cost = pattern.charAt(j - 1) == c ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                value = Math.min(value, outside);
+                cur[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (hi < m) {
+                cur[hi + 1] = outside;
+            }
+            if (rowMin > k) {
+                return outside;
+            }
+
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return prev[m];
+    }
+}
@@ -0,0 +1,467 @@
+package com.hcmus.awad_email.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory approximate nearest-neighbour index using a Hierarchical Navigable Small World
+ * graph (Malkov &amp; Yashunin), ranking by cosine similarity.
+ *
+ * <p>The graph holds no vectors of its own: each node is a slot of a {@link QuantizedVectors}
+ * store, and every similarity, while inserting and while searching, is computed on the int8
+ * codes. Each node lives on a random number of layers; searches descend greedily through the
+ * sparse upper layers and run a beam search of width {@code ef} on the bottom layer, visiting a
+ * small fraction of the nodes. Re-adding a key links its current vector as a new node; removed
+ * and replaced nodes stay in the graph as routing points through their old slot (which the store
+ * may since have reused) but are never returned, so callers should rebuild once
+ * {@link #deletedCount()} grows large.
+ *
+ * <p>Searches run concurrently, inserts and removals are exclusive. The store is read without
+ * locking, so callers must not modify it while a graph operation runs.
+ */
+public final class HnswIndex {
+
+    /**
+     * A search hit.
+     */
+    public record Match(String key, float similarity) {}
+
+    private static final int DEFAULT_M = 16;
+    private static final int DEFAULT_EF_CONSTRUCTION = 100;
+
+    private final QuantizedVectors vectors;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deleted;
+
+    private static final class Node {
+        private final String key;
+        private final int slot; // In the store
+        private final int[][] neighbours; // Per layer, first sizes[layer] entries are valid
+        private final float[][] linkSimilarities; // Similarity to each neighbour, parallel to neighbours
+        private final int[] sizes;
+        private boolean deleted;
+
+        private Node(String key, int slot, int level, int m, int maxM0) {
+            this.key = key;
+            this.slot = slot;
+            this.neighbours = new int[level + 1][];
+            this.linkSimilarities = new float[level + 1][];
+            this.sizes = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                int capacity = overflowLimit(layer == 0 ? maxM0 : m) + 1;
+                neighbours[layer] = new int[capacity];
+                linkSimilarities[layer] = new float[capacity];
+            }
+        }
+
+        private int level() {
+            return neighbours.length - 1;
+        }
+    }
+
+    private record Candidate(int id, float similarity) {}
+
+    private static final Comparator<Candidate> CLOSEST_FIRST =
+            Comparator.comparingDouble((Candidate candidate) -> candidate.similarity).reversed();
+    private static final Comparator<Candidate> FURTHEST_FIRST =
+            Comparator.comparingDouble(candidate -> candidate.similarity);
+
+    /**
+     * @param vectors Store holding the vectors of the keys that will be added
+     */
+    public HnswIndex(QuantizedVectors vectors) {
+        this(vectors, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    /**
+     * @param vectors Store holding the vectors of the keys that will be added
+     * @param m Links per node on the upper layers (twice as many on the bottom layer)
+     * @param efConstruction Beam width used while inserting; higher builds a better graph, slower
+     */
+    public HnswIndex(QuantizedVectors vectors, int m, int efConstruction) {
+        if (vectors == null || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("Invalid HNSW parameters");
+        }
+        this.vectors = vectors;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    public int dimensions() {
+        return vectors.dimensions();
+    }
+
+    /**
+     * Number of searchable vectors.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size() - deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of removed or replaced vectors still held as routing points.
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Link a key's vector, as currently held by the store, replacing any earlier node of the key.
+     *
+     * @throws IllegalArgumentException If the store does not hold the key
+     */
+    public void add(String key) {
+        int slot = vectors.slot(key);
+        if (slot < 0) {
+            throw new IllegalArgumentException("No stored vector for " + key);
+        }
+        float[] vector = new float[vectors.dimensions()]; // Unit length up to quantization error
+        vectors.decode(slot, vector);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+
+            int id = nodes.size();
+            int level = randomLevel();
+            Node node = new Node(key, slot, level, m, maxM0);
+            nodes.add(node);
+            idsByKey.put(key, id);
+
+            if (entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return;
+            }
+
+            int current = entryPoint;
+            float currentSimilarity = similarity(vector, current);
+            for (int layer = maxLevel; layer > level; layer--) {
+                Candidate closest = greedyClosest(vector, current, currentSimilarity, layer);
+                current = closest.id;
+                currentSimilarity = closest.similarity;
+            }
+
+            float[] buffer = new float[vector.length];
+            List<Candidate> entryPoints = List.of(new Candidate(current, currentSimilarity));
+            for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+                List<Candidate> found = searchLayer(vector, entryPoints, efConstruction, layer);
+                int maxDegree = layer == 0 ? maxM0 : m;
+                for (Candidate neighbour : selectNeighbours(found, maxDegree, buffer)) {
+                    link(id, neighbour.id, neighbour.similarity, layer);
+                    link(neighbour.id, id, neighbour.similarity, layer);
+                    if (nodes.get(neighbour.id).sizes[layer] > overflowLimit(maxDegree)) {
+                        prune(neighbour.id, layer, maxDegree, buffer);
+                    }
+                }
+                entryPoints = found;
+            }
+
+            if (level > maxLevel) {
+                entryPoint = id;
+                maxLevel = level;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop returning a key's vector.
+     *
+     * @return Whether the key was present
+     */
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate {@code k} most similar vectors to the query, most similar first.
+     *
+     * @param ef Beam width on the bottom layer (at least {@code k}); higher is more accurate, slower
+     */
+    public List<Match> search(float[] query, int k, int ef) {
+        return search(query, k, ef, null);
+    }
+
+    /**
+     * Approximate {@code k} most similar vectors to the query that pass a filter, most similar first.
+     * The walk still routes through excluded nodes, so callers should widen {@code ef} by the
+     * inverse of the filter's selectivity; for very selective filters a masked scan of the store
+     * ({@link QuantizedVectors#search(float[], int, BitSet)}) is faster.
+     *
+     * @param filter Keys that may be returned, or null for all
+     */
+    public List<Match> search(float[] query, int k, int ef, Predicate<String> filter) {
+        if (k <= 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+
+            int current = entryPoint;
+            float currentSimilarity = similarity(normalized, current);
+            for (int layer = maxLevel; layer > 0; layer--) {
+                Candidate closest = greedyClosest(normalized, current, currentSimilarity, layer);
+                current = closest.id;
+                currentSimilarity = closest.similarity;
+            }
+
+            // Widen the beam by the tombstones so removed nodes do not crowd out live ones
+            int beam = Math.max(ef, k) + Math.min(deleted, Math.max(ef, k));
+            List<Candidate> found = searchLayer(normalized, List.of(new Candidate(current, currentSimilarity)),
+                    beam, 0);
+
+            List<Match> matches = new ArrayList<>(Math.min(k, found.size()));
+            for (Candidate candidate : found) {
+                Node node = nodes.get(candidate.id);
+                if (!node.deleted && (filter == null || filter.test(node.key))) {
+                    matches.add(new Match(node.key, candidate.similarity));
+                    if (matches.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(String key) {
+        Integer id = idsByKey.remove(key);
+        if (id == null) {
+            return false;
+        }
+        nodes.get(id).deleted = true;
+        deleted++;
+        return true;
+    }
+
+    /**
+     * Links a node may collect before being pruned back to {@code maxDegree}; the slack lets one
+     * heuristic pass absorb several new links instead of running on every insert.
+     */
+    private static int overflowLimit(int maxDegree) {
+        return maxDegree + maxDegree / 2;
+    }
+
+    private int randomLevel() {
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        return (int) Math.floor(-Math.log(random) * levelMultiplier);
+    }
+
+    /**
+     * Follow links on one layer towards the query until no neighbour is closer.
+     */
+    private Candidate greedyClosest(float[] query, int start, float startSimilarity, int layer) {
+        int current = start;
+        float best = startSimilarity;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.sizes[layer]; i++) {
+                int neighbour = node.neighbours[layer][i];
+                float similarity = similarity(query, neighbour);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return new Candidate(current, best);
+    }
+
+    /**
+     * Beam search on one layer.
+     *
+     * @return Up to {@code ef} closest nodes found, closest first
+     */
+    private List<Candidate> searchLayer(float[] query, List<Candidate> entryPoints, int ef, int layer) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(CLOSEST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(FURTHEST_FIRST);
+
+        for (Candidate entry : entryPoints) {
+            if (!visited.get(entry.id)) {
+                visited.set(entry.id);
+                toVisit.add(entry);
+                results.add(entry);
+            }
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+
+        while (!toVisit.isEmpty()) {
+            Candidate closest = toVisit.poll();
+            if (results.size() >= ef && closest.similarity < results.peek().similarity) {
+                break; // Every remaining candidate is further than the worst result
+            }
+
+            Node node = nodes.get(closest.id);
+            for (int i = 0; i < node.sizes[layer]; i++) {
+                int neighbour = node.neighbours[layer][i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                float similarity = similarity(query, neighbour);
+                if (results.size() < ef || similarity > results.peek().similarity) {
+                    Candidate candidate = new Candidate(neighbour, similarity);
+                    toVisit.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> found = new ArrayList<>(results);
+        found.sort(CLOSEST_FIRST);
+        return found;
+    }
+
+    /**
+     * Neighbour selection heuristic: prefer candidates that are closer to the base than to any
+     * neighbour already chosen, which keeps links spread across directions; top up with the
+     * closest of the rest.
+     *
+     * @param candidates Candidates sorted closest first, with similarities to the base
+     * @param buffer Scratch space of {@link #dimensions()} values
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int maxDegree, float[] buffer) {
+        if (candidates.size() <= maxDegree) {
+            return candidates;
+        }
+
+        List<Candidate> selected = new ArrayList<>(maxDegree);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() == maxDegree) {
+                break;
+            }
+            if (selected.isEmpty()) {
+                selected.add(candidate);
+                continue;
+            }
+            vectors.decode(nodes.get(candidate.id).slot, buffer);
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (similarity(buffer, chosen.id) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < maxDegree; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    private void link(int from, int to, float similarity, int layer) {
+        Node node = nodes.get(from);
+        int slot = node.sizes[layer]++;
+        node.neighbours[layer][slot] = to;
+        node.linkSimilarities[layer][slot] = similarity;
+    }
+
+    /**
+     * Reduce a node's links on one layer back to the maximum degree with the neighbour selection
+     * heuristic. Base similarities come from the stored link similarities.
+     */
+    private void prune(int id, int layer, int maxDegree, float[] buffer) {
+        Node node = nodes.get(id);
+        int[] links = node.neighbours[layer];
+        float[] similarities = node.linkSimilarities[layer];
+
+        List<Candidate> candidates = new ArrayList<>(node.sizes[layer]);
+        for (int i = 0; i < node.sizes[layer]; i++) {
+            candidates.add(new Candidate(links[i], similarities[i]));
+        }
+        candidates.sort(CLOSEST_FIRST);
+
+        node.sizes[layer] = 0;
+        for (Candidate kept : selectNeighbours(candidates, maxDegree, buffer)) {
+            int slot = node.sizes[layer]++;
+            links[slot] = kept.id;
+            similarities[slot] = kept.similarity;
+        }
+    }
+
+    private float[] normalize(float[] vector) {
+        int dimensions = vectors.dimensions();
+        if (vector == null || vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected a vector of " + dimensions + " dimensions");
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            throw new IllegalArgumentException("Cannot index a zero vector");
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    /**
+     * Similarity of a unit-length vector to a node, on the node's int8 codes.
+     */
+    private float similarity(float[] unitVector, int id) {
+        return vectors.similarity(unitVector, nodes.get(id).slot);
+    }
+}
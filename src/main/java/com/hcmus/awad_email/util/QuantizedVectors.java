@@ -0,0 +1,274 @@
+package com.hcmus.awad_email.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Compact store of unit-length vectors as int8 codes, for approximate cosine similarity scans.
+ *
+ * <p>Each vector is scaled symmetrically so its largest component maps to 127 in magnitude,
+ * taking one byte per dimension plus one float scale instead of four bytes per dimension.
+ * Queries stay in full precision and are scored against the codes directly. Scores are accurate
+ * to about 1% of the similarity, which is enough to pick candidates; callers should re-rank the
+ * candidates with the original vectors.
+ *
+ * <p>Codes are packed into one contiguous array of slots. A vector keeps its slot until it is
+ * removed, and re-adding a key overwrites its slot in place, so other structures (such as an
+ * {@link HnswIndex} graph) can refer to vectors by slot. Freed slots are reused by later adds;
+ * scans skip them. Not thread-safe.
+ */
+public final class QuantizedVectors {
+
+    /**
+     * An approximate search hit.
+     */
+    public record Match(String key, float similarity) {}
+
+    private final int dimensions;
+    private final Map<String, Integer> slotsByKey = new HashMap<>();
+    private String[] keys; // Null for free slots
+    private byte[] codes;
+    private float[] scales;
+    private int slots; // Slots in use or freed; the rest of the arrays is spare capacity
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+
+    public QuantizedVectors(int dimensions) {
+        this(dimensions, 16);
+    }
+
+    public QuantizedVectors(int dimensions, int initialCapacity) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be positive");
+        }
+        int capacity = Math.max(1, initialCapacity);
+        this.dimensions = dimensions;
+        this.keys = new String[capacity];
+        this.codes = new byte[capacity * dimensions];
+        this.scales = new float[capacity];
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Number of stored vectors.
+     */
+    public int size() {
+        return slotsByKey.size();
+    }
+
+    /**
+     * Upper bound of the slot numbers handed out so far.
+     */
+    public int slotCount() {
+        return slots;
+    }
+
+    /**
+     * Add a vector, replacing any vector stored under the same key in its slot.
+     *
+     * @return The vector's slot
+     * @throws IllegalArgumentException if the vector has the wrong dimensions or is all zeros
+     */
+    public int add(String key, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        double norm = 0;
+        float maxAbs = 0;
+        for (float value : vector) {
+            norm += value * value;
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        if (norm == 0) {
+            throw new IllegalArgumentException("Cannot index a zero vector");
+        }
+
+        Integer existing = slotsByKey.get(key);
+        int slot;
+        if (existing != null) {
+            slot = existing;
+        } else {
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                ensureCapacity(slots + 1);
+                slot = slots++;
+            }
+            keys[slot] = key;
+            slotsByKey.put(key, slot);
+        }
+
+        // Code = round(value / maxAbs * 127); the stored scale folds in the normalization
+        float step = maxAbs / 127;
+        int base = slot * dimensions;
+        for (int i = 0; i < dimensions; i++) {
+            codes[base + i] = (byte) Math.round(vector[i] / step);
+        }
+        scales[slot] = (float) (step / Math.sqrt(norm));
+        return slot;
+    }
+
+    /**
+     * Remove a vector and free its slot.
+     *
+     * @return Whether the key was stored
+     */
+    public boolean remove(String key) {
+        Integer slot = slotsByKey.remove(key);
+        if (slot == null) {
+            return false;
+        }
+        keys[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(8, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    /**
+     * @return The key's slot, or -1 if the key is not stored
+     */
+    public int slot(String key) {
+        Integer slot = slotsByKey.get(key);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * @return The key stored in a slot, or null if the slot is free
+     */
+    public String key(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Reconstruct a stored vector from its codes, unit length up to quantization error.
+     *
+     * @return The vector, or null if the key is not stored
+     */
+    public float[] get(String key) {
+        Integer slot = slotsByKey.get(key);
+        if (slot == null) {
+            return null;
+        }
+        float[] vector = new float[dimensions];
+        decode(slot, vector);
+        return vector;
+    }
+
+    /**
+     * Reconstruct the vector of a slot into a buffer of {@link #dimensions()} values.
+     */
+    public void decode(int slot, float[] into) {
+        int base = slot * dimensions;
+        float scale = scales[slot];
+        for (int i = 0; i < dimensions; i++) {
+            into[i] = codes[base + i] * scale;
+        }
+    }
+
+    /**
+     * Approximate cosine similarity of a unit-length query to the vector of a slot, computed on
+     * the int8 codes.
+     */
+    public float similarity(float[] unitQuery, int slot) {
+        return VectorKernels.dot(unitQuery, codes, slot) * scales[slot];
+    }
+
+    /**
+     * Keys of all stored vectors, in slot order.
+     */
+    public List<String> keys() {
+        List<String> result = new ArrayList<>(size());
+        for (int slot = 0; slot < slots; slot++) {
+            if (keys[slot] != null) {
+                result.add(keys[slot]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Slots of the vectors whose key passes a filter, as a mask for {@link #search(float[], int, BitSet)}.
+     * Only valid until the next add or remove.
+     */
+    public BitSet select(Predicate<String> filter) {
+        BitSet selected = new BitSet(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            if (keys[slot] != null && filter.test(keys[slot])) {
+                selected.set(slot);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Approximately most similar vectors to a query, best first.
+     *
+     * @param query Query vector, need not be normalized
+     * @param n Number of hits to return
+     */
+    public List<Match> search(float[] query, int n) {
+        return search(query, n, null);
+    }
+
+    /**
+     * Approximately most similar vectors to a query among the selected slots, best first.
+     * Only the selected slots are scored.
+     *
+     * @param query Query vector, need not be normalized
+     * @param n Number of hits to return
+     * @param selected Mask from {@link #select}, or null to search all vectors
+     */
+    public List<Match> search(float[] query, int n, BitSet selected) {
+        if (query.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + query.length);
+        }
+        double norm = 0;
+        for (float value : query) {
+            norm += value * value;
+        }
+        TopK<Match> best = new TopK<>(n, Comparator.comparingDouble(Match::similarity));
+        if (norm == 0 || n == 0) {
+            return best.toSortedList();
+        }
+        float queryScale = (float) (1 / Math.sqrt(norm));
+
+        if (selected == null) {
+            float[] scores = new float[slots];
+            VectorKernels.dotAll(query, codes, slots, scores);
+            for (int slot = 0; slot < slots; slot++) {
+                if (keys[slot] != null) {
+                    best.offer(new Match(keys[slot], scores[slot] * scales[slot] * queryScale));
+                }
+            }
+        } else {
+            for (int slot = selected.nextSetBit(0); slot >= 0 && slot < slots; slot = selected.nextSetBit(slot + 1)) {
+                if (keys[slot] != null) {
+                    float score = VectorKernels.dot(query, codes, slot);
+                    best.offer(new Match(keys[slot], score * scales[slot] * queryScale));
+                }
+            }
+        }
+        return best.toSortedList();
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= keys.length) {
+            return;
+        }
+        int capacity = Math.max(required, keys.length + (keys.length >> 1));
+        keys = Arrays.copyOf(keys, capacity);
+        scales = Arrays.copyOf(scales, capacity);
+        codes = Arrays.copyOf(codes, capacity * dimensions);
+    }
+}
@@ -0,0 +1,34 @@
+package com.hcmus.awad_email.util;
+
+/**
+ * Portable {@link VectorKernels} implementation using plain loops.
+ */
+final class ScalarVectorKernel implements VectorKernels.Kernel {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] query, byte[] codes, int codesOffset, int length) {
+        return dotCodes(query, 0, codes, codesOffset, length);
+    }
+
+    @Override
+    public String description() {
+        return "scalar";
+    }
+
+    static float dotCodes(float[] query, int queryOffset, byte[] codes, int codesOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += query[queryOffset + i] * codes[codesOffset + i];
+        }
+        return sum;
+    }
+}
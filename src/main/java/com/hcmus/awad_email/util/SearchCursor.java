@@ -0,0 +1,66 @@
+package com.hcmus.awad_email.util;
+
+import com.hcmus.awad_email.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursors for search results.
+ * A cursor records the search mode, a fingerprint of the query it belongs to and the
+ * offset of the next page; clients pass it back unchanged together with the same query.
+ */
+public final class SearchCursor {
+
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = ":";
+
+    private SearchCursor() {
+    }
+
+    /**
+     * Cursor pointing at the given offset of a query's results.
+     */
+    public static String encode(String mode, String queryKey, int offset) {
+        String raw = String.join(SEPARATOR, VERSION, mode, fingerprint(queryKey), Integer.toString(offset));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Offset encoded in a cursor, or 0 when no cursor is given.
+     *
+     * @throws BadRequestException If the cursor is malformed or belongs to a different query or mode
+     */
+    public static int decodeOffset(String cursor, String mode, String queryKey) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid search cursor");
+        }
+        if (parts.length != 4 || !VERSION.equals(parts[0])) {
+            throw new BadRequestException("Invalid search cursor");
+        }
+        if (!mode.equals(parts[1]) || !fingerprint(queryKey).equals(parts[2])) {
+            throw new BadRequestException("Search cursor does not match this query");
+        }
+        try {
+            int offset = Integer.parseInt(parts[3]);
+            if (offset < 0) {
+                throw new BadRequestException("Invalid search cursor");
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid search cursor");
+        }
+    }
+
+    private static String fingerprint(String queryKey) {
+        return Integer.toHexString(queryKey.hashCode());
+    }
+}
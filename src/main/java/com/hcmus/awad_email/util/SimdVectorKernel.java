@@ -0,0 +1,75 @@
+package com.hcmus.awad_email.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorKernels} implementation on the Vector API, using the widest SIMD registers of
+ * the CPU. Only loaded when the {@code jdk.incubator.vector} module is present.
+ */
+final class SimdVectorKernel implements VectorKernels.Kernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    // Bytes with as many lanes as FLOATS, widened to floats in one step; null on CPUs whose
+    // float vectors have fewer than 8 lanes, where int8 codes use the scalar loop
+    private static final VectorSpecies<Byte> BYTES = FLOATS.length() * Byte.SIZE >= 64
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(FLOATS.length() * Byte.SIZE))
+            : null;
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        int lanes = FLOATS.length();
+        int i = 0;
+
+        // Two independent accumulators hide the latency of the fused multiply-adds
+        FloatVector sum1 = FloatVector.zero(FLOATS);
+        FloatVector sum2 = FloatVector.zero(FLOATS);
+        for (int bound = length - 2 * lanes; i <= bound; i += 2 * lanes) {
+            sum1 = FloatVector.fromArray(FLOATS, a, aOffset + i)
+                    .fma(FloatVector.fromArray(FLOATS, b, bOffset + i), sum1);
+            sum2 = FloatVector.fromArray(FLOATS, a, aOffset + i + lanes)
+                    .fma(FloatVector.fromArray(FLOATS, b, bOffset + i + lanes), sum2);
+        }
+        for (int bound = length - lanes; i <= bound; i += lanes) {
+            sum1 = FloatVector.fromArray(FLOATS, a, aOffset + i)
+                    .fma(FloatVector.fromArray(FLOATS, b, bOffset + i), sum1);
+        }
+
+        float sum = sum1.add(sum2).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] query, byte[] codes, int codesOffset, int length) {
+        if (BYTES == null) {
+            return ScalarVectorKernel.dotCodes(query, 0, codes, codesOffset, length);
+        }
+        int lanes = FLOATS.length();
+        int i = 0;
+
+        FloatVector sum1 = FloatVector.zero(FLOATS);
+        for (int bound = length - lanes; i <= bound; i += lanes) {
+            FloatVector widened = (FloatVector) ByteVector.fromArray(BYTES, codes, codesOffset + i)
+                    .convertShape(VectorOperators.B2F, FLOATS, 0);
+            sum1 = FloatVector.fromArray(FLOATS, query, i).fma(widened, sum1);
+        }
+
+        float sum = sum1.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += query[i] * codes[codesOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String description() {
+        return "SIMD (" + FLOATS.vectorBitSize() + "-bit)";
+    }
+}
@@ -0,0 +1,94 @@
+package com.hcmus.awad_email.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls that share a key into a single execution.
+ * The first caller runs the task; callers arriving while it is in flight
+ * wait for and share its result (or its exception).
+ * Nothing is cached: once the task finishes, the next call runs it again.
+ *
+ * @param <K> Key identifying identical calls
+ * @param <V> Result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run the task, or attach to the in-flight execution for the same key.
+     */
+    public V execute(K key, Supplier<V> task) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            V result = task.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Start the task on an executor, or attach to the in-flight execution for the same key,
+     * without waiting for it. Callers of {@link #execute} with the same key attach to it too.
+     */
+    public CompletableFuture<V> submit(K key, Supplier<V> task, Executor executor) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    call.complete(task.get());
+                } catch (RuntimeException | Error e) {
+                    call.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, call);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+        }
+        return call;
+    }
+
+    /**
+     * Check whether a call with the given key is currently running.
+     */
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
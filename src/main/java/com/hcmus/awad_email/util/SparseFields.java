@@ -0,0 +1,144 @@
+package com.hcmus.awad_email.util;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.hcmus.awad_email.exception.BadRequestException;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.*;
+
+/**
+ * Sparse fieldset parsed from a {@code fields=} request parameter.
+ * Limits both the MongoDB projection and the serialized card fields, so collapsed
+ * board views only load and send what they display.
+ *
+ * Example: {@code fields=subject,fromName,receivedAt,isRead}
+ *
+ * Card identity ({@code id}, {@code emailId}, {@code columnId}) is always included.
+ */
+public final class SparseFields {
+
+    /**
+     * Jackson filter ID placed on card DTOs ({@code @JsonFilter(SparseFields.FILTER_ID)}).
+     */
+    public static final String FILTER_ID = "sparseFields";
+
+    private static final SparseFields ALL = new SparseFields(null, null);
+
+    private static final Set<String> ALWAYS_SERIALIZED = Set.of("id", "emailId", "columnId");
+
+    private static final Set<String> ALWAYS_LOADED = Set.of("emailId", "columnId");
+
+    /**
+     * Requested field name -> {JSON property, stored document field (null if computed)}.
+     * Boolean flags are accepted both as "isRead" and "read".
+     */
+    private static final Map<String, String[]> KNOWN_FIELDS = Map.ofEntries(
+            Map.entry("subject", new String[]{"subject", "subject"}),
+            Map.entry("fromEmail", new String[]{"fromEmail", "fromEmail"}),
+            Map.entry("fromName", new String[]{"fromName", "fromName"}),
+            Map.entry("preview", new String[]{"preview", "preview"}),
+            Map.entry("summary", new String[]{"summary", "summary"}),
+            Map.entry("summaryGeneratedAt", new String[]{"summaryGeneratedAt", "summaryGeneratedAt"}),
+            Map.entry("receivedAt", new String[]{"receivedAt", "receivedAt"}),
+            Map.entry("isRead", new String[]{"read", "isRead"}),
+            Map.entry("read", new String[]{"read", "isRead"}),
+            Map.entry("isStarred", new String[]{"starred", "isStarred"}),
+            Map.entry("starred", new String[]{"starred", "isStarred"}),
+            Map.entry("hasAttachments", new String[]{"hasAttachments", "hasAttachments"}),
+            Map.entry("snoozed", new String[]{"snoozed", "snoozed"}),
+            Map.entry("snoozeUntil", new String[]{"snoozeUntil", "snoozeUntil"}),
+            Map.entry("orderInColumn", new String[]{"orderInColumn", "orderInColumn"}),
+            Map.entry("createdAt", new String[]{"createdAt", "createdAt"}),
+            Map.entry("updatedAt", new String[]{"updatedAt", "updatedAt"}),
+            Map.entry("columnName", new String[]{"columnName", null}),
+            Map.entry("score", new String[]{"score", null}),
+            Map.entry("similarityScore", new String[]{"similarityScore", null}),
+            Map.entry("matchedFields", new String[]{"matchedFields", null})
+    );
+
+    private final Set<String> jsonProperties;
+    private final Set<String> storedFields;
+
+    private SparseFields(Set<String> jsonProperties, Set<String> storedFields) {
+        this.jsonProperties = jsonProperties;
+        this.storedFields = storedFields;
+    }
+
+    /**
+     * Parse a comma-separated field list. Null or blank means all fields.
+     *
+     * @throws BadRequestException if an unknown field is requested
+     */
+    public static SparseFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+
+        Set<String> jsonProperties = new HashSet<>(ALWAYS_SERIALIZED);
+        Set<String> storedFields = new HashSet<>(ALWAYS_LOADED);
+
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || ALWAYS_SERIALIZED.contains(name)) continue;
+
+            String[] mapping = KNOWN_FIELDS.get(name);
+            if (mapping == null) {
+                throw new BadRequestException("Unknown field '" + name + "'. Supported fields: "
+                        + String.join(", ", new TreeSet<>(KNOWN_FIELDS.keySet())));
+            }
+            jsonProperties.add(mapping[0]);
+            if (mapping[1] != null) {
+                storedFields.add(mapping[1]);
+            }
+        }
+
+        return new SparseFields(Collections.unmodifiableSet(jsonProperties),
+                Collections.unmodifiableSet(storedFields));
+    }
+
+    /**
+     * All fields (no projection, no output filtering).
+     */
+    public static SparseFields all() {
+        return ALL;
+    }
+
+    public boolean isAll() {
+        return jsonProperties == null;
+    }
+
+    /**
+     * Document fields to load, or null to load whole documents.
+     *
+     * @param requiredFields Fields the caller needs internally (sorting, filtering, scoring)
+     */
+    public Set<String> storedFields(String... requiredFields) {
+        if (isAll()) {
+            return null;
+        }
+        Set<String> result = new HashSet<>(storedFields);
+        result.addAll(Arrays.asList(requiredFields));
+        return result;
+    }
+
+    /**
+     * Stable representation of the selection, usable as part of a cache or coalescing key.
+     */
+    @Override
+    public String toString() {
+        return isAll() ? "*" : String.join(",", new TreeSet<>(jsonProperties));
+    }
+
+    /**
+     * Wrap a response body so only the requested card properties are serialized.
+     */
+    public MappingJacksonValue wrap(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (!isAll()) {
+            value.setFilters(new SimpleFilterProvider()
+                    .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(jsonProperties)));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,75 @@
+package com.hcmus.awad_email.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization shared by everything that matches user text against email fields.
+ * Text is decomposed (NFKD), stripped of combining marks, and lower-cased, so
+ * "Tiếng Việt", "TIENG VIET" and "tieng viet" all compare equal.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "are", "but", "not", "you", "all",
+            "can", "had", "her", "was", "one", "our", "out", "has",
+            "his", "how", "its", "may", "new", "now", "old", "see",
+            "way", "who", "did", "get", "let", "put", "say", "she",
+            "too", "use", "from", "have", "this", "that", "with",
+            "your", "will", "been", "more", "when", "some", "them",
+            "into", "than", "then", "what", "just", "only", "come",
+            "made", "find", "here", "many", "make", "like", "time",
+            "very", "after", "most", "also", "know", "back", "first",
+            "fwd", "re", "fw"
+    );
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Fold case and diacritics, keeping punctuation and spacing.
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                // đ/Đ are letters in their own right, not d plus a mark, so NFKD leaves them alone
+                .replace('đ', 'd')
+                .replace('Đ', 'D');
+        return folded.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalize and split into letter/digit runs.
+     */
+    public static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Normalized tokens joined by single spaces, the form matched by search.
+     */
+    public static String toSearchText(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    public static boolean isStopWord(String token) {
+        return STOP_WORDS.contains(token);
+    }
+}
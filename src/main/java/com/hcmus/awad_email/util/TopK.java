@@ -0,0 +1,66 @@
+package com.hcmus.awad_email.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the K best items offered to it using a bounded min-heap,
+ * in O(n log K) time and O(K) space instead of sorting every item.
+ * Not thread-safe; give each worker its own instance and {@link #merge} them.
+ *
+ * @param <T> Item type
+ */
+public class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    /**
+     * @param k Number of items to keep
+     * @param order Ranking order; the greatest items are kept
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), order);
+    }
+
+    public void offer(T item) {
+        if (k == 0) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /**
+     * Offer every item kept by another instance.
+     */
+    public TopK<T> merge(TopK<T> other) {
+        other.heap.forEach(this::offer);
+        return this;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * The kept items, best first.
+     */
+    public List<T> toSortedList() {
+        List<T> items = new ArrayList<>(heap);
+        items.sort(order.reversed());
+        return items;
+    }
+}
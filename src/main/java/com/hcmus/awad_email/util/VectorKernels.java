@@ -0,0 +1,110 @@
+package com.hcmus.awad_email.util;
+
+/**
+ * Dot-product kernels for embedding vectors. Vectors are expected to be unit length, so the dot
+ * product is their cosine similarity.
+ *
+ * <p>Runs on SIMD instructions through the incubating Vector API when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, and on plain loops otherwise. The batch variants
+ * score one query against a contiguous row-major matrix, which keeps the rows in cache order and
+ * avoids a call per row.
+ */
+public final class VectorKernels {
+
+    /**
+     * One implementation of the kernels; offsets and lengths are trusted.
+     */
+    interface Kernel {
+
+        float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+        /**
+         * Dot product of a float query with int8 codes, without the codes' scale.
+         */
+        float dot(float[] query, byte[] codes, int codesOffset, int length);
+
+        String description();
+    }
+
+    private static final Kernel KERNEL = loadKernel();
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Which implementation is in use, e.g. for startup logs.
+     */
+    public static String description() {
+        return KERNEL.description();
+    }
+
+    public static float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vectors have " + a.length + " and " + b.length + " dimensions");
+        }
+        return KERNEL.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Score a query against every row of a matrix.
+     *
+     * @param matrix Row-major matrix with rows of {@code query.length} values
+     * @param rows Number of rows to score, starting with the first
+     * @param scores Receives the dot product of each row
+     */
+    public static void dotAll(float[] query, float[] matrix, int rows, float[] scores) {
+        int dimensions = query.length;
+        checkBounds(matrix.length, dimensions, rows, scores);
+        for (int row = 0; row < rows; row++) {
+            scores[row] = KERNEL.dot(query, 0, matrix, row * dimensions, dimensions);
+        }
+    }
+
+    /**
+     * Score a query against every row of an int8 code matrix, as in {@link QuantizedVectors}.
+     * The scores are in code units; multiply by each row's scale to get similarities.
+     *
+     * @param codes Row-major matrix with rows of {@code query.length} codes
+     * @param rows Number of rows to score, starting with the first
+     * @param scores Receives the unscaled dot product of each row
+     */
+    public static void dotAll(float[] query, byte[] codes, int rows, float[] scores) {
+        int dimensions = query.length;
+        checkBounds(codes.length, dimensions, rows, scores);
+        for (int row = 0; row < rows; row++) {
+            scores[row] = KERNEL.dot(query, codes, row * dimensions, dimensions);
+        }
+    }
+
+    /**
+     * Score a query against one row of an int8 code matrix, for scans that skip rows.
+     *
+     * @see #dotAll(float[], byte[], int, float[])
+     */
+    public static float dot(float[] query, byte[] codes, int row) {
+        int dimensions = query.length;
+        if (row < 0 || (long) (row + 1) * dimensions > codes.length) {
+            throw new IllegalArgumentException("Row " + row + " of " + dimensions
+                    + " dimensions is outside a matrix of " + codes.length + " codes");
+        }
+        return KERNEL.dot(query, codes, row * dimensions, dimensions);
+    }
+
+    private static void checkBounds(int matrixLength, int dimensions, int rows, float[] scores) {
+        if (rows < 0 || (long) rows * dimensions > matrixLength || rows > scores.length) {
+            throw new IllegalArgumentException("Cannot score " + rows + " rows of " + dimensions
+                    + " dimensions in a matrix of " + matrixLength + " values into " + scores.length + " scores");
+        }
+    }
+
+    private static Kernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new SimdVectorKernel();
+            } catch (LinkageError | RuntimeException e) {
+                // Fall through to the portable kernel
+            }
+        }
+        return new ScalarVectorKernel();
+    }
+}
@@ -0,0 +1,156 @@
+package com.hcmus.awad_email.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hcmus.awad_email.dto.kanban.KanbanBoardResponse;
+import com.hcmus.awad_email.dto.kanban.KanbanColumnResponse;
+import com.hcmus.awad_email.dto.kanban.KanbanEmailResponse;
+import com.hcmus.awad_email.model.KanbanColumn;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Size and serialization time of a representative {@link KanbanBoardResponse} in each response
+ * encoding, with the mappers configured as in {@link JacksonConfig}. The measurements are printed
+ * so runs can be compared.
+ */
+class JacksonConfigTest {
+
+    private static final int COLUMNS = 6;
+    private static final int CARDS_PER_COLUMN = 50;
+    private static final int WARMUP_ROUNDS = 100;
+    private static final int MEASURED_ROUNDS = 200;
+
+    private final JacksonConfig config = new JacksonConfig();
+
+    @Test
+    void binaryEncodingsAreSmallerThanJsonAndRoundTrip() throws IOException {
+        ObjectMapper json = builder().build();
+        ObjectMapper smile = config.smileHttpMessageConverter(builder()).getObjectMapper();
+        ObjectMapper cbor = config.cborHttpMessageConverter(builder()).getObjectMapper();
+        KanbanBoardResponse board = representativeBoard();
+
+        byte[] jsonBytes = json.writeValueAsBytes(board);
+        byte[] gzipBytes = gzip(jsonBytes);
+        byte[] smileBytes = smile.writeValueAsBytes(board);
+        byte[] cborBytes = cbor.writeValueAsBytes(board);
+
+        System.out.printf("KanbanBoardResponse, %d cards: JSON %d B (%.1fus), gzip JSON %d B (%.1fus),"
+                        + " Smile %d B (%.1fus), CBOR %d B (%.1fus)%n",
+                COLUMNS * CARDS_PER_COLUMN,
+                jsonBytes.length, micros(() -> json.writeValueAsBytes(board)),
+                gzipBytes.length, micros(() -> gzip(json.writeValueAsBytes(board))),
+                smileBytes.length, micros(() -> smile.writeValueAsBytes(board)),
+                cborBytes.length, micros(() -> cbor.writeValueAsBytes(board)));
+
+        assertTrue(smileBytes.length < jsonBytes.length, "Smile is not smaller than JSON");
+        assertTrue(cborBytes.length < jsonBytes.length, "CBOR is not smaller than JSON");
+        assertTrue(gzipBytes.length < smileBytes.length, "gzip JSON is not smaller than Smile");
+        assertEquals(board, smile.readValue(smileBytes, KanbanBoardResponse.class));
+        assertEquals(board, cbor.readValue(cborBytes, KanbanBoardResponse.class));
+    }
+
+    /**
+     * The builder Spring Boot hands to the converters, with the spring.jackson settings of
+     * application.yml.
+     */
+    private Jackson2ObjectMapperBuilder builder() {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .timeZone(TimeZone.getTimeZone("UTC"));
+        builder.modulesToInstall(config.blackbirdModule());
+        config.sparseFieldsFilterCustomizer().customize(builder);
+        return builder;
+    }
+
+    private static KanbanBoardResponse representativeBoard() {
+        Random random = new Random(1);
+        LocalDateTime now = LocalDateTime.of(2026, 10, 1, 9, 30);
+        List<KanbanColumnResponse> columns = new ArrayList<>();
+        Map<String, List<KanbanEmailResponse>> emailsByColumn = new LinkedHashMap<>();
+        for (int c = 0; c < COLUMNS; c++) {
+            String columnId = String.format("65f1c2a9e4b0%012d", c);
+            columns.add(KanbanColumnResponse.builder()
+                    .id(columnId).name("Column " + c).type(KanbanColumn.ColumnType.CUSTOM).order(c)
+                    .color("#4285F4").isDefault(c < 5).emailCount(CARDS_PER_COLUMN)
+                    .gmailLabelId("Label_" + c).gmailLabelName("Label " + c)
+                    .removeLabelsOnMove(List.of("INBOX")).addLabelsOnMove(List.of("Label_" + c))
+                    .createdAt(now).updatedAt(now).build());
+
+            List<KanbanEmailResponse> cards = new ArrayList<>();
+            for (int i = 0; i < CARDS_PER_COLUMN; i++) {
+                cards.add(KanbanEmailResponse.builder()
+                        .id(String.format("65f1c2a9e4b1%06d%06d", c, i))
+                        .emailId(Long.toHexString(0x18f0000000000000L + random.nextInt(1 << 30)))
+                        .columnId(columnId).orderInColumn(i)
+                        .subject(words(random, 4 + random.nextInt(8)))
+                        .fromEmail("sender" + random.nextInt(200) + "@example.com")
+                        .fromName(words(random, 2))
+                        .preview(words(random, 30))
+                        .receivedAt(now.minusMinutes(random.nextInt(100_000)))
+                        .isRead(random.nextBoolean()).isStarred(random.nextInt(10) == 0)
+                        .hasAttachments(random.nextInt(5) == 0)
+                        .summary(i % 3 == 0 ? words(random, 25) : null)
+                        .summaryGeneratedAt(i % 3 == 0 ? now : null)
+                        .createdAt(now).updatedAt(now).build());
+            }
+            emailsByColumn.put(columnId, cards);
+        }
+        return KanbanBoardResponse.builder().columns(columns).emailsByColumn(emailsByColumn).build();
+    }
+
+    private static final String[] WORDS = {"meeting", "invoice", "project", "update", "review", "schedule",
+            "the", "and", "for", "please", "attached", "report", "quarterly", "team", "deadline", "budget",
+            "customer", "feedback", "release", "notes", "tomorrow", "thanks", "regards", "follow", "up"};
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private interface Encoding {
+        byte[] encode() throws IOException;
+    }
+
+    /**
+     * Mean time of one encoding after warming up, in microseconds.
+     */
+    private static double micros(Encoding encoding) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            encoding.encode();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            encoding.encode();
+        }
+        return (System.nanoTime() - start) / 1000.0 / MEASURED_ROUNDS;
+    }
+}
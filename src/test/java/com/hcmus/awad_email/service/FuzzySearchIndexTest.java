@@ -0,0 +1,211 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.dto.kanban.FuzzySearchRequest;
+import com.hcmus.awad_email.dto.kanban.FuzzySearchResponse;
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.repository.KanbanColumnRepository;
+import com.hcmus.awad_email.service.FuzzySearchIndex.IndexedCard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The trigram and term-dictionary candidates must never drop a card the exact scorer accepts:
+ * fuzzy search over the index's candidates must rank exactly what scoring every card ranks.
+ */
+class FuzzySearchIndexTest {
+
+    private static final String USER = "user-1";
+    private static final int CARDS = 400;
+    private static final String[] WORDS = {"meeting", "invoice", "project", "update", "review", "schedule",
+            "quarterly", "report", "deadline", "budget", "customer", "feedback", "release", "notes",
+            "tomorrow", "thanks", "follow", "team", "offer", "ticket", "payment", "contract", "agenda", "hiring"};
+    private static final String[] NAMES = {"alice", "bob", "carol", "dang", "nguyen", "tran", "le", "pham", "ho"};
+
+    private final Random random = new Random(31);
+    private final Map<String, EmailKanbanStatus> cards = new LinkedHashMap<>();
+    private FuzzySearchIndex index;
+    private FuzzySearchService indexed;
+    private FuzzySearchService exhaustive;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        for (int i = 0; i < CARDS; i++) {
+            String first = NAMES[random.nextInt(NAMES.length)];
+            String last = NAMES[random.nextInt(NAMES.length)];
+            EmailKanbanStatus card = EmailKanbanStatus.builder()
+                    .userId(USER)
+                    .emailId("e" + i)
+                    .columnId("inbox")
+                    .subject(sentence(2 + random.nextInt(6)))
+                    .fromName(capitalize(first) + " " + capitalize(last))
+                    .fromEmail(first + "." + last + random.nextInt(100) + "@example.com")
+                    .preview(sentence(15))
+                    .summary(random.nextBoolean() ? sentence(10) : null)
+                    .receivedAt(LocalDateTime.of(2026, 10, 1, 0, 0).minusMinutes(i))
+                    .build();
+            cards.put(card.getEmailId(), card);
+        }
+
+        EmailKanbanStatusRepository repository = repository();
+        SearchTokenService tokens = new SearchTokenService();
+        index = new FuzzySearchIndex();
+        inject(index, "emailStatusRepository", repository);
+        inject(index, "searchTokenService", tokens);
+
+        // Reference: every card is a candidate
+        FuzzySearchIndex allCards = new FuzzySearchIndex() {
+            @Override
+            public List<IndexedCard> findCandidates(String userId, String query, boolean includeBody) {
+                return cards.values().stream().map(card -> IndexedCard.of(card, tokens.compute(card))).toList();
+            }
+        };
+        indexed = service(repository, tokens, index);
+        exhaustive = service(repository, tokens, allCards);
+    }
+
+    @Test
+    void candidatesRankLikeScoringEveryCard() {
+        List<String> queries = new ArrayList<>();
+        for (String word : WORDS) {
+            queries.add(word);
+            queries.add(typo(word));
+            queries.add(random.nextBoolean() ? typo(typo(word)) : word.substring(1, word.length() - 1));
+            queries.add(word.substring(0, 4)); // Prefix
+        }
+        for (int i = 0; i < 10; i++) {
+            queries.add(sentence(2));
+            queries.add(typo(sentence(2)));
+            queries.add(NAMES[random.nextInt(NAMES.length)]);
+        }
+        queries.add("example");
+        queries.add("al");
+
+        for (String query : queries) {
+            for (boolean includeBody : new boolean[]{false, true}) {
+                List<String> expected = ranked(exhaustive, query, includeBody);
+                List<String> actual = ranked(indexed, query, includeBody);
+                assertEquals(expected, actual, () -> "query '" + query + "', body " + includeBody);
+            }
+        }
+    }
+
+    @Test
+    void changesAfterBuildingAreFound() {
+        index.findCandidates(USER, "meeting", false);
+        assertTrue(index.isLoaded(USER));
+
+        EmailKanbanStatus added = EmailKanbanStatus.builder().userId(USER).emailId("new")
+                .subject("Zyxwv kickoff").fromName("Quinn").fromEmail("quinn@example.com").build();
+        cards.put("new", added);
+        index.upsert(added);
+        assertTrue(emailIds(index.findCandidates(USER, "zyxwv", false)).contains("new"));
+        assertTrue(emailIds(index.findCandidates(USER, "zyxwq", false)).contains("new")); // Typo
+
+        EmailKanbanStatus renamed = cards.get("e7");
+        renamed.setSubject("Qwerty offsite");
+        index.upsert(renamed);
+        assertTrue(emailIds(index.findCandidates(USER, "qwerty", false)).contains("e7"));
+
+        index.remove(USER, "new");
+        cards.remove("new");
+        assertFalse(emailIds(index.findCandidates(USER, "zyxwv", false)).contains("new"));
+        assertEquals(ranked(exhaustive, "qwerty", false), ranked(indexed, "qwerty", false));
+    }
+
+    private static List<String> ranked(FuzzySearchService service, String query, boolean includeBody) {
+        FuzzySearchResponse response = service.search(USER, FuzzySearchRequest.builder()
+                .query(query).limit(100).includeBody(includeBody).build());
+        return response.getResults().stream()
+                .map(item -> item.getEmailId() + "@" + String.format("%.6f", item.getScore()))
+                .toList();
+    }
+
+    private static List<String> emailIds(List<IndexedCard> candidates) {
+        return candidates.stream().map(IndexedCard::emailId).toList();
+    }
+
+    private FuzzySearchService service(EmailKanbanStatusRepository repository, SearchTokenService tokens,
+                                       FuzzySearchIndex fuzzySearchIndex) throws ReflectiveOperationException {
+        KanbanColumnRepository columns = (KanbanColumnRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{KanbanColumnRepository.class},
+                (proxy, method, args) -> List.of());
+        FuzzySearchService service = new FuzzySearchService();
+        inject(service, "emailStatusRepository", repository);
+        inject(service, "columnRepository", columns);
+        inject(service, "fuzzySearchIndex", fuzzySearchIndex);
+        inject(service, "searchTokenService", tokens);
+        inject(service, "searchResultCache", new SearchResultCache());
+        return service;
+    }
+
+    /**
+     * Repository serving the card reads of fuzzy search from {@link #cards}; the text index finds
+     * nothing, so every search goes through the fuzzy index.
+     */
+    @SuppressWarnings("unchecked")
+    private EmailKanbanStatusRepository repository() {
+        return (EmailKanbanStatusRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EmailKanbanStatusRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "searchText":
+                            return List.of();
+                        case "findByUserIdProjected":
+                            return new ArrayList<>(cards.values());
+                        case "findByUserIdAndEmailIdInProjected":
+                            return ((Collection<String>) args[1]).stream()
+                                    .map(cards::get).filter(card -> card != null).toList();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static void inject(Object target, String field, Object value) throws ReflectiveOperationException {
+        Field declared = target.getClass().getDeclaredField(field);
+        declared.setAccessible(true);
+        declared.set(target, value);
+    }
+
+    private String sentence(int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            text.append(i > 0 ? " " : "").append(random.nextInt(8) == 0 ? typo(word) : word);
+        }
+        return capitalize(text.toString());
+    }
+
+    /**
+     * A word with one random substitution, insertion or deletion.
+     */
+    private String typo(String word) {
+        StringBuilder result = new StringBuilder(word);
+        int position = random.nextInt(word.length());
+        char c = (char) ('a' + random.nextInt(26));
+        switch (random.nextInt(3)) {
+            case 0 -> result.setCharAt(position, c);
+            case 1 -> result.insert(position, c);
+            default -> result.deleteCharAt(position);
+        }
+        return result.toString();
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
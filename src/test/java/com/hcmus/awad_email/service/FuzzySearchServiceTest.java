@@ -0,0 +1,155 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.dto.kanban.FuzzySearchRequest;
+import com.hcmus.awad_email.dto.kanban.FuzzySearchResponse;
+import com.hcmus.awad_email.dto.kanban.FuzzySearchResponse.SearchResultItem;
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.repository.KanbanColumnRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The latency budget of fuzzy search covers the text-index query and a cold index build, not
+ * only scoring: a search that cannot wait for the build returns the text-index hits.
+ */
+class FuzzySearchServiceTest {
+
+    private static final String USER = "user-1";
+
+    private final Map<String, EmailKanbanStatus> cards = new LinkedHashMap<>();
+    private final List<Duration> textQueryTimeLimits = new ArrayList<>();
+    private final CountDownLatch releaseBuild = new CountDownLatch(1);
+    private FuzzySearchIndex index;
+    private FuzzySearchService service;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        addCard("e1", "Invoice for October");
+        addCard("e2", "Invoice reminder");
+        addCard("e3", "Invoise from the printer"); // Typo only the fuzzy index finds
+        addCard("e4", "Team lunch");
+
+        EmailKanbanStatusRepository repository = repository();
+        SearchTokenService tokens = new SearchTokenService();
+        index = new FuzzySearchIndex();
+        inject(index, "emailStatusRepository", repository);
+        inject(index, "searchTokenService", tokens);
+
+        service = new FuzzySearchService();
+        inject(service, "emailStatusRepository", repository);
+        inject(service, "columnRepository", (KanbanColumnRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{KanbanColumnRepository.class},
+                (proxy, method, args) -> List.of()));
+        inject(service, "fuzzySearchIndex", index);
+        inject(service, "searchTokenService", tokens);
+        inject(service, "searchResultCache", new SearchResultCache());
+    }
+
+    @Test
+    void coldBuildPastTheDeadlineReturnsTheTextHits() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        FuzzySearchResponse response = service.search(USER, request(200));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 1000, "took " + elapsed + "ms");
+        assertTrue(response.isPartial());
+        assertEquals(List.of("e1", "e2"), emailIds(response));
+        assertFalse(index.isLoaded(USER));
+
+        // The build carries on in the background, and later searches use the index
+        releaseBuild.countDown();
+        long waitUntil = System.currentTimeMillis() + 5000;
+        while (!index.isLoaded(USER) && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10);
+        }
+        assertTrue(index.isLoaded(USER));
+        FuzzySearchResponse indexed = service.search(USER, request(1000));
+        assertFalse(indexed.isPartial());
+        assertTrue(emailIds(indexed).containsAll(List.of("e1", "e2", "e3")), emailIds(indexed)::toString);
+    }
+
+    @Test
+    void textQueryGetsTheRemainingBudget() {
+        releaseBuild.countDown();
+        service.search(USER, request(500));
+        index.invalidateAll(); // So the next search queries the text index again
+        service.search(USER, FuzzySearchRequest.builder().query("lunch").limit(1).build());
+
+        assertEquals(2, textQueryTimeLimits.size());
+        Duration limited = textQueryTimeLimits.get(0);
+        assertTrue(limited.compareTo(Duration.ZERO) > 0 && limited.compareTo(Duration.ofMillis(500)) <= 0,
+                limited::toString);
+        assertNull(textQueryTimeLimits.get(1));
+    }
+
+    private static FuzzySearchRequest request(int maxLatencyMs) {
+        return FuzzySearchRequest.builder().query("invoice").limit(10).maxLatencyMs(maxLatencyMs).build();
+    }
+
+    private static List<String> emailIds(FuzzySearchResponse response) {
+        return response.getResults().stream().map(SearchResultItem::getEmailId).toList();
+    }
+
+    private void addCard(String emailId, String subject) {
+        cards.put(emailId, EmailKanbanStatus.builder()
+                .userId(USER)
+                .emailId(emailId)
+                .columnId("inbox")
+                .subject(subject)
+                .fromName("Alice Nguyen")
+                .fromEmail("alice@example.com")
+                .receivedAt(LocalDateTime.of(2026, 10, 1, 0, 0).minusHours(cards.size()))
+                .build());
+    }
+
+    /**
+     * Repository whose text index finds the cards containing the query word, and whose full read
+     * for the index build blocks until {@link #releaseBuild} opens.
+     */
+    @SuppressWarnings("unchecked")
+    private EmailKanbanStatusRepository repository() {
+        return (EmailKanbanStatusRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EmailKanbanStatusRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "searchText":
+                            textQueryTimeLimits.add((Duration) args[4]);
+                            String word = ((String) args[1]).toLowerCase();
+                            return cards.values().stream()
+                                    .filter(card -> card.getSubject().toLowerCase().contains(word))
+                                    .toList();
+                        case "findByUserIdProjected":
+                            releaseBuild.await(10, TimeUnit.SECONDS);
+                            return new ArrayList<>(cards.values());
+                        case "findByUserIdAndEmailIdInProjected":
+                            return ((Collection<String>) args[1]).stream()
+                                    .map(cards::get).filter(card -> card != null).toList();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static void inject(Object target, String field, Object value) throws ReflectiveOperationException {
+        Field declared = target.getClass().getDeclaredField(field);
+        declared.setAccessible(true);
+        declared.set(target, value);
+    }
+}
@@ -0,0 +1,184 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.dto.kanban.FuzzySearchRequest;
+import com.hcmus.awad_email.dto.kanban.FuzzySearchResponse;
+import com.hcmus.awad_email.dto.kanban.FuzzySearchResponse.SearchResultItem;
+import com.hcmus.awad_email.dto.search.HybridSearchRequest;
+import com.hcmus.awad_email.dto.search.HybridSearchResponse;
+import com.hcmus.awad_email.dto.search.HybridSearchResultItem;
+import com.hcmus.awad_email.dto.search.SemanticSearchRequest;
+import com.hcmus.awad_email.dto.search.SemanticSearchResponse;
+import com.hcmus.awad_email.dto.search.SemanticSearchResultItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hybrid search with stubbed retrievers: the two rankings are fused by reciprocal rank, and a
+ * retriever that fails or misses the deadline is dropped (and cancelled) without failing the search.
+ */
+class HybridSearchServiceTest {
+
+    private static final String USER = "user-1";
+
+    private final HybridSearchService service = new HybridSearchService();
+    private Supplier<List<SearchResultItem>> lexical = List::of;
+    private Supplier<List<SemanticSearchResultItem>> semantic = List::of;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        inject("defaultDeadlineMs", 1500L);
+        inject("fuzzySearchService", new FuzzySearchService() {
+            @Override
+            public FuzzySearchResponse search(String userId, FuzzySearchRequest request) {
+                return FuzzySearchResponse.builder().results(lexical.get()).build();
+            }
+        });
+        inject("semanticSearchService", new SemanticSearchService() {
+            @Override
+            public SemanticSearchResponse search(String userId, SemanticSearchRequest request) {
+                return SemanticSearchResponse.builder().results(semantic.get()).build();
+            }
+        });
+    }
+
+    @Test
+    void emailsInBothListsOutrankEmailsInOne() {
+        lexical = () -> List.of(lexicalItem("a"), lexicalItem("b"), lexicalItem("c"));
+        semantic = () -> List.of(semanticItem("b"), semanticItem("d"), semanticItem("a"));
+
+        HybridSearchResponse response = service.search(USER, request(null));
+
+        // b: 1/62 + 1/61, a: 1/61 + 1/63, d: 1/62, c: 1/63
+        assertEquals(List.of("b", "a", "d", "c"), emailIds(response));
+        List<HybridSearchResultItem> results = response.getResults();
+        assertEquals(1.0 / 62 + 1.0 / 61, results.get(0).getScore(), 1e-12);
+        assertEquals(1.0 / 61 + 1.0 / 63, results.get(1).getScore(), 1e-12);
+        assertEquals(2, results.get(0).getLexicalRank());
+        assertEquals(1, results.get(0).getSemanticRank());
+        assertNull(results.get(2).getLexicalRank());
+        assertEquals(2, results.get(2).getSemanticRank());
+        assertNull(results.get(3).getSemanticRank());
+        assertTrue(response.isLexicalComplete());
+        assertTrue(response.isSemanticComplete());
+    }
+
+    @Test
+    void fusedOrderFollowsReciprocalRankSums() {
+        // Lexical 0..29, semantic 29..0: 1/(60+r) is convex, so a top rank in one list beats
+        // middling ranks in both, and the fused order works inwards from the ends
+        List<SearchResultItem> lexicalItems = new ArrayList<>();
+        List<SemanticSearchResultItem> semanticItems = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            lexicalItems.add(lexicalItem("e" + i));
+            semanticItems.add(0, semanticItem("e" + i));
+        }
+        lexical = () -> lexicalItems;
+        semantic = () -> semanticItems;
+
+        List<HybridSearchResultItem> results = service.search(USER, request(null)).getResults();
+        assertEquals(10, results.size());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getScore() >= results.get(i).getScore());
+        }
+        for (HybridSearchResultItem result : results) {
+            assertEquals(1.0 / (60 + result.getLexicalRank()) + 1.0 / (60 + result.getSemanticRank()),
+                    result.getScore(), 1e-12);
+        }
+        assertEquals(List.of("e0", "e29", "e1", "e28", "e2", "e27", "e3", "e26", "e4", "e25"),
+                results.stream().map(HybridSearchResultItem::getEmailId).toList());
+    }
+
+    @Test
+    void equalScoresKeepTheLexicalOrderFirst() {
+        lexical = () -> List.of(lexicalItem("a"), lexicalItem("b"));
+        semantic = () -> List.of(semanticItem("c"), semanticItem("d"));
+
+        // a and c tie at 1/61, b and d at 1/62; within a tie the lexical hit comes first
+        HybridSearchResponse response = service.search(USER, request(null));
+        assertEquals(List.of("a", "c", "b", "d"), emailIds(response));
+    }
+
+    @Test
+    void failedRetrieverLeavesTheOtherRanking() {
+        lexical = () -> {
+            throw new IllegalStateException("index unavailable");
+        };
+        semantic = () -> List.of(semanticItem("x"), semanticItem("y"), semanticItem("z"));
+
+        HybridSearchResponse response = service.search(USER, request(null));
+        assertEquals(List.of("x", "y", "z"), emailIds(response));
+        assertFalse(response.isLexicalComplete());
+        assertTrue(response.isSemanticComplete());
+    }
+
+    @Test
+    void resultsAreCutAtTheLimit() {
+        lexical = () -> List.of(lexicalItem("a"), lexicalItem("b"), lexicalItem("c"));
+        semantic = () -> List.of(semanticItem("c"), semanticItem("b"));
+
+        HybridSearchRequest request = request(null);
+        request.setLimit(2);
+        HybridSearchResponse response = service.search(USER, request);
+        // c: 1/63 + 1/61 is just above b: 1/62 + 1/62
+        assertEquals(List.of("c", "b"), emailIds(response));
+        assertEquals(2, response.getTotalResults());
+    }
+
+    @Test
+    void retrieverMissingTheDeadlineIsInterrupted() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        lexical = () -> List.of(lexicalItem("a"), lexicalItem("b"));
+        semantic = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return List.of(semanticItem("c"));
+        };
+
+        long start = System.currentTimeMillis();
+        HybridSearchResponse response = service.search(USER, request(100L));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 1000, "took " + elapsed + "ms");
+        assertTrue(response.isLexicalComplete());
+        assertFalse(response.isSemanticComplete());
+        assertEquals(List.of("a", "b"), emailIds(response));
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS), "semantic retriever was not cancelled");
+    }
+
+    private static HybridSearchRequest request(Long deadlineMs) {
+        return HybridSearchRequest.builder().query("invoice").limit(10).deadlineMs(deadlineMs).build();
+    }
+
+    private static List<String> emailIds(HybridSearchResponse response) {
+        return response.getResults().stream().map(HybridSearchResultItem::getEmailId).toList();
+    }
+
+    private static SearchResultItem lexicalItem(String emailId) {
+        return SearchResultItem.builder().emailId(emailId).subject("Subject " + emailId).build();
+    }
+
+    private static SemanticSearchResultItem semanticItem(String emailId) {
+        return SemanticSearchResultItem.builder().emailId(emailId).subject("Subject " + emailId).build();
+    }
+
+    private void inject(String field, Object value) throws ReflectiveOperationException {
+        Field target = HybridSearchService.class.getDeclaredField(field);
+        target.setAccessible(true);
+        target.set(service, value);
+    }
+}
@@ -0,0 +1,216 @@
+package com.hcmus.awad_email.service;
+
+import com.hcmus.awad_email.model.EmailKanbanStatus;
+import com.hcmus.awad_email.model.EmbeddingVector;
+import com.hcmus.awad_email.repository.EmailKanbanStatusRepository;
+import com.hcmus.awad_email.service.SearchResultCache.RankedHit;
+import com.hcmus.awad_email.service.VectorIndexService.CardFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtered semantic search must return only cards passing the filter, ranked as an exact search
+ * restricted to those cards would rank them, and must follow card changes made after loading.
+ */
+class VectorIndexServiceTest {
+
+    private static final String USER = "user-1";
+    private static final String MODEL = "test-model";
+    private static final int DIMENSIONS = 32;
+    private static final int CARDS = 600;
+    private static final int K = 10;
+    private static final String[] COLUMNS = {"inbox", "todo", "done"};
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final Random random = new Random(19);
+    private final Map<String, EmailKanbanStatus> cards = new LinkedHashMap<>();
+    private VectorIndexService service;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        for (int i = 0; i < CARDS; i++) {
+            EmailKanbanStatus card = EmailKanbanStatus.builder()
+                    .userId(USER)
+                    .emailId("e" + i)
+                    .columnId(COLUMNS[random.nextInt(COLUMNS.length)])
+                    .receivedAt(START.plusHours(random.nextInt(24 * 90)))
+                    .isRead(random.nextBoolean())
+                    .isStarred(random.nextInt(4) == 0)
+                    .hasAttachments(random.nextInt(3) == 0)
+                    .embedding(new EmbeddingVector(MODEL, randomVector()))
+                    .build();
+            cards.put(card.getEmailId(), card);
+        }
+
+        service = new VectorIndexService();
+        inject("emailStatusRepository", repository());
+        inject("embeddingProvider", new FixedModelProvider());
+    }
+
+    @Test
+    void filteredSearchReturnsOnlyMatchingCards() {
+        LocalDateTime from = START.plusDays(20);
+        LocalDateTime to = START.plusDays(50);
+        List<CardFilter> filters = List.of(
+                new CardFilter("todo", null, null, false, false, false),
+                new CardFilter(null, from, to, false, false, false),
+                new CardFilter(null, from, null, false, false, false),
+                new CardFilter(null, null, to, false, false, false),
+                new CardFilter(null, null, null, true, false, false),
+                new CardFilter(null, null, null, false, true, false),
+                new CardFilter(null, null, null, false, false, true),
+                new CardFilter("inbox", from, to, true, false, true),
+                CardFilter.NONE);
+
+        VectorIndexService.Snapshot index = service.snapshot(USER);
+        assertEquals(CARDS, index.vectorCount());
+        for (CardFilter filter : filters) {
+            for (int q = 0; q < 5; q++) {
+                float[] query = randomVector();
+                List<RankedHit> hits = index.search(query, K, -1, filter);
+                List<String> expected = exactTopK(query, card -> matches(filter, card));
+
+                assertEquals(expected, hits.stream().map(RankedHit::emailId).toList(), filter::toString);
+                assertTrue(hits.stream().allMatch(hit -> matches(filter, cards.get(hit.emailId()))),
+                        filter::toString);
+            }
+        }
+    }
+
+    @Test
+    void filterMatchingNoCardReturnsNothing() {
+        CardFilter noColumn = new CardFilter("archive", null, null, false, false, false);
+        CardFilter emptyRange = new CardFilter(null, START.plusDays(10), START.plusDays(10), false, false, false);
+        VectorIndexService.Snapshot index = service.snapshot(USER);
+        assertEquals(List.of(), index.search(randomVector(), K, -1, noColumn));
+        assertEquals(List.of(), index.search(randomVector(), K, -1, emptyRange));
+    }
+
+    @Test
+    void filterFollowsCardChangesAfterLoading() {
+        CardFilter done = new CardFilter("done", null, null, false, false, false);
+        float[] query = randomVector();
+        service.snapshot(USER);
+
+        // Move the closest card outside the column into it, and the closest inside out of it
+        String movedIn = exactTopK(query, card -> !card.getColumnId().equals("done")).get(0);
+        String movedOut = exactTopK(query, card -> card.getColumnId().equals("done")).get(0);
+        cards.get(movedIn).setColumnId("done");
+        cards.get(movedOut).setColumnId("inbox");
+        service.upsert(cards.get(movedIn));
+        service.upsert(cards.get(movedOut));
+        service.remove(USER, "e0");
+        cards.remove("e0");
+
+        List<String> hits = service.snapshot(USER).search(query, K, -1, done).stream()
+                .map(RankedHit::emailId).toList();
+        assertTrue(hits.contains(movedIn));
+        assertFalse(hits.contains(movedOut));
+        assertEquals(exactTopK(query, card -> card.getColumnId().equals("done")), hits);
+    }
+
+    /**
+     * Repository serving the two projected reads the index makes from {@link #cards}.
+     */
+    @SuppressWarnings("unchecked")
+    private EmailKanbanStatusRepository repository() {
+        return (EmailKanbanStatusRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EmailKanbanStatusRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findByUserIdProjected") && USER.equals(args[0])) {
+                        return new ArrayList<>(cards.values());
+                    }
+                    if (method.getName().equals("findByUserIdAndEmailIdInProjected") && USER.equals(args[0])) {
+                        return ((Collection<String>) args[1]).stream()
+                                .map(cards::get).filter(card -> card != null).toList();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private void inject(String field, Object value) throws ReflectiveOperationException {
+        Field target = VectorIndexService.class.getDeclaredField(field);
+        target.setAccessible(true);
+        target.set(service, value);
+    }
+
+    private static boolean matches(CardFilter filter, EmailKanbanStatus card) {
+        return (filter.columnId() == null || filter.columnId().equals(card.getColumnId()))
+                && (filter.receivedAfter() == null || !card.getReceivedAt().isBefore(filter.receivedAfter()))
+                && (filter.receivedBefore() == null || card.getReceivedAt().isBefore(filter.receivedBefore()))
+                && (!filter.unreadOnly() || !card.isRead())
+                && (!filter.starredOnly() || card.isStarred())
+                && (!filter.hasAttachmentsOnly() || card.isHasAttachments());
+    }
+
+    /**
+     * Ids of the cards passing a predicate most similar to a query, by full-precision cosine.
+     */
+    private List<String> exactTopK(float[] query, Predicate<EmailKanbanStatus> predicate) {
+        return cards.values().stream()
+                .filter(predicate)
+                .sorted(Comparator.comparingDouble((EmailKanbanStatus card) ->
+                        cosine(query, card.getEmbedding().getValues())).reversed())
+                .limit(K)
+                .map(EmailKanbanStatus::getEmailId)
+                .toList();
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static final class FixedModelProvider implements EmbeddingProvider {
+
+        @Override
+        public String getModel() {
+            return MODEL;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public float[] embed(String subject, String body) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, float[]> embedBatch(List<EmailKanbanStatus> cards) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
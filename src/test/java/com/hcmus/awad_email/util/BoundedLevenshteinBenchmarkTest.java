@@ -0,0 +1,75 @@
+package com.hcmus.awad_email.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+/**
+ * Time of BoundedLevenshtein against the full-matrix implementation it replaced, for the two
+ * shapes fuzzy search produces: short query words against many card words (bit-parallel), and
+ * long queries against long fields (banded). Excluded from the default test run; run with
+ * {@code mvn test -Dgroups=benchmark -Dexcluded.test.groups=none -Dtest=BoundedLevenshteinBenchmarkTest}.
+ */
+@Tag("benchmark")
+class BoundedLevenshteinBenchmarkTest {
+
+    private static final int ROUNDS = 5; // The first two warm up
+
+    private long sink;
+
+    @Test
+    void shortWords() {
+        Random random = new Random(23);
+        String[] words = new String[200_000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = randomWord(random, 3 + random.nextInt(9));
+        }
+        compare("200k words vs 'meeting', k=2", "meeting", 2, words);
+    }
+
+    @Test
+    void longFields() {
+        Random random = new Random(29);
+        String pattern = randomWord(random, 110);
+        String[] texts = new String[20_000];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = random.nextInt(10) == 0 ? pattern.substring(1) + "x" : randomWord(random, 105 + random.nextInt(11));
+        }
+        compare("20k 110-char fields, k=2", pattern, 2, texts);
+    }
+
+    private void compare(String name, String pattern, int bound, String[] texts) {
+        BoundedLevenshtein matcher = BoundedLevenshtein.compile(pattern, bound);
+        double full = millis(texts, text -> BoundedLevenshteinTest.fullMatrix(text, pattern));
+        double bounded = millis(texts, matcher::distance);
+        System.out.printf("%s: full matrix %.2f ms, bounded %.2f ms (%.0fx) (checksum %d)%n",
+                name, full, bounded, full / bounded, sink);
+    }
+
+    /**
+     * Best time of one pass over the texts, after warming up.
+     */
+    private double millis(String[] texts, ToIntFunction<String> distance) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String text : texts) {
+                sink += distance.applyAsInt(text);
+            }
+            if (round >= 2) {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        return best / 1e6;
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,139 @@
+package com.hcmus.awad_email.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Both engines (bit-parallel up to 64 pattern characters, banded beyond) must agree with the
+ * full-matrix dynamic programme: the exact distance within the bound, bound + 1 beyond it.
+ */
+class BoundedLevenshteinTest {
+
+    // Small alphabet so random strings are often close; includes non-ASCII characters
+    private static final String ALPHABET = "abcdeéệ中";
+
+    private final Random random = new Random(17);
+
+    @Test
+    void matchesFullMatrixOnRandomStrings() {
+        for (int trial = 0; trial < 50_000; trial++) {
+            String pattern = randomString(random.nextInt(trial % 10 == 0 ? 150 : 70));
+            String text = random.nextBoolean() ? mutate(pattern, random.nextInt(5)) : randomString(random.nextInt(150));
+            int bound = random.nextInt(5);
+            assertBounded(pattern, text, bound);
+        }
+    }
+
+    @Test
+    void matchesFullMatrixAroundTheBitParallelLimit() {
+        for (int length = 60; length <= 70; length++) {
+            for (int trial = 0; trial < 500; trial++) {
+                String pattern = randomString(length);
+                String text = mutate(pattern, random.nextInt(4));
+                assertBounded(pattern, text, random.nextInt(4));
+                assertEquals(fullMatrix(pattern, text), BoundedLevenshtein.unbounded(pattern).distance(text));
+            }
+        }
+    }
+
+    @Test
+    void boundZeroOnlyAcceptsEqualStrings() {
+        for (int trial = 0; trial < 5_000; trial++) {
+            String pattern = randomString(random.nextInt(100));
+            String text = random.nextBoolean() ? pattern : mutate(pattern, 1 + random.nextInt(2));
+            BoundedLevenshtein matcher = BoundedLevenshtein.compile(pattern, 0);
+            assertEquals(pattern.equals(text) ? 0 : 1, matcher.distance(text), () -> pattern + " / " + text);
+            assertEquals(pattern.equals(text), matcher.matches(text));
+        }
+    }
+
+    @Test
+    void unboundedIsAlwaysExact() {
+        for (int trial = 0; trial < 5_000; trial++) {
+            String pattern = randomString(random.nextInt(100));
+            String text = randomString(random.nextInt(100));
+            assertEquals(fullMatrix(pattern, text), BoundedLevenshtein.unbounded(pattern).distance(text));
+        }
+    }
+
+    @Test
+    void emptyStrings() {
+        assertEquals(0, BoundedLevenshtein.compile("", 0).distance(""));
+        assertEquals(2, BoundedLevenshtein.compile("", 3).distance("ab"));
+        assertEquals(3, BoundedLevenshtein.compile("", 2).distance("abcd"));
+        assertEquals(1, BoundedLevenshtein.compile("abc", 0).distance(""));
+        assertTrue(BoundedLevenshtein.compile("meeting", 2).matches("meetnig"));
+        assertFalse(BoundedLevenshtein.compile("meeting", 1).matches("meetnig"));
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BoundedLevenshtein.compile(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> BoundedLevenshtein.compile("abc", -1));
+    }
+
+    /**
+     * The full-matrix implementation BoundedLevenshtein replaced, as the reference.
+     */
+    static int fullMatrix(String s1, String s2) {
+        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
+        for (int i = 0; i <= s1.length(); i++) {
+            for (int j = 0; j <= s2.length(); j++) {
+                if (i == 0) {
+                    dp[i][j] = j;
+                } else if (j == 0) {
+                    dp[i][j] = i;
+                } else {
+                    int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                    dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+                }
+            }
+        }
+        return dp[s1.length()][s2.length()];
+    }
+
+    private static void assertBounded(String pattern, String text, int bound) {
+        int expected = Math.min(fullMatrix(pattern, text), bound + 1);
+        assertEquals(expected, BoundedLevenshtein.compile(pattern, bound).distance(text),
+                () -> "pattern '" + pattern + "', text '" + text + "', bound " + bound);
+    }
+
+    private String randomString(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Apply random substitutions, insertions and deletions.
+     */
+    private String mutate(String text, int edits) {
+        StringBuilder result = new StringBuilder(text);
+        for (int e = 0; e < edits; e++) {
+            int position = random.nextInt(result.length() + 1);
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            switch (random.nextInt(3)) {
+                case 0 -> result.insert(position, c);
+                case 1 -> {
+                    if (position < result.length()) {
+                        result.deleteCharAt(position);
+                    }
+                }
+                default -> {
+                    if (position < result.length()) {
+                        result.setCharAt(position, c);
+                    }
+                }
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,236 @@
+package com.hcmus.awad_email.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recall and latency of the graph and of the int8 scan against exact search, on clustered
+ * vectors shaped like email embeddings. Candidates are re-ranked with the exact vectors, as
+ * {@code VectorIndexService} does, and the measurements are printed so runs can be compared.
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 64;
+    private static final int VECTORS = 6000;
+    private static final int CLUSTERS = 60;
+    private static final float SPREAD = 2.0f; // Noise relative to the cluster centre
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+    private static final int CANDIDATES = 3 * K;
+    private static final int EF_SEARCH = 100;
+
+    @Test
+    void candidatesReRankedExactlyRecallTheExactTopK() {
+        Random random = new Random(42);
+        List<float[]> centers = randomUnitVectors(random, CLUSTERS);
+        List<float[]> vectors = new ArrayList<>(VECTORS);
+        for (int i = 0; i < VECTORS; i++) {
+            vectors.add(nearby(random, centers.get(i % CLUSTERS), SPREAD));
+        }
+        List<float[]> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(nearby(random, centers.get(random.nextInt(CLUSTERS)), SPREAD));
+        }
+
+        QuantizedVectors codes = new QuantizedVectors(DIMENSIONS, VECTORS);
+        for (int i = 0; i < VECTORS; i++) {
+            codes.add(key(i), vectors.get(i));
+        }
+        long buildStart = System.nanoTime();
+        HnswIndex graph = new HnswIndex(codes);
+        for (int i = 0; i < VECTORS; i++) {
+            graph.add(key(i));
+        }
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+
+        int graphFound = 0;
+        int scanFound = 0;
+        long graphNanos = 0;
+        long scanNanos = 0;
+        long exactNanos = 0;
+        for (float[] query : queries) {
+            long start = System.nanoTime();
+            TopK<Integer> exactBest = new TopK<>(K,
+                    Comparator.comparingDouble(i -> VectorKernels.dot(query, vectors.get(i))));
+            for (int i = 0; i < VECTORS; i++) {
+                exactBest.offer(i);
+            }
+            Set<String> exact = new HashSet<>();
+            exactBest.toSortedList().forEach(i -> exact.add(key(i)));
+            exactNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<String> graphCandidates = new ArrayList<>();
+            graph.search(query, CANDIDATES, EF_SEARCH).forEach(match -> graphCandidates.add(match.key()));
+            Set<String> graphTop = exactTopK(query, vectors, graphCandidates, K);
+            graphNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<String> scanCandidates = new ArrayList<>();
+            codes.search(query, CANDIDATES).forEach(match -> scanCandidates.add(match.key()));
+            Set<String> scanTop = exactTopK(query, vectors, scanCandidates, K);
+            scanNanos += System.nanoTime() - start;
+
+            graphFound += intersection(exact, graphTop);
+            scanFound += intersection(exact, scanTop);
+        }
+
+        double graphRecall = (double) graphFound / (QUERIES * K);
+        double scanRecall = (double) scanFound / (QUERIES * K);
+        System.out.printf("HNSW over int8 codes, %d vectors x %d dims: build %dms; recall@%d graph %.3f (%.1fus/query),"
+                        + " int8 scan %.3f (%.1fus/query), exact float scan %.1fus/query%n",
+                VECTORS, DIMENSIONS, buildMs, K, graphRecall, graphNanos / 1000.0 / QUERIES,
+                scanRecall, scanNanos / 1000.0 / QUERIES, exactNanos / 1000.0 / QUERIES);
+
+        assertTrue(scanRecall >= 0.95, "int8 scan recall " + scanRecall);
+        assertTrue(graphRecall >= 0.90, "graph recall " + graphRecall);
+    }
+
+    @Test
+    void graphScoresAreTheCodeScores() {
+        Random random = new Random(7);
+        QuantizedVectors codes = new QuantizedVectors(DIMENSIONS);
+        HnswIndex graph = new HnswIndex(codes);
+        for (int i = 0; i < 200; i++) {
+            codes.add(key(i), randomUnitVectors(random, 1).get(0));
+            graph.add(key(i));
+        }
+
+        float[] query = randomUnitVectors(random, 1).get(0);
+        for (HnswIndex.Match match : graph.search(query, 20, 200)) {
+            assertEquals(codes.similarity(query, codes.slot(match.key())), match.similarity(), 1e-5f);
+        }
+    }
+
+    @Test
+    void removedAndReplacedVectorsAreNotReturnedStale() {
+        Random random = new Random(3);
+        QuantizedVectors codes = new QuantizedVectors(DIMENSIONS);
+        HnswIndex graph = new HnswIndex(codes);
+        List<float[]> vectors = randomUnitVectors(random, 300);
+        for (int i = 0; i < vectors.size(); i++) {
+            codes.add(key(i), vectors.get(i));
+            graph.add(key(i));
+        }
+
+        graph.remove(key(0));
+        codes.remove(key(0));
+        float[] replacement = randomUnitVectors(random, 1).get(0);
+        codes.add(key(1), replacement);
+        graph.add(key(1));
+        // Reuses the slot freed by key 0, which a tombstone still routes through
+        codes.add("new", vectors.get(0));
+        graph.add("new");
+
+        assertEquals(300, graph.size());
+        assertEquals(2, graph.deletedCount());
+        List<HnswIndex.Match> nearOld = graph.search(vectors.get(0), 5, 300);
+        assertEquals("new", nearOld.get(0).key());
+        assertFalse(nearOld.stream().anyMatch(match -> match.key().equals(key(0))));
+        assertEquals(key(1), graph.search(replacement, 1, 300).get(0).key());
+    }
+
+    @Test
+    void filteredSearchOnlyReturnsMatchingKeys() {
+        Random random = new Random(7);
+        List<float[]> centers = randomUnitVectors(random, CLUSTERS);
+        List<float[]> vectors = new ArrayList<>(VECTORS);
+        QuantizedVectors codes = new QuantizedVectors(DIMENSIONS, VECTORS);
+        HnswIndex graph = new HnswIndex(codes);
+        List<String> matching = new ArrayList<>();
+        for (int i = 0; i < VECTORS; i++) {
+            vectors.add(nearby(random, centers.get(i % CLUSTERS), SPREAD));
+            codes.add(key(i), vectors.get(i));
+            graph.add(key(i));
+            if (i % 5 == 0) {
+                matching.add(key(i));
+            }
+        }
+        Set<String> selected = new HashSet<>(matching);
+
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = nearby(random, centers.get(random.nextInt(CLUSTERS)), SPREAD);
+            // Widened by the inverse of the selectivity, as VectorIndexService does
+            List<HnswIndex.Match> hits = graph.search(query, K, EF_SEARCH * 5, selected::contains);
+            assertEquals(K, hits.size());
+            assertTrue(hits.stream().allMatch(match -> selected.contains(match.key())));
+            found += intersection(exactTopK(query, vectors, matching, K),
+                    hits.stream().map(HnswIndex.Match::key).collect(Collectors.toSet()));
+        }
+        double recall = (double) found / (QUERIES * K);
+        System.out.printf("HNSW filtered search, 20%% selected: recall@%d %.3f%n", K, recall);
+        assertTrue(recall >= 0.9, "filtered recall " + recall);
+    }
+
+    @Test
+    void addingAKeyWithoutAStoredVectorIsRejected() {
+        HnswIndex graph = new HnswIndex(new QuantizedVectors(DIMENSIONS));
+        assertThrows(IllegalArgumentException.class, () -> graph.add("missing"));
+    }
+
+    private static String key(int i) {
+        return "e" + i;
+    }
+
+    private static Set<String> exactTopK(float[] query, List<float[]> vectors, List<String> keys, int k) {
+        TopK<String> best = new TopK<>(k, Comparator.comparingDouble(
+                key -> VectorKernels.dot(query, vectors.get(Integer.parseInt(key.substring(1))))));
+        keys.forEach(best::offer);
+        return new HashSet<>(best.toSortedList());
+    }
+
+    private static int intersection(Set<String> a, Set<String> b) {
+        int count = 0;
+        for (String key : b) {
+            if (a.contains(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<float[]> randomUnitVectors(Random random, int count) {
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+            vectors.add(normalize(vector));
+        }
+        return vectors;
+    }
+
+    private static float[] nearby(Random random, float[] center, float spread) {
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = center[d] + spread * (float) random.nextGaussian() / (float) Math.sqrt(DIMENSIONS);
+        }
+        return normalize(vector);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int d = 0; d < vector.length; d++) {
+            vector[d] *= scale;
+        }
+        return vector;
+    }
+}
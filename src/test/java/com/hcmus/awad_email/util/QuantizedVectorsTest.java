@@ -0,0 +1,173 @@
+package com.hcmus.awad_email.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Quantization error must stay within the bounds int8 rounding allows, and slots must stay stable
+ * and reusable across adds, replacements and removals.
+ */
+class QuantizedVectorsTest {
+
+    private static final int DIMENSIONS = 384;
+
+    private final Random random = new Random(13);
+
+    @Test
+    void decodedComponentsAreWithinHalfAStep() {
+        QuantizedVectors vectors = new QuantizedVectors(DIMENSIONS);
+        for (int n = 0; n < 200; n++) {
+            float[] vector = randomUnitVector();
+            vectors.add("e" + n, vector);
+
+            // Rounding to the nearest of 127 steps of the largest component
+            float maxAbs = 0;
+            for (float value : vector) {
+                maxAbs = Math.max(maxAbs, Math.abs(value));
+            }
+            float tolerance = maxAbs / 127 / 2 * 1.001f;
+            float[] decoded = vectors.get("e" + n);
+            for (int i = 0; i < DIMENSIONS; i++) {
+                assertEquals(vector[i], decoded[i], tolerance);
+            }
+        }
+    }
+
+    @Test
+    void similarityErrorIsBoundedByTheDecodingError() {
+        QuantizedVectors vectors = new QuantizedVectors(DIMENSIONS);
+        Map<String, float[]> originals = new HashMap<>();
+        for (int n = 0; n < 500; n++) {
+            float[] vector = randomUnitVector();
+            vectors.add("e" + n, vector);
+            originals.put("e" + n, vector);
+        }
+
+        double worst = 0;
+        double total = 0;
+        for (int q = 0; q < 20; q++) {
+            float[] query = randomUnitVector();
+            for (Map.Entry<String, float[]> entry : originals.entrySet()) {
+                int slot = vectors.slot(entry.getKey());
+                float[] decoded = new float[DIMENSIONS];
+                vectors.decode(slot, decoded);
+
+                // |q.v - q.v'| <= |q| |v - v'| by Cauchy-Schwarz, and |q| = 1
+                double decodingError = 0;
+                for (int i = 0; i < DIMENSIONS; i++) {
+                    decodingError += (entry.getValue()[i] - decoded[i]) * (entry.getValue()[i] - decoded[i]);
+                }
+                double error = Math.abs(VectorKernels.dot(query, entry.getValue()) - vectors.similarity(query, slot));
+                assertTrue(error <= Math.sqrt(decodingError) + 1e-5, () -> "error " + error);
+                worst = Math.max(worst, error);
+                total += error;
+            }
+        }
+        // The documented accuracy: about 1% of the similarity range
+        assertTrue(worst < 0.01, "worst similarity error " + worst);
+        assertTrue(total / (20 * originals.size()) < 0.002, "mean similarity error " + total / (20 * originals.size()));
+    }
+
+    @Test
+    void searchRanksLikeExactSimilarity() {
+        QuantizedVectors vectors = new QuantizedVectors(DIMENSIONS);
+        Map<String, float[]> originals = new HashMap<>();
+        for (int n = 0; n < 300; n++) {
+            float[] vector = randomUnitVector();
+            vectors.add("e" + n, vector);
+            originals.put("e" + n, vector);
+        }
+        float[] query = originals.get("e42").clone();
+        for (int i = 0; i < DIMENSIONS; i++) {
+            query[i] *= 3; // Queries need not be normalized
+        }
+
+        List<QuantizedVectors.Match> matches = vectors.search(query, 10);
+        assertEquals(10, matches.size());
+        assertEquals("e42", matches.get(0).key());
+        assertEquals(1.0, matches.get(0).similarity(), 0.01);
+        for (int i = 1; i < matches.size(); i++) {
+            assertTrue(matches.get(i - 1).similarity() >= matches.get(i).similarity());
+        }
+    }
+
+    @Test
+    void maskedSearchOnlyReturnsSelectedKeys() {
+        QuantizedVectors vectors = new QuantizedVectors(DIMENSIONS);
+        for (int n = 0; n < 300; n++) {
+            vectors.add("e" + n, randomUnitVector());
+        }
+        BitSet even = vectors.select(key -> Integer.parseInt(key.substring(1)) % 2 == 0);
+        assertEquals(150, even.cardinality());
+
+        List<QuantizedVectors.Match> matches = vectors.search(randomUnitVector(), 400, even);
+        assertEquals(150, matches.size());
+        assertTrue(matches.stream().allMatch(match -> Integer.parseInt(match.key().substring(1)) % 2 == 0));
+    }
+
+    @Test
+    void slotsAreStableAndReused() {
+        QuantizedVectors vectors = new QuantizedVectors(DIMENSIONS, 2);
+        int[] slots = new int[10];
+        for (int n = 0; n < 10; n++) {
+            slots[n] = vectors.add("e" + n, randomUnitVector());
+        }
+        assertEquals(10, vectors.size());
+        assertEquals(10, vectors.slotCount());
+
+        // Replacing overwrites in place
+        float[] replacement = randomUnitVector();
+        assertEquals(slots[3], vectors.add("e3", replacement));
+        assertEquals(1.0, vectors.similarity(replacement, slots[3]), 0.01);
+
+        // Removing frees the slot for the next add; scans skip it meanwhile
+        assertTrue(vectors.remove("e5"));
+        assertFalse(vectors.remove("e5"));
+        assertNull(vectors.get("e5"));
+        assertNull(vectors.key(slots[5]));
+        assertEquals(-1, vectors.slot("e5"));
+        assertEquals(9, vectors.size());
+        assertFalse(vectors.keys().contains("e5"));
+        assertTrue(vectors.search(randomUnitVector(), 20).stream().noneMatch(match -> match.key().equals("e5")));
+
+        assertEquals(slots[5], vectors.add("new", randomUnitVector()));
+        assertEquals("new", vectors.key(slots[5]));
+        assertEquals(10, vectors.slotCount());
+        assertEquals(slots[4], vectors.slot("e4"));
+    }
+
+    @Test
+    void invalidVectorsAreRejected() {
+        QuantizedVectors vectors = new QuantizedVectors(4);
+        assertThrows(IllegalArgumentException.class, () -> vectors.add("a", new float[3]));
+        assertThrows(IllegalArgumentException.class, () -> vectors.add("a", new float[4]));
+        assertThrows(IllegalArgumentException.class, () -> vectors.search(new float[3], 1));
+        assertThrows(IllegalArgumentException.class, () -> new QuantizedVectors(0));
+        assertEquals(List.of(), vectors.search(new float[4], 5));
+    }
+
+    private float[] randomUnitVector() {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
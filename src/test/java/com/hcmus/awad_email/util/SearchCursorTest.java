@@ -0,0 +1,72 @@
+package com.hcmus.awad_email.util;
+
+import com.hcmus.awad_email.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cursors must round-trip their offset and be rejected when malformed, edited or replayed against
+ * another query or search mode.
+ */
+class SearchCursorTest {
+
+    private static final String QUERY = "invoice|body=false";
+
+    @Test
+    void roundTripsTheOffset() {
+        for (int offset : new int[]{0, 1, 20, 980, Integer.MAX_VALUE}) {
+            String cursor = SearchCursor.encode("fuzzy", QUERY, offset);
+            assertEquals(offset, SearchCursor.decodeOffset(cursor, "fuzzy", QUERY));
+        }
+    }
+
+    @Test
+    void missingCursorStartsAtTheBeginning() {
+        assertEquals(0, SearchCursor.decodeOffset(null, "fuzzy", QUERY));
+        assertEquals(0, SearchCursor.decodeOffset("  ", "fuzzy", QUERY));
+    }
+
+    @Test
+    void cursorOfAnotherQueryOrModeIsRejected() {
+        String cursor = SearchCursor.encode("fuzzy", QUERY, 20);
+        BadRequestException otherQuery = assertThrows(BadRequestException.class,
+                () -> SearchCursor.decodeOffset(cursor, "fuzzy", "invoice|body=true"));
+        assertEquals("Search cursor does not match this query", otherQuery.getMessage());
+        assertThrows(BadRequestException.class, () -> SearchCursor.decodeOffset(cursor, "semantic", QUERY));
+    }
+
+    @Test
+    void tamperedCursorsAreRejected() {
+        String cursor = SearchCursor.encode("fuzzy", QUERY, 20);
+        String[] parts = decode(cursor).split(":", -1);
+
+        String[] tampered = {
+                "not a cursor!",
+                cursor.substring(0, cursor.length() - 3) + "***",
+                encode("2:" + parts[1] + ":" + parts[2] + ":" + parts[3]), // Unknown version
+                encode(parts[0] + ":" + parts[1] + ":" + parts[2]), // Missing offset
+                encode(parts[0] + ":" + parts[1] + ":" + parts[2] + ":20:0"), // Extra part
+                encode(parts[0] + ":" + parts[1] + ":" + parts[2] + ":-20"), // Negative offset
+                encode(parts[0] + ":" + parts[1] + ":" + parts[2] + ":twenty"),
+                encode(parts[0] + ":" + parts[1] + ":" + parts[2] + ":99999999999"), // Overflows an int
+                encode(parts[0] + ":" + parts[1] + ":0:" + parts[3]), // Edited fingerprint
+                encode(parts[0] + ":semantic:" + parts[2] + ":" + parts[3]) // Edited mode
+        };
+        for (String bad : tampered) {
+            assertThrows(BadRequestException.class, () -> SearchCursor.decodeOffset(bad, "fuzzy", QUERY), bad);
+        }
+    }
+
+    private static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,77 @@
+package com.hcmus.awad_email.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.hcmus.awad_email.dto.kanban.KanbanEmailResponse;
+import com.hcmus.awad_email.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A fieldset must load and serialize the requested card fields plus the card identity, and
+ * reject unknown fields.
+ */
+class SparseFieldsTest {
+
+    @Test
+    void missingOrBlankMeansAllFields() {
+        assertSame(SparseFields.all(), SparseFields.parse(null));
+        assertSame(SparseFields.all(), SparseFields.parse(" "));
+        assertTrue(SparseFields.all().isAll());
+        assertNull(SparseFields.all().storedFields("receivedAt"));
+        assertEquals("*", SparseFields.all().toString());
+    }
+
+    @Test
+    void loadsRequestedAndRequiredFieldsOnly() {
+        SparseFields fields = SparseFields.parse("subject, isRead,columnName,,");
+        assertFalse(fields.isAll());
+        // columnName is computed, isRead is stored as isRead and serialized as read
+        assertEquals(Set.of("emailId", "columnId", "subject", "isRead", "receivedAt"),
+                fields.storedFields("receivedAt"));
+        assertEquals("columnId,columnName,emailId,id,read,subject", fields.toString());
+    }
+
+    @Test
+    void aliasesSelectTheSameProperty() {
+        assertEquals(SparseFields.parse("isStarred,read").toString(), SparseFields.parse("starred,isRead").toString());
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        BadRequestException e = assertThrows(BadRequestException.class, () -> SparseFields.parse("subject,body"));
+        assertTrue(e.getMessage().startsWith("Unknown field 'body'"), e.getMessage());
+    }
+
+    @Test
+    void serializesOnlySelectedCardProperties() throws Exception {
+        KanbanEmailResponse card = KanbanEmailResponse.builder()
+                .id("s1").emailId("e1").columnId("c1").orderInColumn(3)
+                .subject("Invoice").fromName("Alice").preview("Please find attached")
+                .isRead(true).isStarred(true)
+                .build();
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+                .setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+
+        MappingJacksonValue wrapped = SparseFields.parse("subject,read").wrap(card);
+        String json = mapper.writer(wrapped.getFilters()).writeValueAsString(wrapped.getValue());
+        Map<?, ?> properties = mapper.readValue(json, Map.class);
+        assertEquals(Set.of("id", "emailId", "columnId", "subject", "read"), properties.keySet());
+
+        MappingJacksonValue all = SparseFields.all().wrap(card);
+        assertNull(all.getFilters());
+        Map<?, ?> allProperties = mapper.readValue(mapper.writeValueAsString(card), Map.class);
+        assertTrue(allProperties.containsKey("preview"));
+        assertTrue(allProperties.containsKey("orderInColumn"));
+    }
+}
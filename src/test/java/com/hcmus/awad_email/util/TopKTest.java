@@ -0,0 +1,98 @@
+package com.hcmus.awad_email.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TopK must return exactly the head of a full sort, best first, whether items are offered to one
+ * instance or spread over several merged ones.
+ */
+class TopKTest {
+
+    private record Item(int score, int id) {}
+
+    // Ties on score broken by id, as the search rankings do, so the expected order is unique
+    private static final Comparator<Item> ORDER = Comparator.comparingInt(Item::score)
+            .thenComparing(Comparator.comparingInt(Item::id).reversed());
+
+    private final Random random = new Random(3);
+
+    @Test
+    void keepsTheBestItemsBestFirst() {
+        for (int trial = 0; trial < 2_000; trial++) {
+            List<Item> items = randomItems(random.nextInt(300), 1 + random.nextInt(20));
+            int k = random.nextInt(40);
+
+            TopK<Item> best = new TopK<>(k, ORDER);
+            items.forEach(best::offer);
+
+            assertEquals(Math.min(k, items.size()), best.size());
+            assertEquals(fullSort(items, k), best.toSortedList());
+        }
+    }
+
+    @Test
+    void mergedWorkersMatchOneInstance() {
+        for (int trial = 0; trial < 500; trial++) {
+            List<Item> items = randomItems(random.nextInt(500), 1 + random.nextInt(20));
+            int k = 1 + random.nextInt(30);
+
+            List<TopK<Item>> workers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                workers.add(new TopK<>(k, ORDER));
+            }
+            for (int i = 0; i < items.size(); i++) {
+                workers.get(i % workers.size()).offer(items.get(i));
+            }
+            TopK<Item> merged = workers.stream().reduce(new TopK<>(k, ORDER), TopK::merge);
+
+            assertEquals(fullSort(items, k), merged.toSortedList());
+        }
+    }
+
+    @Test
+    void fullTiesKeepTheFirstOffered() {
+        // Items equal under the order do not displace each other
+        TopK<Item> best = new TopK<>(3, Comparator.comparingInt(Item::score));
+        for (int id = 0; id < 10; id++) {
+            best.offer(new Item(5, id));
+        }
+        List<Integer> ids = best.toSortedList().stream().map(Item::id).sorted().toList();
+        assertEquals(List.of(0, 1, 2), ids);
+
+        best.offer(new Item(6, 10));
+        List<Item> kept = best.toSortedList();
+        assertEquals(new Item(6, 10), kept.get(0));
+        assertEquals(3, kept.size());
+        assertTrue(kept.stream().skip(1).allMatch(item -> item.score() == 5));
+    }
+
+    @Test
+    void zeroKeepsNothing() {
+        TopK<Item> best = new TopK<>(0, ORDER);
+        best.offer(new Item(1, 1));
+        assertEquals(0, best.size());
+        assertEquals(List.of(), best.toSortedList());
+        assertThrows(IllegalArgumentException.class, () -> new TopK<>(-1, ORDER));
+    }
+
+    private List<Item> randomItems(int count, int distinctScores) {
+        List<Item> items = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            items.add(new Item(random.nextInt(distinctScores), id));
+        }
+        return items;
+    }
+
+    private static List<Item> fullSort(List<Item> items, int k) {
+        return items.stream().sorted(ORDER.reversed()).limit(k).toList();
+    }
+}
@@ -0,0 +1,92 @@
+package com.hcmus.awad_email.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Throughput of the SIMD and scalar kernels scoring a query against a matrix of embeddings, as
+ * an exhaustive scan does. Excluded from the default test run; run with
+ * {@code mvn test -Dgroups=benchmark -Dexcluded.test.groups=none -Dtest=VectorKernelsBenchmarkTest}
+ * and compare the printed nanoseconds per row across JDKs and machines.
+ */
+@Tag("benchmark")
+class VectorKernelsBenchmarkTest {
+
+    private static final int[] DIMENSIONS = {256, 768, 1536};
+    private static final int ROWS = 4096;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private float sink;
+
+    @Test
+    void scanThroughput() {
+        VectorKernels.Kernel simd = VectorKernelsTest.simdKernel();
+        VectorKernels.Kernel scalar = new ScalarVectorKernel();
+        Random random = new Random(5);
+        System.out.printf("Vector kernels on Java %s, %s, %d rows%n",
+                Runtime.version(), simd.description(), ROWS);
+
+        for (int dimensions : DIMENSIONS) {
+            float[] query = new float[dimensions];
+            float[] matrix = new float[dimensions * ROWS];
+            byte[] codes = new byte[dimensions * ROWS];
+            for (int i = 0; i < query.length; i++) {
+                query[i] = (float) random.nextGaussian();
+            }
+            for (int i = 0; i < matrix.length; i++) {
+                matrix[i] = (float) random.nextGaussian();
+                codes[i] = (byte) (random.nextInt(255) - 127);
+            }
+
+            double scalarFloat = nanosPerRow(() -> scanFloats(scalar, query, matrix));
+            double simdFloat = nanosPerRow(() -> scanFloats(simd, query, matrix));
+            double scalarCodes = nanosPerRow(() -> scanCodes(scalar, query, codes));
+            double simdCodes = nanosPerRow(() -> scanCodes(simd, query, codes));
+            System.out.printf("  %4d dims: float32 scalar %.1f ns/row, SIMD %.1f ns/row (%.1fx);"
+                            + " int8 scalar %.1f ns/row, SIMD %.1f ns/row (%.1fx)%n",
+                    dimensions, scalarFloat, simdFloat, scalarFloat / simdFloat,
+                    scalarCodes, simdCodes, scalarCodes / simdCodes);
+        }
+        System.out.println("  (checksum " + sink + ")");
+    }
+
+    private float scanFloats(VectorKernels.Kernel kernel, float[] query, float[] matrix) {
+        int dimensions = query.length;
+        float sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            sum += kernel.dot(query, 0, matrix, row * dimensions, dimensions);
+        }
+        return sum;
+    }
+
+    private float scanCodes(VectorKernels.Kernel kernel, float[] query, byte[] codes) {
+        int dimensions = query.length;
+        float sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            sum += kernel.dot(query, codes, row * dimensions, dimensions);
+        }
+        return sum;
+    }
+
+    private interface Scan {
+        float run();
+    }
+
+    /**
+     * Mean time per row over the measured iterations; results feed {@link #sink} so the JIT
+     * cannot drop the work.
+     */
+    private double nanosPerRow(Scan scan) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += scan.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += scan.run();
+        }
+        return (double) (System.nanoTime() - start) / MEASURED_ITERATIONS / ROWS;
+    }
+}
@@ -0,0 +1,125 @@
+package com.hcmus.awad_email.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The SIMD kernels must agree with the scalar ones up to float rounding, for every length
+ * (including lengths that leave a tail after the last full vector) and offset.
+ */
+class VectorKernelsTest {
+
+    private static final int MAX_LENGTH = 200;
+    private static final int[] EMBEDDING_LENGTHS = {256, 384, 768, 1024, 1536, 3072};
+
+    private final Random random = new Random(11);
+
+    @Test
+    void simdFloatDotMatchesScalar() {
+        VectorKernels.Kernel simd = simdKernel();
+        VectorKernels.Kernel scalar = new ScalarVectorKernel();
+        for (int length : lengths()) {
+            int aOffset = random.nextInt(8);
+            int bOffset = random.nextInt(8);
+            float[] a = randomFloats(aOffset + length);
+            float[] b = randomFloats(bOffset + length);
+
+            double exact = 0;
+            double magnitude = 0;
+            for (int i = 0; i < length; i++) {
+                exact += (double) a[aOffset + i] * b[bOffset + i];
+                magnitude += Math.abs((double) a[aOffset + i] * b[bOffset + i]);
+            }
+            double tolerance = 1e-5 * magnitude + 1e-6;
+            int n = length;
+            assertEquals(exact, scalar.dot(a, aOffset, b, bOffset, length), tolerance, () -> "scalar, length " + n);
+            assertEquals(exact, simd.dot(a, aOffset, b, bOffset, length), tolerance, () -> "SIMD, length " + n);
+        }
+    }
+
+    @Test
+    void simdCodeDotMatchesScalar() {
+        VectorKernels.Kernel simd = simdKernel();
+        VectorKernels.Kernel scalar = new ScalarVectorKernel();
+        for (int length : lengths()) {
+            int codesOffset = random.nextInt(8);
+            float[] query = randomFloats(length);
+            byte[] codes = randomCodes(codesOffset + length);
+
+            double exact = 0;
+            double magnitude = 0;
+            for (int i = 0; i < length; i++) {
+                exact += (double) query[i] * codes[codesOffset + i];
+                magnitude += Math.abs((double) query[i] * codes[codesOffset + i]);
+            }
+            double tolerance = 1e-5 * magnitude + 1e-6;
+            int n = length;
+            assertEquals(exact, scalar.dot(query, codes, codesOffset, length), tolerance, () -> "scalar, length " + n);
+            assertEquals(exact, simd.dot(query, codes, codesOffset, length), tolerance, () -> "SIMD, length " + n);
+        }
+    }
+
+    @Test
+    void batchKernelsScoreEveryRow() {
+        ScalarVectorKernel scalar = new ScalarVectorKernel();
+        int dimensions = 37;
+        int rows = 50;
+        float[] query = randomFloats(dimensions);
+        float[] matrix = randomFloats(dimensions * rows);
+        byte[] codes = randomCodes(dimensions * rows);
+
+        float[] floatScores = new float[rows];
+        float[] codeScores = new float[rows];
+        VectorKernels.dotAll(query, matrix, rows, floatScores);
+        VectorKernels.dotAll(query, codes, rows, codeScores);
+        for (int row = 0; row < rows; row++) {
+            assertEquals(scalar.dot(query, 0, matrix, row * dimensions, dimensions), floatScores[row], 1e-4f);
+            assertEquals(scalar.dot(query, codes, row * dimensions, dimensions), codeScores[row], 1e-2f);
+            assertEquals(codeScores[row], VectorKernels.dot(query, codes, row), 1e-2f);
+        }
+    }
+
+    @Test
+    void outOfBoundsRowsAreRejected() {
+        float[] query = new float[8];
+        assertThrows(IllegalArgumentException.class, () -> VectorKernels.dot(query, new byte[15], 1));
+        assertThrows(IllegalArgumentException.class, () -> VectorKernels.dotAll(query, new byte[16], 3, new float[3]));
+        assertThrows(IllegalArgumentException.class, () -> VectorKernels.dot(query, new float[7]));
+    }
+
+    static VectorKernels.Kernel simdKernel() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "run with --add-modules jdk.incubator.vector");
+        return new SimdVectorKernel();
+    }
+
+    private static int[] lengths() {
+        int[] lengths = new int[MAX_LENGTH + 1 + EMBEDDING_LENGTHS.length];
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            lengths[length] = length;
+        }
+        System.arraycopy(EMBEDDING_LENGTHS, 0, lengths, MAX_LENGTH + 1, EMBEDDING_LENGTHS.length);
+        return lengths;
+    }
+
+    private float[] randomFloats(int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) random.nextGaussian();
+        }
+        return values;
+    }
+
+    private byte[] randomCodes(int length) {
+        byte[] codes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            codes[i] = (byte) (random.nextInt(256) - 128);
+        }
+        return codes;
+    }
+}